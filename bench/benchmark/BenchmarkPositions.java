@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.*;
+
+import core.*;
+
+/**
+ * The positions the benchmarks are run on. Each set is derived from a few hand-picked positions by playing random legal moves. The random moves are
+ * generated from a fixed seed, so every run of the benchmarks uses exactly the same positions.
+ */
+public final class BenchmarkPositions
+{
+	public enum Kind
+	{
+		OPENING(2, 12, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -"),
+		MIDDLEGAME(0, 8, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+				"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -",
+				"r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w KQ -"),
+		ENDGAME(0, 20, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -", "8/5pk1/6p1/8/3R4/6P1/5PK1/8 w - -", "8/8/4k3/3p4/3P4/4K3/8/8 w - -"),
+		CASTLING(0, 2, "r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq -", "r3k2r/ppp2ppp/2n1bn2/3pp3/3PP3/2N1BN2/PPP2PPP/R3K2R w KQkq -",
+				"r3k2r/8/8/8/8/8/8/R3K2R b KQkq -"),
+		PROMOTION(0, 4, "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -", "8/PPPk4/8/8/8/8/4Kppp/8 w - -",
+				"n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - -");
+
+		private final int minPlyCount;
+		private final int maxPlyCount;
+		private final String[] fens;
+
+		private Kind(int minPlyCount, int maxPlyCount, String... fens)
+		{
+			this.minPlyCount = minPlyCount;
+			this.maxPlyCount = maxPlyCount;
+			this.fens = fens;
+		}
+	}
+
+	/**
+	 * The number of positions per set.
+	 */
+	public static final int SET_SIZE = 64;
+
+	private static final long SEED = 20161018L;
+
+	private BenchmarkPositions()
+	{
+	}
+
+	/**
+	 * Creates the positions of a set. Every call returns new boards with the same positions.
+	 * 
+	 * @param kind the kind of the positions
+	 * @return SET_SIZE boards
+	 */
+	public static List<Board> create(Kind kind)
+	{
+		Random random = new Random(BenchmarkPositions.SEED + kind.ordinal());
+		MoveList moves = new MoveList();
+		List<Board> boards = new ArrayList<>();
+		while (boards.size() < BenchmarkPositions.SET_SIZE)
+		{
+			Board board = new Board(kind.fens[boards.size() % kind.fens.length]);
+			GameCalc gameCalc = new GameCalc(board);
+			int plyCount = kind.minPlyCount + random.nextInt(kind.maxPlyCount - kind.minPlyCount + 1);
+			for (int ply = 0; (ply < plyCount) && (gameCalc.generateMoves(moves) > 0); ply++)
+			{
+				board.makeMove(moves.get(random.nextInt(moves.size())));
+			}
+			if (gameCalc.generateMoves(moves) > 0)
+			{
+				boards.add(board.clone());
+			}
+		}
+		return boards;
+	}
+}
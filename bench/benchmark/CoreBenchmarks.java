@@ -0,0 +1,168 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+import user.schubert.richard.*;
+import benchmark.BenchmarkPositions.Kind;
+import core.*;
+
+/**
+ * The JMH benchmarks of the rules engine in package core and of the move calculation. Every benchmark is run on every set of positions (see
+ * BenchmarkPositions); an invocation applies the operation to all positions of the set, so the scores are operations per position and second. The
+ * runs are forked, and the error bounds JMH prints show whether a difference between two versions of core is real. The GC profiler reports the
+ * allocation rate (gc.alloc.rate) and the bytes allocated per operation (gc.alloc.rate.norm).
+ *
+ * Usage: java benchmark.CoreBenchmarks [JMH options]
+ *
+ * The options are those of org.openjdk.jmh.Main, for example a regular expression selecting the benchmarks or -f, -wi and -i for the number of
+ * forks, warm-up and measurement iterations. The GC profiler is always added. The classes JMH generates from the annotations are written by the
+ * annotation processor in lib/jmh/jmh-generator-annprocess.jar, which has to be on the processor path when the bench folder is compiled (see
+ * .factorypath). The benchmarks live in their own source folder (bench) so that they are not part of the application.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkPositions.SET_SIZE)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CoreBenchmarks
+{
+	/**
+	 * The positions of one set. They are created once per fork and not changed by the benchmarks.
+	 */
+	@State(Scope.Thread)
+	public static class Positions
+	{
+		@Param
+		public Kind kind;
+
+		private Board[] boards;
+
+		@Setup
+		public void createBoards()
+		{
+			boards = BenchmarkPositions.create(kind).toArray(new Board[BenchmarkPositions.SET_SIZE]);
+		}
+	}
+
+	/**
+	 * A move list that is reused by all invocations, like a search reuses its lists.
+	 */
+	@State(Scope.Thread)
+	public static class Moves
+	{
+		private final MoveList moves = new MoveList();
+	}
+
+	@Benchmark
+	public void getSquare(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			int pieceCount = 0;
+			for (int index = 0; index < Board.SQUARE_COUNT; index++)
+			{
+				pieceCount += board.getSquare(SquareID.fromIndex(index)).isEmpty() ? 0 : 1;
+			}
+			blackhole.consume(pieceCount);
+		}
+	}
+
+	@Benchmark
+	public void cloneBoard(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			blackhole.consume(board.clone());
+		}
+	}
+
+	@Benchmark
+	public void getTargetSquares(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			GameCalc gameCalc = new GameCalc(board);
+			for (Square square : board.getSquaresWithPiecesOfColor(board.getPosition().getColorToMove()))
+			{
+				blackhole.consume(gameCalc.getTargetSquares(square));
+			}
+		}
+	}
+
+	@Benchmark
+	public void generateMoves(Positions positions, Moves moves, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			blackhole.consume(new GameCalc(board).generateMoves(moves.moves));
+		}
+	}
+
+	@Benchmark
+	public void isAttacked(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			GameCalc gameCalc = new GameCalc(board);
+			for (long pieces = board.getPosition().getOccupancy(); pieces != 0; pieces &= pieces - 1)
+			{
+				blackhole.consume(gameCalc.isAttacked(board.getSquare(Bitboards.getFirstIndex(pieces))));
+			}
+		}
+	}
+
+	@Benchmark
+	public void isCheckmate(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			blackhole.consume(new GameCalc(board).isCheckmate(board.getPosition().getColorToMove()));
+		}
+	}
+
+	@Benchmark
+	public void hasLegalMove(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			blackhole.consume(new GameCalc(board).hasLegalMove());
+		}
+	}
+
+	@Benchmark
+	public void getPossibleMoves(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			blackhole.consume(Calc.getPossibleMoves(board, board.getPosition().getColorToMove()));
+		}
+	}
+
+	@Benchmark
+	public void pieceDefaultValueEvaluation(Positions positions, Blackhole blackhole)
+	{
+		for (Board board : positions.boards)
+		{
+			PositionEvaluation evaluation = new PieceDefaultValueEvaluation(board);
+			blackhole.consume(evaluation.getWhiteValue() - evaluation.getBlackValue());
+		}
+	}
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException
+	{
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class);
+		if (commandLineOptions.getIncludes().isEmpty())
+		{
+			options.include(CoreBenchmarks.class.getName());
+		}
+		new Runner(options.build()).run();
+	}
+}
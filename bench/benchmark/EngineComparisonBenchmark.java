@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.util.*;
+
+import user.schubert.richard.*;
+import benchmark.BenchmarkPositions.Kind;
+import core.*;
+
+/**
+ * Compares the alpha-beta search (see ParallelSearch) with the Monte Carlo search (see MonteCarloSearch) by letting them play games against each
+ * other on one thread each, first with an equal node budget per move and then with an equal time per move. Every opening position is played twice
+ * with the colors swapped. A game ends at checkmate or stalemate; after the maximum number of plies it is adjudicated by the material on the board.
+ * For each budget the score of the alpha-beta search is printed together with the average nodes and time per move of both engines.
+ * 
+ * Usage: java benchmark.EngineComparisonBenchmark [-nodes count per move] [-time ms per move] [-games pairs] [-plies max plies per game]
+ * [-playout EVALUATOR|RANDOM]
+ */
+public final class EngineComparisonBenchmark
+{
+	private static final long DEFAULT_NODE_BUDGET = 50000;
+	private static final long DEFAULT_TIME_BUDGET = 100;
+	private static final int DEFAULT_GAME_PAIR_COUNT = 4;
+	private static final int DEFAULT_MAX_PLY_COUNT = 100;
+	/**
+	 * The material advantage in centipawns that wins a game adjudicated after the maximum number of plies.
+	 */
+	private static final int ADJUDICATION_MARGIN = 300;
+	private static final int ALPHA_BETA = 0;
+	private static final int MONTE_CARLO = 1;
+
+	private enum Budget
+	{
+		NODES, TIME
+	}
+
+	private EngineComparisonBenchmark()
+	{
+	}
+
+	public static void main(String[] args)
+	{
+		long nodeBudget = EngineComparisonBenchmark.DEFAULT_NODE_BUDGET;
+		long timeBudget = EngineComparisonBenchmark.DEFAULT_TIME_BUDGET;
+		int gamePairCount = EngineComparisonBenchmark.DEFAULT_GAME_PAIR_COUNT;
+		int maxPlyCount = EngineComparisonBenchmark.DEFAULT_MAX_PLY_COUNT;
+		MonteCarloSearch.Playout playout = MonteCarloSearch.Playout.EVALUATOR;
+		for (int i = 0; i < args.length; i++)
+		{
+			switch (args[i])
+			{
+			case "-nodes":
+				nodeBudget = Long.parseLong(args[++i]);
+				break;
+			case "-time":
+				timeBudget = Long.parseLong(args[++i]);
+				break;
+			case "-games":
+				gamePairCount = Integer.parseInt(args[++i]);
+				break;
+			case "-plies":
+				maxPlyCount = Integer.parseInt(args[++i]);
+				break;
+			case "-playout":
+				playout = MonteCarloSearch.Playout.valueOf(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		List<Board> openings = BenchmarkPositions.create(Kind.OPENING).subList(0, gamePairCount);
+		System.out.println(String.format("%-8s %10s %8s %16s %16s %14s %14s", "budget", "per move", "score", "alpha-beta nodes", "MCTS nodes",
+				"alpha-beta ms", "MCTS ms"));
+		for (Budget budget : Budget.values())
+		{
+			long budgetPerMove = (budget == Budget.NODES) ? nodeBudget : timeBudget;
+			Match match = new Match(budget, budgetPerMove, playout);
+			for (Board opening : openings)
+			{
+				match.play(opening, EngineComparisonBenchmark.ALPHA_BETA, maxPlyCount);
+				match.play(opening, EngineComparisonBenchmark.MONTE_CARLO, maxPlyCount);
+			}
+			match.shutdown();
+			System.out.println(String.format("%-8s %10d %4.1f/%-3d %16d %16d %14.1f %14.1f", budget, budgetPerMove, match.points, 2 * gamePairCount,
+					match.getAverageNodeCount(EngineComparisonBenchmark.ALPHA_BETA),
+					match.getAverageNodeCount(EngineComparisonBenchmark.MONTE_CARLO),
+					match.getAverageTime(EngineComparisonBenchmark.ALPHA_BETA), match.getAverageTime(EngineComparisonBenchmark.MONTE_CARLO)));
+		}
+	}
+
+	/**
+	 * The games under one budget and their statistics, indexed by engine.
+	 */
+	private static final class Match
+	{
+		private final Budget budget;
+		private final long budgetPerMove;
+		private final PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		private final TranspositionTable transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE);
+		private final ParallelSearch alphaBetaSearch = new ParallelSearch(evaluator, transpositionTable, 1);
+		private final MonteCarloSearch monteCarloSearch = new MonteCarloSearch(evaluator, 1);
+		/**
+		 * The points of the alpha-beta search.
+		 */
+		private double points;
+		private final long[] nodeCounts = new long[2];
+		private final long[] times = new long[2];
+		private final int[] moveCounts = new int[2];
+
+		private Match(Budget budget, long budgetPerMove, MonteCarloSearch.Playout playout)
+		{
+			this.budget = budget;
+			this.budgetPerMove = budgetPerMove;
+			monteCarloSearch.setPlayout(playout);
+			if (budget == Budget.NODES)
+			{
+				alphaBetaSearch.setNodeLimit(budgetPerMove);
+				monteCarloSearch.setNodeLimit(budgetPerMove);
+			}
+		}
+
+		/**
+		 * Plays a game from an opening position and adds its result to the points.
+		 * 
+		 * @param firstEngine the engine that moves first
+		 */
+		private void play(Board opening, int firstEngine, int maxPlyCount)
+		{
+			Board board = opening.clone();
+			GameCalc gameCalc = new GameCalc(board);
+			transpositionTable.clear();
+			int engine = firstEngine;
+			for (int ply = 0; ply < maxPlyCount; ply++)
+			{
+				if (gameCalc.generateMoves(new MoveList()) == 0)
+				{
+					// the engine to move is checkmated or stalemated
+					points += gameCalc.isInCheck() ? 1 - engine : 0.5;
+					return;
+				}
+				long start = System.nanoTime();
+				SearchResult result = search(board, engine);
+				times[engine] += System.nanoTime() - start;
+				nodeCounts[engine] += result.getNodeCount();
+				moveCounts[engine]++;
+				board.makeMove(result.getBestMove());
+				engine = 1 - engine;
+			}
+			int score = evaluator.evaluate(board);
+			int winner = (score >= EngineComparisonBenchmark.ADJUDICATION_MARGIN) ? engine
+					: ((score <= -EngineComparisonBenchmark.ADJUDICATION_MARGIN) ? 1 - engine : -1);
+			points += (winner < 0) ? 0.5 : 1 - winner;
+		}
+
+		private SearchResult search(Board board, int engine)
+		{
+			long moveTime = (budget == Budget.TIME) ? budgetPerMove : Long.MAX_VALUE;
+			if (engine == EngineComparisonBenchmark.ALPHA_BETA)
+			{
+				transpositionTable.newSearch();
+				return alphaBetaSearch.search(board, TimeManager.createForMoveTime(moveTime), Search.MAX_PLY);
+			}
+			return monteCarloSearch.search(board, TimeManager.createForMoveTime(moveTime));
+		}
+
+		private long getAverageNodeCount(int engine)
+		{
+			return nodeCounts[engine] / Math.max(1, moveCounts[engine]);
+		}
+
+		private double getAverageTime(int engine)
+		{
+			return times[engine] / (1000.0 * 1000 * Math.max(1, moveCounts[engine]));
+		}
+
+		private void shutdown()
+		{
+			alphaBetaSearch.shutdown();
+			monteCarloSearch.shutdown();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package benchmark;
+
+import java.util.*;
+
+import user.schubert.richard.*;
+import benchmark.BenchmarkPositions.Kind;
+import core.*;
+
+/**
+ * Measures the effect of each kind of selective pruning of the search (see Search) separately: the positions are searched to a fixed depth with
+ * no pruning, with each kind of pruning alone and with all of them. For every configuration the nodes and the time needed to reach the depth are
+ * printed, together with the share of positions in which the best move agrees with the search without pruning. The agreement is only a rough
+ * hint at the strength: a pruned search that disagrees may still play well, but a low agreement calls for a closer look.
+ *
+ * Usage: java benchmark.PruningBenchmark [-depth plies] [-positions count per kind]
+ */
+public final class PruningBenchmark
+{
+	private static final int DEFAULT_DEPTH = 5;
+	private static final int DEFAULT_POSITION_COUNT = 8;
+	private static final Kind[] KINDS =
+	{ Kind.OPENING, Kind.MIDDLEGAME, Kind.ENDGAME };
+
+	private enum Configuration
+	{
+		NONE(false, false, false), NULL_MOVE(true, false, false), LATE_MOVE_REDUCTIONS(false, true, false), REVERSE_FUTILITY(false, false, true),
+		ALL(true, true, true);
+
+		private final boolean nullMovePruning;
+		private final boolean lateMoveReductions;
+		private final boolean reverseFutilityPruning;
+
+		private Configuration(boolean nullMovePruning, boolean lateMoveReductions, boolean reverseFutilityPruning)
+		{
+			this.nullMovePruning = nullMovePruning;
+			this.lateMoveReductions = lateMoveReductions;
+			this.reverseFutilityPruning = reverseFutilityPruning;
+		}
+	}
+
+	private PruningBenchmark()
+	{
+	}
+
+	public static void main(String[] args)
+	{
+		int depth = PruningBenchmark.DEFAULT_DEPTH;
+		int positionCount = PruningBenchmark.DEFAULT_POSITION_COUNT;
+		for (int i = 0; i < args.length; i++)
+		{
+			switch (args[i])
+			{
+			case "-depth":
+				depth = Integer.parseInt(args[++i]);
+				break;
+			case "-positions":
+				positionCount = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		List<Board> boards = new ArrayList<>();
+		for (Kind kind : PruningBenchmark.KINDS)
+		{
+			boards.addAll(BenchmarkPositions.create(kind).subList(0, positionCount));
+		}
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		TranspositionTable transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE);
+
+		System.out.println(String.format("%-22s %14s %12s %10s", "pruning", "nodes", "time [ms]", "agreement"));
+		int[] referenceMoves = null;
+		for (Configuration configuration : Configuration.values())
+		{
+			int[] bestMoves = new int[boards.size()];
+			long nodeCount = 0;
+			long time = 0;
+			for (int i = 0; i < boards.size(); i++)
+			{
+				transpositionTable.clear();
+				Search search = new Search(boards.get(i).clone(), evaluator, transpositionTable);
+				search.setNullMovePruningEnabled(configuration.nullMovePruning);
+				search.setLateMoveReductionsEnabled(configuration.lateMoveReductions);
+				search.setReverseFutilityPruningEnabled(configuration.reverseFutilityPruning);
+				long start = System.nanoTime();
+				SearchResult result = search.search(TimeManager.createForMoveTime(Long.MAX_VALUE), depth);
+				time += System.nanoTime() - start;
+				nodeCount += result.getNodeCount();
+				bestMoves[i] = result.getBestMove();
+			}
+			if (referenceMoves == null)
+			{
+				referenceMoves = bestMoves;
+			}
+			int agreementCount = 0;
+			for (int i = 0; i < bestMoves.length; i++)
+			{
+				agreementCount += (bestMoves[i] == referenceMoves[i]) ? 1 : 0;
+			}
+			System.out.println(String.format("%-22s %14d %12d %9.0f%%", configuration, nodeCount, time / (1000 * 1000),
+					100.0 * agreementCount / bestMoves.length));
+		}
+	}
+}
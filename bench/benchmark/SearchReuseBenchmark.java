@@ -0,0 +1,106 @@
+package benchmark;
+
+import user.schubert.richard.*;
+import core.*;
+
+/**
+ * Measures how much a search gains from the work of the search for the previous move. Two engines play a game against each other, each searching
+ * every move to a fixed depth. The time to reach the depth is summed up over all moves but the first one of each engine, in three modes:
+ * <ul>
+ * <li>COLD: every move is searched with a new transposition table and new searches.</li>
+ * <li>TABLE: the transposition table is kept, but the searches are new for every move.</li>
+ * <li>WARM: both are kept, so the searches are advanced by the two moves played since (see ParallelSearch).</li>
+ * </ul>
+ * The engines only look at material, so the games of all modes are the same as long as the searches find the same moves.
+ *
+ * Usage: java benchmark.SearchReuseBenchmark [-depth plies] [-moves plies per game]
+ */
+public final class SearchReuseBenchmark
+{
+	private static final int DEFAULT_DEPTH = 7;
+	private static final int DEFAULT_MOVE_COUNT = 30;
+	private static final String[] FENS =
+	{ "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -" };
+
+	private enum Mode
+	{
+		COLD, TABLE, WARM
+	}
+
+	private SearchReuseBenchmark()
+	{
+	}
+
+	public static void main(String[] args)
+	{
+		int depth = SearchReuseBenchmark.DEFAULT_DEPTH;
+		int moveCount = SearchReuseBenchmark.DEFAULT_MOVE_COUNT;
+		for (int i = 0; i < args.length; i++)
+		{
+			switch (args[i])
+			{
+			case "-depth":
+				depth = Integer.parseInt(args[++i]);
+				break;
+			case "-moves":
+				moveCount = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		// warm up the JIT compiler
+		SearchReuseBenchmark.playGames(Mode.WARM, depth - 2, moveCount / 2);
+		System.out.println(String.format("%-8s %12s %14s", "mode", "time [ms]", "nodes"));
+		for (Mode mode : Mode.values())
+		{
+			long[] totals = SearchReuseBenchmark.playGames(mode, depth, moveCount);
+			System.out.println(String.format("%-8s %12d %14d", mode, totals[0] / (1000 * 1000), totals[1]));
+		}
+	}
+
+	/**
+	 * Plays a game from every start position.
+	 *
+	 * @return the time in nanoseconds and the node count, summed up over all moves but the first one of each engine
+	 */
+	private static long[] playGames(Mode mode, int depth, int moveCount)
+	{
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		long[] totals = new long[2];
+		for (String fen : SearchReuseBenchmark.FENS)
+		{
+			Board board = new Board(fen);
+			TranspositionTable[] transpositionTables = new TranspositionTable[2];
+			ParallelSearch[] searches = new ParallelSearch[2];
+			for (int ply = 0; ply < moveCount; ply++)
+			{
+				int engine = ply % 2;
+				if ((transpositionTables[engine] == null) || (mode == Mode.COLD))
+				{
+					transpositionTables[engine] = new TranspositionTable(TranspositionTable.DEFAULT_SIZE);
+				}
+				if ((searches[engine] == null) || (mode != Mode.WARM))
+				{
+					searches[engine] = new ParallelSearch(evaluator, transpositionTables[engine], 1);
+				}
+				transpositionTables[engine].newSearch();
+				long start = System.nanoTime();
+				SearchResult result = searches[engine].search(board, TimeManager.createForMoveTime(Long.MAX_VALUE), depth);
+				long time = System.nanoTime() - start;
+				if (result.getBestMove() == PackedMove.NONE)
+				{
+					break;
+				}
+				if (ply >= 2)
+				{
+					totals[0] += time;
+					totals[1] += result.getNodeCount();
+				}
+				board.makeMove(result.getBestMove());
+			}
+		}
+		return totals;
+	}
+}
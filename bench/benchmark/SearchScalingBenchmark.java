@@ -0,0 +1,104 @@
+package benchmark;
+
+import java.util.*;
+
+import user.schubert.richard.*;
+import core.*;
+
+/**
+ * Measures how the parallel search (see ParallelSearch) scales with the number of threads: every position is searched to a fixed depth with 1, 2,
+ * 4, ... threads up to the maximum thread count, and the time to reach the depth is compared to the time of a single thread. Every search starts
+ * with an empty transposition table.
+ *
+ * Usage: java benchmark.SearchScalingBenchmark [-depth plies] [-threads maximum] [-hash megabytes]
+ */
+public final class SearchScalingBenchmark
+{
+	private static final int DEFAULT_DEPTH = 6;
+	private static final String[] FENS =
+	{ "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -" };
+
+	private SearchScalingBenchmark()
+	{
+	}
+
+	public static void main(String[] args)
+	{
+		int depth = SearchScalingBenchmark.DEFAULT_DEPTH;
+		int maxThreadCount = Runtime.getRuntime().availableProcessors();
+		int hashSize = TranspositionTable.DEFAULT_SIZE;
+		for (int i = 0; i < args.length; i++)
+		{
+			switch (args[i])
+			{
+			case "-depth":
+				depth = Integer.parseInt(args[++i]);
+				break;
+			case "-threads":
+				maxThreadCount = Integer.parseInt(args[++i]);
+				break;
+			case "-hash":
+				hashSize = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		List<Integer> threadCounts = new ArrayList<>();
+		for (int threadCount = 1; threadCount < maxThreadCount; threadCount *= 2)
+		{
+			threadCounts.add(threadCount);
+		}
+		threadCounts.add(maxThreadCount);
+
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		TranspositionTable transpositionTable = new TranspositionTable(hashSize);
+		// warm up the JIT compiler so that the single thread is not measured with interpreted code
+		for (String fen : SearchScalingBenchmark.FENS)
+		{
+			SearchScalingBenchmark.measure(new Board(fen), evaluator, transpositionTable, 1, depth);
+		}
+
+		System.out.println(String.format("%-8s %12s %14s %12s %8s", "threads", "time [ms]", "nodes", "knps", "speedup"));
+		long singleThreadTime = 0;
+		for (int threadCount : threadCounts)
+		{
+			long time = 0;
+			long nodeCount = 0;
+			for (String fen : SearchScalingBenchmark.FENS)
+			{
+				long start = System.nanoTime();
+				nodeCount += SearchScalingBenchmark.measure(new Board(fen), evaluator, transpositionTable, threadCount, depth);
+				time += System.nanoTime() - start;
+			}
+			if (threadCount == 1)
+			{
+				singleThreadTime = time;
+			}
+			long millis = time / (1000 * 1000);
+			System.out.println(String.format("%-8d %12d %14d %12d %8.2f", threadCount, millis, nodeCount, nodeCount * 1000 * 1000 / Math.max(1, time),
+					(double) singleThreadTime / time));
+		}
+	}
+
+	/**
+	 * Searches a position to a fixed depth.
+	 *
+	 * @return the number of nodes searched by all threads
+	 */
+	private static long measure(Board board, PositionEvaluator evaluator, TranspositionTable transpositionTable, int threadCount, int depth)
+	{
+		transpositionTable.clear();
+		ParallelSearch search = new ParallelSearch(evaluator, transpositionTable, threadCount);
+		try
+		{
+			return search.search(board, TimeManager.createForMoveTime(Long.MAX_VALUE), depth).getNodeCount();
+		}
+		finally
+		{
+			search.shutdown();
+		}
+	}
+}
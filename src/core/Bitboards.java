@@ -0,0 +1,294 @@
+package core;
+
+/**
+ * Static helpers for bitboards. A bitboard is a 64 bit mask in which each bit represents one square of a chess board. The bit with the index i
+ * represents the square with the index i, which is (row - 1) * 8 + (column - 1). Hence a1 has the index 0, h1 the index 7 and h8 the index 63.
+ */
+public final class Bitboards
+{
+	public static final long FILE_A = 0x0101010101010101L;
+	public static final long FILE_H = Bitboards.FILE_A << 7;
+	public static final long RANK_1 = 0xFFL;
+	public static final long RANK_8 = Bitboards.RANK_1 << 56;
+
+	private static final long[] KNIGHT_ATTACKS = new long[Board.SQUARE_COUNT];
+	private static final long[] KING_ATTACKS = new long[Board.SQUARE_COUNT];
+	private static final long[][] PAWN_ATTACKS = new long[2][Board.SQUARE_COUNT];
+	private static final long[][] BETWEEN = new long[Board.SQUARE_COUNT][Board.SQUARE_COUNT];
+	private static final long[][] LINES = new long[Board.SQUARE_COUNT][Board.SQUARE_COUNT];
+
+	private static final int[][] KNIGHT_STEPS =
+	{
+	{ 1, 2 },
+	{ 2, 1 },
+	{ 2, -1 },
+	{ 1, -2 },
+	{ -1, -2 },
+	{ -2, -1 },
+	{ -2, 1 },
+	{ -1, 2 } };
+	private static final int[][] KING_STEPS =
+	{
+	{ 0, 1 },
+	{ 1, 1 },
+	{ 1, 0 },
+	{ 1, -1 },
+	{ 0, -1 },
+	{ -1, -1 },
+	{ -1, 0 },
+	{ -1, 1 } };
+	private static final int[][] ROOK_DIRECTIONS =
+	{
+	{ 0, 1 },
+	{ 1, 0 },
+	{ 0, -1 },
+	{ -1, 0 } };
+	private static final int[][] BISHOP_DIRECTIONS =
+	{
+	{ 1, 1 },
+	{ 1, -1 },
+	{ -1, -1 },
+	{ -1, 1 } };
+
+	static
+	{
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			Bitboards.KNIGHT_ATTACKS[index] = Bitboards.getStepTargets(index, Bitboards.KNIGHT_STEPS);
+			Bitboards.KING_ATTACKS[index] = Bitboards.getStepTargets(index, Bitboards.KING_STEPS);
+			Bitboards.PAWN_ATTACKS[ChessColor.WHITE.ordinal()][index] = Bitboards.getStepTargets(index, new int[][]
+			{
+			{ -1, 1 },
+			{ 1, 1 } });
+			Bitboards.PAWN_ATTACKS[ChessColor.BLACK.ordinal()][index] = Bitboards.getStepTargets(index, new int[][]
+			{
+			{ -1, -1 },
+			{ 1, -1 } });
+			Bitboards.initializeLines(index, Bitboards.ROOK_DIRECTIONS);
+			Bitboards.initializeLines(index, Bitboards.BISHOP_DIRECTIONS);
+		}
+	}
+
+	private Bitboards()
+	{
+	}
+
+	/**
+	 * Returns the index of the square in the given column and row.
+	 * 
+	 * @param col the column (1 to 8)
+	 * @param row the row (1 to 8)
+	 * @return the index of the square (0 to 63)
+	 */
+	public static int getIndex(int col, int row)
+	{
+		return ((row - 1) << 3) + (col - 1);
+	}
+
+	/**
+	 * Returns the column (1 to 8) of the square with the given index.
+	 * 
+	 * @param index the index of the square
+	 * @return the column of the square
+	 */
+	public static int getColumn(int index)
+	{
+		return (index & 7) + 1;
+	}
+
+	/**
+	 * Returns the row (1 to 8) of the square with the given index.
+	 * 
+	 * @param index the index of the square
+	 * @return the row of the square
+	 */
+	public static int getRow(int index)
+	{
+		return (index >>> 3) + 1;
+	}
+
+	/**
+	 * Returns a bitboard in which only the bit of the given square is set.
+	 * 
+	 * @param index the index of the square
+	 * @return the bitboard of the square
+	 */
+	public static long getMask(int index)
+	{
+		return 1L << index;
+	}
+
+	/**
+	 * Returns the index of the lowest square contained in a bitboard.
+	 * 
+	 * @param bitboard the bitboard
+	 * @return the index of the lowest square or 64 if the bitboard is empty
+	 */
+	public static int getFirstIndex(long bitboard)
+	{
+		return Long.numberOfTrailingZeros(bitboard);
+	}
+
+	/**
+	 * Returns the number of squares contained in a bitboard.
+	 * 
+	 * @param bitboard the bitboard
+	 * @return the number of set bits
+	 */
+	public static int getCount(long bitboard)
+	{
+		return Long.bitCount(bitboard);
+	}
+
+	/**
+	 * Returns the squares a knight on the given square attacks.
+	 * 
+	 * @param index the index of the knight's square
+	 * @return the attacked squares
+	 */
+	public static long getKnightAttacks(int index)
+	{
+		return Bitboards.KNIGHT_ATTACKS[index];
+	}
+
+	/**
+	 * Returns the squares a king on the given square attacks.
+	 * 
+	 * @param index the index of the king's square
+	 * @return the attacked squares
+	 */
+	public static long getKingAttacks(int index)
+	{
+		return Bitboards.KING_ATTACKS[index];
+	}
+
+	/**
+	 * Returns the squares a pawn of the given color on the given square attacks, that is the squares it could capture on.
+	 * 
+	 * @param pawnColor the color of the pawn
+	 * @param index the index of the pawn's square
+	 * @return the attacked squares
+	 */
+	public static long getPawnAttacks(ChessColor pawnColor, int index)
+	{
+		return Bitboards.PAWN_ATTACKS[pawnColor.ordinal()][index];
+	}
+
+	/**
+	 * Returns the squares between two squares that are located on a common row, column or diagonal.
+	 * 
+	 * @param index1 the index of the first square
+	 * @param index2 the index of the second square
+	 * @return the squares between the two squares (both excluded) or 0 if the squares do not share a row, column or diagonal
+	 */
+	public static long getBetween(int index1, int index2)
+	{
+		return Bitboards.BETWEEN[index1][index2];
+	}
+
+	/**
+	 * Returns the whole row, column or diagonal two squares are located on, from one edge of the board to the other.
+	 * 
+	 * @param index1 the index of the first square
+	 * @param index2 the index of the second square
+	 * @return the squares of the common line (including both squares) or 0 if the squares do not share a row, column or diagonal
+	 */
+	public static long getLine(int index1, int index2)
+	{
+		return Bitboards.LINES[index1][index2];
+	}
+
+	/**
+	 * Returns the squares a rook on the given square attacks by walking its rays square by square. Each ray ends at the first occupied square,
+	 * which is part of the result. This is used to build the tables of MagicAttacks, which should be used everywhere else.
+	 * 
+	 * @param index the index of the rook's square
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares
+	 */
+	public static long getRookRayAttacks(int index, long occupied)
+	{
+		return Bitboards.getRayAttacks(index, occupied, Bitboards.ROOK_DIRECTIONS);
+	}
+
+	/**
+	 * Returns the squares a bishop on the given square attacks by walking its rays square by square. Each ray ends at the first occupied square,
+	 * which is part of the result. This is used to build the tables of MagicAttacks, which should be used everywhere else.
+	 * 
+	 * @param index the index of the bishop's square
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares
+	 */
+	public static long getBishopRayAttacks(int index, long occupied)
+	{
+		return Bitboards.getRayAttacks(index, occupied, Bitboards.BISHOP_DIRECTIONS);
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private static long getStepTargets(int index, int[][] steps)
+	{
+		int col = Bitboards.getColumn(index);
+		int row = Bitboards.getRow(index);
+		long targets = 0;
+		for (int[] step : steps)
+		{
+			int potCol = col + step[0];
+			int potRow = row + step[1];
+			if (GameCalc.isInsideBoard(potCol, potRow))
+			{
+				targets |= Bitboards.getMask(Bitboards.getIndex(potCol, potRow));
+			}
+		}
+		return targets;
+	}
+
+	private static void initializeLines(int index, int[][] directions)
+	{
+		for (int[] direction : directions)
+		{
+			int[][] oppositeDirection =
+			{
+			{ -direction[0], -direction[1] } };
+			long line = Bitboards.getRayAttacks(index, 0, new int[][]
+			{ direction }) | Bitboards.getRayAttacks(index, 0, oppositeDirection) | Bitboards.getMask(index);
+
+			long between = 0;
+			int potCol = Bitboards.getColumn(index) + direction[0];
+			int potRow = Bitboards.getRow(index) + direction[1];
+			while (GameCalc.isInsideBoard(potCol, potRow))
+			{
+				int potIndex = Bitboards.getIndex(potCol, potRow);
+				Bitboards.BETWEEN[index][potIndex] = between;
+				Bitboards.LINES[index][potIndex] = line;
+				between |= Bitboards.getMask(potIndex);
+				potCol += direction[0];
+				potRow += direction[1];
+			}
+		}
+	}
+
+	private static long getRayAttacks(int index, long occupied, int[][] directions)
+	{
+		int col = Bitboards.getColumn(index);
+		int row = Bitboards.getRow(index);
+		long attacks = 0;
+		for (int[] direction : directions)
+		{
+			int potCol = col + direction[0];
+			int potRow = row + direction[1];
+			while (GameCalc.isInsideBoard(potCol, potRow))
+			{
+				long mask = Bitboards.getMask(Bitboards.getIndex(potCol, potRow));
+				attacks |= mask;
+				if ((occupied & mask) != 0)
+				{
+					break;
+				}
+				potCol += direction[0];
+				potRow += direction[1];
+			}
+		}
+		return attacks;
+	}
+}
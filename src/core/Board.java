@@ -7,7 +7,8 @@ import core.pieces.*;
 
 /**
  * This class represents a chess board. A chess board contains 8 rows and 8 columns which together form 64 squares (cells). Each square is represented
- * by a Square object. Objects of this class keep a set of all pieces captured on the board.
+ * by a Square object. The squares are indexed so that each of them can be looked up in constant time. Besides the squares every board keeps a
+ * bitboard representation of its pieces (see Position) which is updated whenever a piece is placed or removed.
  * 
  * @author Richard Schubert
  */
@@ -30,10 +31,57 @@ public final class Board
 
 	public static final int MAX_PIECE_COUNT = 32;
 
+	private static final int NORMAL_MOVE = 0;
+	private static final int EN_PASSANT_MOVE = 1;
+	private static final int PAWN_TRADE_MOVE = 2;
+	private static final int CASTLING_MOVE = 3;
+
+	/**
+	 * The FEN characters of the piece types in the order of Piece.Type.
+	 */
+	private static final String FEN_PIECE_CHARACTERS = "pbnrqk";
+
+	/**
+	 * The pieces pawns are traded for, indexed by color and PromotionChoice. Pieces are immutable, so all boards share them and a pawn trade move
+	 * does not allocate a new piece.
+	 */
+	private static final Piece[][] PROMOTION_PIECES =
+	{
+	{ new Knight(ChessColor.WHITE), new Bishop(ChessColor.WHITE), new Rook(ChessColor.WHITE), new Queen(ChessColor.WHITE) },
+	{ new Knight(ChessColor.BLACK), new Bishop(ChessColor.BLACK), new Rook(ChessColor.BLACK), new Queen(ChessColor.BLACK) } };
+
 	/**
-	 * The board's squares.
+	 * For each square the castling rights that are kept if a piece moves from or to that square.
 	 */
-	private HashSet<Square> squares = new HashSet<Square>(Board.SQUARE_COUNT);
+	private static final int[] KEPT_CASTLING_RIGHTS = new int[Board.SQUARE_COUNT];
+
+	static
+	{
+		Arrays.fill(Board.KEPT_CASTLING_RIGHTS, Position.ALL_CASTLING_RIGHTS);
+		Board.KEPT_CASTLING_RIGHTS[Bitboards.getIndex(1, 1)] &= ~Position.WHITE_QUEENSIDE;
+		Board.KEPT_CASTLING_RIGHTS[Bitboards.getIndex(5, 1)] &= ~(Position.WHITE_QUEENSIDE | Position.WHITE_KINGSIDE);
+		Board.KEPT_CASTLING_RIGHTS[Bitboards.getIndex(8, 1)] &= ~Position.WHITE_KINGSIDE;
+		Board.KEPT_CASTLING_RIGHTS[Bitboards.getIndex(1, 8)] &= ~Position.BLACK_QUEENSIDE;
+		Board.KEPT_CASTLING_RIGHTS[Bitboards.getIndex(5, 8)] &= ~(Position.BLACK_QUEENSIDE | Position.BLACK_KINGSIDE);
+		Board.KEPT_CASTLING_RIGHTS[Bitboards.getIndex(8, 8)] &= ~Position.BLACK_KINGSIDE;
+	}
+
+	/**
+	 * The board's squares. The square with the index i (see SquareID.getIndex) is stored at position i.
+	 */
+	private final Square[] squares = new Square[Board.SQUARE_COUNT];
+	/**
+	 * The bitboard representation of the pieces on this board. It is kept in sync with the squares.
+	 */
+	private final Position position = new Position();
+	/**
+	 * The undo records of the moves made through makeMove which have not been unmade yet. Each record consists of one int holding the kind of move,
+	 * the indexes of its origin and target squares, the castling rights and the en passant target square before the move and of two entries in
+	 * undoPieces holding the moving and the captured piece.
+	 */
+	private int[] undoInfos = new int[Board.MAX_PIECE_COUNT];
+	private Piece[] undoPieces = new Piece[2 * Board.MAX_PIECE_COUNT];
+	private int undoCount;
 
 	/**
 	 * Constructs a new Board filled with squares which in turn contain the pieces of a chess board before the start of the game.
@@ -43,12 +91,93 @@ public final class Board
 	 */
 	public Board(boolean defaultSetup)
 	{
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			squares[index] = new Square(SquareID.fromIndex(index));
+		}
 		if (defaultSetup)
 		{
 			createDefaultSetup();
 		}
 	}
 
+	/**
+	 * Constructs a new Board containing the position described in Forsyth-Edwards Notation (FEN), for example
+	 * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". The castling rights, the en passant target square and the move counters may be
+	 * omitted. The move counters are ignored.
+	 * 
+	 * @param fen the position in FEN
+	 * @throws IllegalArgumentException if the given string is not a valid FEN
+	 */
+	public Board(String fen)
+	{
+		this(false);
+		String[] fields = fen.trim().split("\\s+");
+		String[] rows = fields[0].split("/");
+		if ((fields.length < 2) || (rows.length != Board.ROW_IDS.length))
+		{
+			throw new IllegalArgumentException(fen + " is not a valid FEN");
+		}
+
+		for (int i = 0; i < rows.length; i++)
+		{
+			int row = Board.ROW_IDS.length - i;
+			int col = 1;
+			for (char character : rows[i].toCharArray())
+			{
+				if ((character >= '1') && (character <= '8'))
+				{
+					col += character - '0';
+				}
+				else if (col <= Board.COLUMN_IDS.length)
+				{
+					setPiece(squares[Bitboards.getIndex(col, row)], Board.createPiece(character, fen));
+					col++;
+				}
+				else
+				{
+					throw new IllegalArgumentException(fen + " is not a valid FEN");
+				}
+			}
+			if (col != Board.COLUMN_IDS.length + 1)
+			{
+				throw new IllegalArgumentException(fen + " is not a valid FEN");
+			}
+		}
+
+		if (!fields[1].equals("w") && !fields[1].equals("b"))
+		{
+			throw new IllegalArgumentException(fen + " is not a valid FEN");
+		}
+		ChessColor colorToMove = fields[1].equals("w") ? ChessColor.WHITE : ChessColor.BLACK;
+		position.setColorToMove(colorToMove);
+
+		int castlingRights = 0;
+		if ((fields.length > 2) && !fields[2].equals("-"))
+		{
+			for (char character : fields[2].toCharArray())
+			{
+				int index = "KQkq".indexOf(character);
+				if (index < 0)
+				{
+					throw new IllegalArgumentException(fen + " is not a valid FEN");
+				}
+				castlingRights |= 1 << index;
+			}
+		}
+		position.setCastlingRights(castlingRights);
+
+		if ((fields.length > 3) && !fields[3].equals("-"))
+		{
+			int enPassantIndex = new SquareID(fields[3]).getIndex();
+			long capturingPawns = position.getPieces(Type.PAWN, colorToMove);
+			if ((Bitboards.getPawnAttacks(colorToMove.getOpposite(), enPassantIndex) & capturingPawns) != 0)
+			{
+				position.setEnPassantIndex(enPassantIndex);
+			}
+		}
+	}
+
 	/**
 	 * Returns the Piece located on this board's square with the given ID.
 	 * 
@@ -68,14 +197,58 @@ public final class Board
 	 */
 	public Square getSquare(SquareID squareID)
 	{
-		for (Square square : squares)
+		return squares[squareID.getIndex()];
+	}
+
+	/**
+	 * Returns this board's Square with the specified index.
+	 * 
+	 * @param index the index of the square (see SquareID.getIndex)
+	 * @return the Square with the given index
+	 */
+	public Square getSquare(int index)
+	{
+		return squares[index];
+	}
+
+	/**
+	 * Returns the bitboard representation of the pieces on this board. The returned position reflects every change made to this board.
+	 * 
+	 * @return the bitboard representation of this board
+	 */
+	public Position getPosition()
+	{
+		return position;
+	}
+
+	/**
+	 * Returns the Zobrist key of the position on this board. The key identifies the pieces on the board, the color to move, the castling rights and
+	 * the en passant target square. It is updated incrementally by every move.
+	 * 
+	 * @return the Zobrist key
+	 */
+	public long getZobristKey()
+	{
+		return position.getKey();
+	}
+
+	/**
+	 * Two boards are equal if their positions are equal (see Position.equals).
+	 */
+	@Override
+	public boolean equals(Object o)
+	{
+		if (!(o instanceof Board))
 		{
-			if (square.getID().equals(squareID))
-			{
-				return square;
-			}
+			return false;
 		}
-		return null;
+		return ((Board) o).position.equals(position);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return position.hashCode();
 	}
 
 	/**
@@ -88,15 +261,12 @@ public final class Board
 	 */
 	public Square getSquare(Type pieceType, ChessColor colorOfPieceOnSquare)
 	{
-		for (Square square : squares)
+		long pieces = position.getPieces(pieceType, colorOfPieceOnSquare);
+		if (pieces == 0)
 		{
-			Piece piece = square.getPiece();
-			if (!square.isEmpty() && (piece.getColor() == colorOfPieceOnSquare) && (piece.getType() == pieceType))
-			{
-				return square;
-			}
+			return null;
 		}
-		return null;
+		return squares[Bitboards.getFirstIndex(pieces)];
 	}
 
 	/**
@@ -109,26 +279,27 @@ public final class Board
 	public Set<Square> getSquaresWithPiecesOfColor(ChessColor pieceColor)
 	{
 		HashSet<Square> res = new HashSet<Square>();
-		for (Square square : squares)
+		for (long pieces = position.getOccupancy(pieceColor); pieces != 0; pieces &= pieces - 1)
 		{
-			Piece piece = square.getPiece();
-			if ((piece != null) && (piece.getColor() == pieceColor))
-			{
-				res.add(square);
-			}
+			res.add(squares[Bitboards.getFirstIndex(pieces)]);
 		}
 		return res;
 	}
 
 	/**
-	 * Returns a deep copy of this board. All fields are cloned. The cloned fields become part of the returned clone.
+	 * Returns a deep copy of this board. All fields are cloned. The cloned fields become part of the returned clone. Moves made through makeMove
+	 * cannot be unmade on the clone.
 	 */
 	@Override
 	public Board clone()
 	{
 		Board clonedBoard = new Board(false); // create empty board
 
-		squares.forEach(square -> clonedBoard.squares.add(square.clone()));
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			clonedBoard.squares[index].setPiece(squares[index].getPiece());
+		}
+		clonedBoard.position.copyFrom(position);
 
 		return clonedBoard;
 	}
@@ -147,11 +318,11 @@ public final class Board
 	 */
 	public void makeNormalMove(Move move)
 	{
-		Square fromSquare = move.getFrom();
-		Square toSquare = move.getTo();
-		Piece movingPiece = fromSquare.getPiece();
-		fromSquare.clear();
-		toSquare.setPiece(movingPiece);
+		int fromIndex = move.getFrom().getID().getIndex();
+		int toIndex = move.getTo().getID().getIndex();
+		Piece movingPiece = squares[fromIndex].getPiece();
+		movePiece(squares[fromIndex], squares[toIndex]);
+		updateState(fromIndex, toIndex, movingPiece);
 	}
 
 	/**
@@ -162,12 +333,11 @@ public final class Board
 	 */
 	public void makeEnPassantMove(Move move)
 	{
-		int removeCol = move.getTo().getID().getColumn();
-		int removeRow = move.getFrom().getID().getRow();
-		SquareID idToRemoveFrom = new SquareID(removeCol, removeRow);
-		Square squareToRemoveFrom = getSquare(idToRemoveFrom);
-		squareToRemoveFrom.clear();
-		makeNormalMove(move);
+		int fromIndex = move.getFrom().getID().getIndex();
+		int toIndex = move.getTo().getID().getIndex();
+		Piece pawn = squares[fromIndex].getPiece();
+		executeEnPassantMove(fromIndex, toIndex);
+		updateState(fromIndex, toIndex, pawn);
 	}
 
 	/**
@@ -179,27 +349,11 @@ public final class Board
 	 */
 	public void makePawnTradeMove(Move move, PromotionChoice choice)
 	{
-		Square fromSquare = move.getFrom();
-		Square toSquare = move.getTo();
-		ChessColor pawnColor = fromSquare.getPiece().getColor();
-		Piece piece;
-
-		switch (choice)
-		{
-		case KNIGHT:
-			piece = new Knight(pawnColor);
-			break;
-		case BISHOP:
-			piece = new Bishop(pawnColor);
-			break;
-		case ROOK:
-			piece = new Rook(pawnColor);
-			break;
-		default:
-			piece = new Queen(pawnColor);
-		}
-		fromSquare.clear();
-		toSquare.setPiece(piece);
+		int fromIndex = move.getFrom().getID().getIndex();
+		int toIndex = move.getTo().getID().getIndex();
+		Piece pawn = squares[fromIndex].getPiece();
+		executePawnTradeMove(fromIndex, toIndex, choice);
+		updateState(fromIndex, toIndex, pawn);
 	}
 
 	/**
@@ -209,23 +363,169 @@ public final class Board
 	 */
 	public void makeCastlingMove(Move move)
 	{
-		int fromCol = move.getFrom().getID().getColumn();
-		int toCol = move.getTo().getID().getColumn();
-		int row = move.getFrom().getID().getRow();
-		makeNormalMove(move);
+		int fromIndex = move.getFrom().getID().getIndex();
+		int toIndex = move.getTo().getID().getIndex();
+		Piece king = squares[fromIndex].getPiece();
+		executeCastlingMove(fromIndex, toIndex);
+		updateState(fromIndex, toIndex, king);
+	}
 
-		int oldRookCol = toCol < fromCol ? 1 : 8;
-		int futureRookCol = toCol < fromCol ? fromCol - 1 : fromCol + 1;
+	/**
+	 * Executes a move on this board so that it can be taken back later by unmakeMove. Pawns reaching the baseline are traded for a queen.
+	 * 
+	 * @param move the move to be executed
+	 * @see Board#makeMove(Move, PromotionChoice)
+	 */
+	public void makeMove(Move move)
+	{
+		makeMove(move, PromotionChoice.QUEEN);
+	}
 
-		Square oldRookSquare = getSquare(new SquareID(oldRookCol, row));
-		Square futureRookSquare = getSquare(new SquareID(futureRookCol, row));
+	/**
+	 * Executes a move of any kind on this board so that it can be taken back later by unmakeMove. Castling, en passant and pawn trade moves are
+	 * recognized by the move itself. A compact undo record is kept for each move; no part of the board is copied. This method does not check whether
+	 * the move is valid.
+	 * 
+	 * @param move the move to be executed. Its squares must belong to this board.
+	 * @param choice the piece that replaces the pawn if the move is a pawn trade move
+	 */
+	public void makeMove(Move move, PromotionChoice choice)
+	{
+		makeMove(PackedMove.fromMove(move, choice));
+	}
 
-		futureRookSquare.setPiece(oldRookSquare.getPiece());
-		oldRookSquare.clear();
+	/**
+	 * Executes a packed move (see PackedMove) on this board so that it can be taken back later by unmakeMove. The kind of the move is taken from the
+	 * move's flags. Neither this method nor unmakeMove allocate any memory once the undo records have grown to the depth of the search. This method
+	 * does not check whether the move is valid.
+	 * 
+	 * @param move the packed move to be executed
+	 */
+	public void makeMove(int move)
+	{
+		int fromIndex = PackedMove.getFrom(move);
+		int toIndex = PackedMove.getTo(move);
+		Piece movingPiece = squares[fromIndex].getPiece();
+
+		if (PackedMove.isCastling(move))
+		{
+			pushUndoRecord(Board.CASTLING_MOVE, fromIndex, toIndex, movingPiece, null);
+			executeCastlingMove(fromIndex, toIndex);
+		}
+		else if (PackedMove.isEnPassant(move))
+		{
+			Piece capturedPawn = squares[Bitboards.getIndex(Bitboards.getColumn(toIndex), Bitboards.getRow(fromIndex))].getPiece();
+			pushUndoRecord(Board.EN_PASSANT_MOVE, fromIndex, toIndex, movingPiece, capturedPawn);
+			executeEnPassantMove(fromIndex, toIndex);
+		}
+		else if (PackedMove.isPromotion(move))
+		{
+			pushUndoRecord(Board.PAWN_TRADE_MOVE, fromIndex, toIndex, movingPiece, squares[toIndex].getPiece());
+			executePawnTradeMove(fromIndex, toIndex, PackedMove.getPromotionChoice(move));
+		}
+		else
+		{
+			pushUndoRecord(Board.NORMAL_MOVE, fromIndex, toIndex, movingPiece, squares[toIndex].getPiece());
+			movePiece(squares[fromIndex], squares[toIndex]);
+		}
+		updateState(fromIndex, toIndex, movingPiece);
+	}
+
+	/**
+	 * Takes back the latest move executed through makeMove that has not been taken back yet. Afterwards this board is in exactly the state it was in
+	 * before that move was made.
+	 * 
+	 * @throws IllegalStateException if there is no move to be taken back
+	 */
+	public void unmakeMove()
+	{
+		if (undoCount == 0)
+		{
+			throw new IllegalStateException("There is no move to be unmade.");
+		}
+		undoCount--;
+		int undoInfo = undoInfos[undoCount];
+		int enPassantIndex = (undoInfo >>> 18) - 1;
+		int castlingRights = (undoInfo >>> 14) & Position.ALL_CASTLING_RIGHTS;
+		int kind = (undoInfo >>> 12) & 3;
+		int fromIndex = (undoInfo >>> 6) & 63;
+		int toIndex = undoInfo & 63;
+		Piece movingPiece = undoPieces[2 * undoCount];
+		Piece capturedPiece = undoPieces[2 * undoCount + 1];
+		undoPieces[2 * undoCount] = null;
+		undoPieces[2 * undoCount + 1] = null;
+
+		clear(squares[toIndex]);
+		setPiece(squares[fromIndex], movingPiece);
+
+		if (kind == Board.EN_PASSANT_MOVE)
+		{
+			setPiece(squares[Bitboards.getIndex(Bitboards.getColumn(toIndex), Bitboards.getRow(fromIndex))], capturedPiece);
+		}
+		else if (kind == Board.CASTLING_MOVE)
+		{
+			int fromCol = Bitboards.getColumn(fromIndex);
+			int toCol = Bitboards.getColumn(toIndex);
+			int row = Bitboards.getRow(fromIndex);
+			Square oldRookSquare = squares[Bitboards.getIndex(toCol < fromCol ? 1 : 8, row)];
+			Square futureRookSquare = squares[Bitboards.getIndex(toCol < fromCol ? fromCol - 1 : fromCol + 1, row)];
+			movePiece(futureRookSquare, oldRookSquare);
+		}
+		else if (capturedPiece != null)
+		{
+			setPiece(squares[toIndex], capturedPiece);
+		}
+
+		// restoring the state also restores the Zobrist key because every change is XOR-ed into it
+		position.setCastlingRights(castlingRights);
+		position.setEnPassantIndex(enPassantIndex);
+		position.setColorToMove(movingPiece.getColor());
+	}
+
+	/**
+	 * Passes the right to move to the foe without moving a piece (a "null move"), as used by the null-move pruning of a search. The en passant
+	 * square is cleared. The null move has to be taken back by unmakeNullMove before any earlier move is taken back.
+	 */
+	public void makeNullMove()
+	{
+		pushUndoRecord(Board.NORMAL_MOVE, 0, 0, null, null);
+		position.setEnPassantIndex(Position.NO_SQUARE);
+		position.setColorToMove(position.getColorToMove().getOpposite());
+	}
+
+	/**
+	 * Takes back the null move executed latest through makeNullMove.
+	 * 
+	 * @throws IllegalStateException if there is no move to be taken back
+	 */
+	public void unmakeNullMove()
+	{
+		if (undoCount == 0)
+		{
+			throw new IllegalStateException("There is no move to be unmade.");
+		}
+		undoCount--;
+		position.setEnPassantIndex((undoInfos[undoCount] >>> 18) - 1);
+		position.setColorToMove(position.getColorToMove().getOpposite());
 	}
 
 	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
 
+	private void pushUndoRecord(int kind, int fromIndex, int toIndex, Piece movingPiece, Piece capturedPiece)
+	{
+		if (undoCount == undoInfos.length)
+		{
+			undoInfos = Arrays.copyOf(undoInfos, 2 * undoInfos.length);
+			undoPieces = Arrays.copyOf(undoPieces, 2 * undoPieces.length);
+		}
+		int castlingRights = position.getCastlingRights();
+		int enPassantIndex = position.getEnPassantIndex();
+		undoInfos[undoCount] = ((enPassantIndex + 1) << 18) | (castlingRights << 14) | (kind << 12) | (fromIndex << 6) | toIndex;
+		undoPieces[2 * undoCount] = movingPiece;
+		undoPieces[2 * undoCount + 1] = capturedPiece;
+		undoCount++;
+	}
+
 	private void createDefaultSetup()
 	{
 		for (int columnID = 1; columnID <= Board.COLUMN_IDS.length; columnID++)
@@ -266,11 +566,185 @@ public final class Board
 				{
 					piece = null;
 				}
-				Square square = new Square(new SquareID(columnID, rowID));
-				square.setPiece(piece);
-				squares.add(square);
+				if (piece != null)
+				{
+					setPiece(getSquare(new SquareID(columnID, rowID)), piece);
+				}
+			}
+		}
+		position.setCastlingRights(Position.ALL_CASTLING_RIGHTS);
+	}
+
+	/**
+	 * Creates the piece denoted by a FEN character: upper case for white, lower case for black.
+	 */
+	private static Piece createPiece(char character, String fen)
+	{
+		ChessColor color = Character.isUpperCase(character) ? ChessColor.WHITE : ChessColor.BLACK;
+		switch (Board.FEN_PIECE_CHARACTERS.indexOf(Character.toLowerCase(character)))
+		{
+		case 0:
+			return new Pawn(color);
+		case 1:
+			return new Bishop(color);
+		case 2:
+			return new Knight(color);
+		case 3:
+			return new Rook(color);
+		case 4:
+			return new Queen(color);
+		case 5:
+			return new King(color);
+		default:
+			throw new IllegalArgumentException(fen + " is not a valid FEN");
+		}
+	}
+
+	/**
+	 * Moves the pawn of an en passant move and removes the captured pawn.
+	 */
+	private void executeEnPassantMove(int fromIndex, int toIndex)
+	{
+		clear(squares[Bitboards.getIndex(Bitboards.getColumn(toIndex), Bitboards.getRow(fromIndex))]);
+		movePiece(squares[fromIndex], squares[toIndex]);
+	}
+
+	/**
+	 * Removes the pawn of a pawn trade move and places the chosen piece onto the target square.
+	 */
+	private void executePawnTradeMove(int fromIndex, int toIndex, PromotionChoice choice)
+	{
+		ChessColor pawnColor = squares[fromIndex].getPiece().getColor();
+		clear(squares[fromIndex]);
+		setPiece(squares[toIndex], Board.PROMOTION_PIECES[pawnColor.ordinal()][choice.ordinal()]);
+	}
+
+	/**
+	 * Moves the king and the rook of a castling move.
+	 */
+	private void executeCastlingMove(int fromIndex, int toIndex)
+	{
+		int fromCol = Bitboards.getColumn(fromIndex);
+		int toCol = Bitboards.getColumn(toIndex);
+		int row = Bitboards.getRow(fromIndex);
+		movePiece(squares[fromIndex], squares[toIndex]);
+
+		int oldRookCol = toCol < fromCol ? 1 : 8;
+		int futureRookCol = toCol < fromCol ? fromCol - 1 : fromCol + 1;
+		movePiece(squares[Bitboards.getIndex(oldRookCol, row)], squares[Bitboards.getIndex(futureRookCol, row)]);
+	}
+
+	/**
+	 * Moves the piece located on one square to another square. A piece located on the target square is removed.
+	 */
+	private void movePiece(Square fromSquare, Square toSquare)
+	{
+		Piece movingPiece = fromSquare.getPiece();
+		clear(fromSquare);
+		setPiece(toSquare, movingPiece);
+	}
+
+	/**
+	 * Updates the color to move, the castling rights and the en passant target square after a move has been executed.
+	 */
+	private void updateState(int fromIndex, int toIndex, Piece movingPiece)
+	{
+		ChessColor moverColor = movingPiece.getColor();
+
+		position.setCastlingRights(position.getCastlingRights() & Board.KEPT_CASTLING_RIGHTS[fromIndex] & Board.KEPT_CASTLING_RIGHTS[toIndex]);
+
+		// the en passant target square is only set if a foe's pawn could make use of it
+		int enPassantIndex = Position.NO_SQUARE;
+		if ((movingPiece.getType() == Type.PAWN) && (Math.abs(toIndex - fromIndex) == 2 * Board.COLUMN_IDS.length))
+		{
+			int passedIndex = (fromIndex + toIndex) / 2;
+			if ((Bitboards.getPawnAttacks(moverColor, passedIndex) & position.getPieces(Type.PAWN, moverColor.getOpposite())) != 0)
+			{
+				enPassantIndex = passedIndex;
+			}
+		}
+		position.setEnPassantIndex(enPassantIndex);
+		position.setColorToMove(moverColor.getOpposite());
+	}
+
+	/**
+	 * Places a piece onto one of this board's squares. Any piece located on the square before is removed. Passing null clears the square. The
+	 * bitboard representation is updated accordingly. Besides being used by the moves, this is how positions are set up.
+	 */
+	void setPiece(Square square, Piece piece)
+	{
+		int index = square.getID().getIndex();
+		position.remove(index);
+		if (piece != null)
+		{
+			position.put(index, Position.getPieceCode(piece));
+		}
+		square.setPiece(piece);
+	}
+
+	/**
+	 * Removes the piece located on one of this board's squares. The bitboard representation is updated accordingly.
+	 */
+	private void clear(Square square)
+	{
+		position.remove(square.getID().getIndex());
+		square.clear();
+	}
+
+	/**
+	 * Returns the position on this board in Forsyth-Edwards Notation (FEN). The move counters are always "0 1" because a board does not count
+	 * moves.
+	 * 
+	 * @return the position in FEN
+	 */
+	public String toFen()
+	{
+		StringBuilder fen = new StringBuilder();
+		for (int row = Board.ROW_IDS.length; row >= 1; row--)
+		{
+			int emptyCount = 0;
+			for (int col = 1; col <= Board.COLUMN_IDS.length; col++)
+			{
+				Piece piece = squares[Bitboards.getIndex(col, row)].getPiece();
+				if (piece == null)
+				{
+					emptyCount++;
+					continue;
+				}
+				if (emptyCount > 0)
+				{
+					fen.append(emptyCount);
+					emptyCount = 0;
+				}
+				char character = Board.FEN_PIECE_CHARACTERS.charAt(piece.getType().ordinal());
+				fen.append(piece.getColor() == ChessColor.WHITE ? Character.toUpperCase(character) : character);
+			}
+			if (emptyCount > 0)
+			{
+				fen.append(emptyCount);
+			}
+			if (row > 1)
+			{
+				fen.append('/');
 			}
 		}
+
+		fen.append(position.getColorToMove() == ChessColor.WHITE ? " w " : " b ");
+		int castlingRights = position.getCastlingRights();
+		for (int i = 0; i < 4; i++)
+		{
+			if ((castlingRights & (1 << i)) != 0)
+			{
+				fen.append("KQkq".charAt(i));
+			}
+		}
+		if (castlingRights == 0)
+		{
+			fen.append('-');
+		}
+		int enPassantIndex = position.getEnPassantIndex();
+		fen.append(' ').append(enPassantIndex == Position.NO_SQUARE ? "-" : SquareID.fromIndex(enPassantIndex).toString());
+		return fen.append(" 0 1").toString();
 	}
 
 	@Override
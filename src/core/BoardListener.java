@@ -7,4 +7,9 @@ import core.events.BoardEvent;
 public interface BoardListener extends EventListener
 {
 	public PromotionChoice pawnReachedBaseline(BoardEvent e);
+
+	/**
+	 * Is called after a move has been made on the board of the game. It may be called by any thread, for example the thread of a computer player.
+	 */
+	public void noticeMoveHasBeenMade();
 }
@@ -27,7 +27,7 @@ public final class Game
 		board = new Board(true);
 		gameCourse = new GameCourse();
 		chessClock = new ChessClock(timeWhite, timeBlack);
-		gameCalc = new GameCalc(board, gameCourse);
+		gameCalc = new GameCalc(board);
 	}
 
 	public void start()
@@ -108,6 +108,18 @@ public final class Game
 	}
 
 	public void update(Player player, Move move)
+	{
+		update(player, move, null);
+	}
+
+	/**
+	 * Makes a move of a player on the board and pushes the clock.
+	 * 
+	 * @param player the player who makes the move
+	 * @param move the move
+	 * @param promotionChoice the piece a pawn is promoted to. If it is null and the move is a promotion, the board listener is asked for it.
+	 */
+	public synchronized void update(Player player, Move move, PromotionChoice promotionChoice)
 	{
 		if (player.getColor() != colorToMove)
 		{
@@ -123,8 +135,12 @@ public final class Game
 		}
 		else if (GameCalc.isPromotion(move))
 		{
-			BoardEvent e = new BoardEvent(this, move.getTo().getColor(), move.getFrom().getPiece().getColor(), pawnTradeChoice);
-			PromotionChoice choice = fireBoardEvent(e);
+			PromotionChoice choice = promotionChoice;
+			if (choice == null)
+			{
+				BoardEvent e = new BoardEvent(this, move.getTo().getColor(), move.getFrom().getPiece().getColor(), pawnTradeChoice);
+				choice = fireBoardEvent(e);
+			}
 			board.makePawnTradeMove(move, choice);
 		}
 		else if (GameCalc.isEnPassant(move))
@@ -136,6 +152,10 @@ public final class Game
 			board.makeNormalMove(move);
 		}
 		chessClock.push(player);
+		if (listener != null)
+		{
+			listener.noticeMoveHasBeenMade();
+		}
 	}
 
 	// protected because not everyone may construct choice answers
@@ -4,36 +4,89 @@ import java.util.HashSet;
 import java.util.Set;
 
 import core.Piece.Type;
-import core.pieces.King;
 
+/**
+ * Calculates the consequences of the rules of chess for a board, for example the squares a piece can move to.
+ * 
+ * Legal moves are generated without trying them out: the pieces giving check and the pieces pinned to their king are determined once per position
+ * (see getCheckers and getPinnedPieces). A pinned piece may only move along its pin, and in check only the moves that capture the single checking
+ * piece or block its line are legal. The analysis is cached until the position of the board changes.
+ */
 public final class GameCalc
 {
+	private static final PromotionChoice[] PROMOTION_CHOICES = PromotionChoice.values();
+
 	private final Board board;
-	private final GameCourse gameCourse;
 
-	public GameCalc(Board board, GameCourse gameCourse)
+	/**
+	 * The Zobrist key of the position the cached analysis belongs to.
+	 */
+	private long analysedKey;
+	private boolean hasAnalysis;
+	private int kingIndex;
+	private long checkers;
+	private long pinnedPieces;
+
+	/**
+	 * Constructs a calculator for a board. Everything the rules depend on (including the castling rights and the en passant target square) is part
+	 * of the board's position, so the course of the game is not needed.
+	 * 
+	 * @param board the board
+	 */
+	public GameCalc(Board board)
 	{
 		this.board = board;
-		this.gameCourse = gameCourse;
 	}
 
 	/**
-	 * Checks if a player is checkmate.
+	 * Checks if a player is checkmate: its king is in check and it has no legal move at all, which includes capturing the checking piece and
+	 * blocking its line.
 	 * 
 	 * @param color the color of the player to be checked for checkmate
-	 * @return True if the player with the given color is checkmate, otherwise false
+	 * @return True if the player with the given color is checkmate, otherwise false. The player who is not to move is never checkmate.
 	 */
 	public boolean isCheckmate(ChessColor color)
 	{
-		Square kingSquare = board.getSquare(Type.KING, color);
-		boolean kingCannotMove = getTargetSquares(kingSquare).isEmpty();
-		boolean kingIsAttacked = isAttacked(kingSquare);
+		return (color == board.getPosition().getColorToMove()) && isInCheck() && !hasLegalMove();
+	}
 
-		return (kingCannotMove && kingIsAttacked);
+	/**
+	 * Checks if the color to move has any legal move. It stops at the first piece with a legal target and tries the king first, because in check
+	 * the king is the most likely piece to move, so it is much cheaper than generating the moves.
+	 * 
+	 * @return True if the color to move has a legal move, otherwise false.
+	 */
+	public boolean hasLegalMove()
+	{
+		analysePosition();
+		Position position = board.getPosition();
+		ChessColor color = position.getColorToMove();
+		long pieces = position.getOccupancy(color);
+		if (kingIndex != Position.NO_SQUARE)
+		{
+			if (getLegalKingTargets(kingIndex, color, false) != 0)
+			{
+				return true;
+			}
+			if ((checkers & (checkers - 1)) != 0)
+			{
+				return false; // double check: only the king can move
+			}
+			pieces &= ~Bitboards.getMask(kingIndex);
+		}
+		for (; pieces != 0; pieces &= pieces - 1)
+		{
+			if (getLegalTargets(Bitboards.getFirstIndex(pieces), false) != 0)
+			{
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
-	 * Checks if a given square is attacked by a foe.
+	 * Checks if a given square is attacked by a foe. A square is attacked if a foe's piece could capture on it, no matter whether the foe's king would
+	 * be safe afterwards.
 	 * 
 	 * @param square the square
 	 * @return True if the square is attacked by a foe, otherwise false.
@@ -44,26 +97,79 @@ public final class GameCalc
 		{
 			return false;
 		}
+		return isAttackedBy(square.getID().getIndex(), square.getPiece().getColor().getOpposite());
+	}
 
-		Set<Square> squaresWithFoes = board.getSquaresWithPiecesOfColor(square.getPiece().getColor().getOpposite());
+	/**
+	 * Checks if a square is attacked by any piece of a given color. The safety of the attacking pieces' king is not taken into account.
+	 * 
+	 * @param index the index of the square (see SquareID.getIndex)
+	 * @param attackerColor the color of the attacking pieces
+	 * @return True if a piece of the given color attacks the square, otherwise false.
+	 */
+	public boolean isAttackedBy(int index, ChessColor attackerColor)
+	{
+		return getAttackers(index, attackerColor, board.getPosition().getOccupancy()) != 0;
+	}
 
-		for (Square squareWithFoe : squaresWithFoes)
-		{
-			// if the square contains our king, the opponent's king's safety does not have to be checked while looking for target squares
-			Set<Square> targetSquares = (square.getPiece().getType() == Type.KING) ? getTargetSquaresNoCheck(squareWithFoe)
-					: getTargetSquares(squareWithFoe);
+	/**
+	 * Returns the pieces of a given color that attack a square if the given squares are occupied. The safety of the attacking pieces' king is not
+	 * taken into account.
+	 * 
+	 * @param index the index of the square
+	 * @param attackerColor the color of the attacking pieces
+	 * @param occupied the squares that block the rays of rooks, bishops and queens
+	 * @return the squares of the attacking pieces
+	 */
+	public long getAttackers(int index, ChessColor attackerColor, long occupied)
+	{
+		Position position = board.getPosition();
+		long queens = position.getPieces(Type.QUEEN, attackerColor);
 
-			if (targetSquares.contains(square))
-			{
-				return true;
-			}
+		long attackers = Bitboards.getPawnAttacks(attackerColor.getOpposite(), index) & position.getPieces(Type.PAWN, attackerColor);
+		attackers |= Bitboards.getKnightAttacks(index) & position.getPieces(Type.KNIGHT, attackerColor);
+		attackers |= Bitboards.getKingAttacks(index) & position.getPieces(Type.KING, attackerColor);
+		attackers |= MagicAttacks.getRookAttacks(index, occupied) & (position.getPieces(Type.ROOK, attackerColor) | queens);
+		attackers |= MagicAttacks.getBishopAttacks(index, occupied) & (position.getPieces(Type.BISHOP, attackerColor) | queens);
+		return attackers;
+	}
 
-		}
-		return false;
+	/**
+	 * Returns the pieces that give check to the king of the color to move.
+	 * 
+	 * @return the squares of the checking pieces or 0 if the king is not in check
+	 */
+	public long getCheckers()
+	{
+		analysePosition();
+		return checkers;
+	}
+
+	/**
+	 * Checks if the king of the color to move is in check.
+	 * 
+	 * @return True if the king of the color to move is in check, otherwise false.
+	 */
+	public boolean isInCheck()
+	{
+		return getCheckers() != 0;
+	}
+
+	/**
+	 * Returns the pieces of the color to move that are pinned to their king, that is the pieces that would expose their king to a foe's rook,
+	 * bishop or queen if they left the line between the king and that foe.
+	 * 
+	 * @return the squares of the pinned pieces
+	 */
+	public long getPinnedPieces()
+	{
+		analysePosition();
+		return pinnedPieces;
 	}
 
 	/**
-	 * Checks if a given square would be attacked if a piece on a given square moved to another given square.
+	 * Checks if a given square would be attacked if a piece on a given square moved to another given square. The move is made on the board and taken
+	 * back before this method returns.
 	 * 
 	 * @param fromSquareID the Square-ID of the square from which the piece moves away
 	 * @param toSquareID the Square-ID of the square the piece moves to
@@ -72,17 +178,17 @@ public final class GameCalc
 	 */
 	public boolean wouldBeAttacked(SquareID fromSquareID, SquareID toSquareID, SquareID addressedSquareID)
 	{
-		Board simulationBoard = board.clone();
-		GameCourse clonedGameCourse = gameCourse.clone();
-		GameCalc simulationGameCalculator = new GameCalc(simulationBoard, clonedGameCourse);
-
-		Square equivalentFromSquare = simulationBoard.getSquare(fromSquareID);
-		Square equivalentToSquare = simulationBoard.getSquare(toSquareID);
-		Move simulatedMove = new Move(equivalentFromSquare, equivalentToSquare);
-		simulationBoard.makeNormalMove(simulatedMove);
-		Square equivalentAddressedSquare = simulationBoard.getSquare(addressedSquareID);
-
-		return simulationGameCalculator.isAttacked(equivalentAddressedSquare);
+		// the move is simulated on the board itself and taken back afterwards, so neither the board nor the game course has to be copied
+		Move simulatedMove = new Move(board.getSquare(fromSquareID), board.getSquare(toSquareID));
+		board.makeMove(simulatedMove);
+		try
+		{
+			return isAttacked(board.getSquare(addressedSquareID));
+		}
+		finally
+		{
+			board.unmakeMove();
+		}
 	}
 
 	/**
@@ -113,12 +219,190 @@ public final class GameCalc
 	}
 
 	/**
-	 * Returns the squares the piece on a given square could move to. The safety of the friendly king is taken into account.
+	 * Returns the squares the piece on a given square could move to. The safety of the friendly king is taken into account. Only the pieces of the
+	 * color to move can move: unlike getTargetSquaresBySimulation, the method returns no squares for a piece of the other color.
 	 * 
-	 * @param square The possible target squares for the piece on this square will be calculated. *
-	 * @return the squares the piece on the given square could move to
+	 * @param square The possible target squares for the piece on this square will be calculated.
+	 * @return the squares the piece on the given square could move to, which are none if its piece is not of the color to move
 	 */
 	public Set<Square> getTargetSquares(Square square)
+	{
+		return getSquares(getLegalTargets(square.getID().getIndex()));
+	}
+
+	/**
+	 * Returns the squares the piece on a given square could legally move to. Only the pieces of the color to move can move. No move is tried out on
+	 * the board.
+	 * 
+	 * @param index the index of the piece's square
+	 * @return the squares the piece could move to or 0 if the square is empty or its piece is not of the color to move
+	 */
+	public long getLegalTargets(int index)
+	{
+		return getLegalTargets(index, false);
+	}
+
+	/**
+	 * Fills a move list with the legal moves of the color to move. Every pawn trade move is added once per PromotionChoice. No memory is allocated.
+	 * 
+	 * @param moves the list to be filled. It is cleared first.
+	 * @return the number of legal moves
+	 */
+	public int generateMoves(MoveList moves)
+	{
+		return generateMoves(moves, false);
+	}
+
+	/**
+	 * Fills a move list with the legal captures of the color to move (including en passant) and its legal pawn trade moves, for example for a
+	 * quiescence search. Quiet moves are not generated at all: the target squares of each piece are restricted to the foe's pieces before their
+	 * legality is checked. Pawn trade moves are only added with PromotionChoice.QUEEN. No memory is allocated.
+	 * 
+	 * @param moves the list to be filled. It is cleared first.
+	 * @return the number of legal captures and pawn trade moves
+	 */
+	public int generateCaptures(MoveList moves)
+	{
+		return generateMoves(moves, true);
+	}
+
+	/**
+	 * Returns the squares the piece on a given square could legally move to, optionally only the squares of captures and pawn trade moves.
+	 */
+	private long getLegalTargets(int index, boolean capturesOnly)
+	{
+		Position position = board.getPosition();
+		int pieceCode = position.getPieceCode(index);
+		if ((pieceCode == Position.EMPTY) || (Position.getColor(pieceCode) != position.getColorToMove()))
+		{
+			return 0;
+		}
+		analysePosition();
+
+		ChessColor color = Position.getColor(pieceCode);
+		Type type = Position.getType(pieceCode);
+		long ownPieces = position.getOccupancy(color);
+		long occupied = position.getOccupancy();
+
+		if (type == Type.KING)
+		{
+			return getLegalKingTargets(index, color, capturesOnly);
+		}
+		if ((checkers & (checkers - 1)) != 0)
+		{
+			return 0; // double check: only the king can move
+		}
+
+		long allowedTargets = capturesOnly ? position.getOccupancy(color.getOpposite()) : ~ownPieces;
+		long targets;
+		switch (type)
+		{
+		case PAWN:
+			targets = getPawnTargets(index, color, capturesOnly);
+			break;
+		case KNIGHT:
+			targets = Bitboards.getKnightAttacks(index) & allowedTargets;
+			break;
+		case BISHOP:
+			targets = MagicAttacks.getBishopAttacks(index, occupied) & allowedTargets;
+			break;
+		case ROOK:
+			targets = MagicAttacks.getRookAttacks(index, occupied) & allowedTargets;
+			break;
+		default:
+			targets = MagicAttacks.getQueenAttacks(index, occupied) & allowedTargets;
+		}
+
+		if (kingIndex == Position.NO_SQUARE)
+		{
+			return targets;
+		}
+
+		int enPassantIndex = position.getEnPassantIndex();
+		long enPassantTarget = ((type == Type.PAWN) && (enPassantIndex != Position.NO_SQUARE)) ? targets & Bitboards.getMask(enPassantIndex) : 0;
+
+		if (checkers != 0)
+		{
+			// the check has to be evaded by capturing the checking piece or by blocking its line
+			long evasions = checkers | Bitboards.getBetween(kingIndex, Bitboards.getFirstIndex(checkers));
+			if ((enPassantTarget != 0) && (checkers == Bitboards.getMask(GameCalc.getEnPassantVictimIndex(enPassantIndex, color))))
+			{
+				evasions |= enPassantTarget; // the checking pawn can be captured en passant
+			}
+			targets &= evasions;
+		}
+		if ((pinnedPieces & Bitboards.getMask(index)) != 0)
+		{
+			targets &= Bitboards.getLine(kingIndex, index);
+		}
+		if (((targets & enPassantTarget) != 0) && !isEnPassantSafe(index, enPassantIndex, color))
+		{
+			targets &= ~enPassantTarget;
+		}
+		return targets;
+	}
+
+	/**
+	 * Fills a move list with the legal moves or only the legal captures and pawn trade moves of the color to move.
+	 */
+	private int generateMoves(MoveList moves, boolean capturesOnly)
+	{
+		moves.clear();
+		Position position = board.getPosition();
+		ChessColor color = position.getColorToMove();
+		long foes = position.getOccupancy(color.getOpposite());
+		int enPassantIndex = position.getEnPassantIndex();
+		int promotionRow = GameCalc.getEquivalent(8, color);
+
+		for (long pieces = position.getOccupancy(color); pieces != 0; pieces &= pieces - 1)
+		{
+			int fromIndex = Bitboards.getFirstIndex(pieces);
+			Type type = Position.getType(position.getPieceCode(fromIndex));
+			for (long targets = getLegalTargets(fromIndex, capturesOnly); targets != 0; targets &= targets - 1)
+			{
+				int toIndex = Bitboards.getFirstIndex(targets);
+				int flags = ((foes & Bitboards.getMask(toIndex)) != 0) ? PackedMove.CAPTURE : 0;
+				if (type == Type.PAWN)
+				{
+					if (toIndex == enPassantIndex)
+					{
+						moves.add(PackedMove.create(fromIndex, toIndex, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+					}
+					else if (Bitboards.getRow(toIndex) == promotionRow)
+					{
+						// the queen first because it is almost always the best choice
+						for (int i = GameCalc.PROMOTION_CHOICES.length - 1; i >= (capturesOnly ? GameCalc.PROMOTION_CHOICES.length - 1 : 0); i--)
+						{
+							moves.add(PackedMove.create(fromIndex, toIndex, flags, GameCalc.PROMOTION_CHOICES[i]));
+						}
+					}
+					else
+					{
+						moves.add(PackedMove.create(fromIndex, toIndex, flags));
+					}
+				}
+				else if ((type == Type.KING) && (Math.abs(toIndex - fromIndex) == 2))
+				{
+					moves.add(PackedMove.create(fromIndex, toIndex, PackedMove.CASTLING));
+				}
+				else
+				{
+					moves.add(PackedMove.create(fromIndex, toIndex, flags));
+				}
+			}
+		}
+		return moves.size();
+	}
+
+	/**
+	 * Returns the squares the piece on a given square could move to. The safety of the friendly king is taken into account by simulating each move
+	 * on the board. This is the original implementation of getTargetSquares. It is much slower and only kept as a reference to verify the legal
+	 * move generation against.
+	 * 
+	 * @param square The possible target squares for the piece on this square will be calculated.
+	 * @return the squares the piece on the given square could move to
+	 */
+	public Set<Square> getTargetSquaresBySimulation(Square square)
 	{
 		Set<Square> targetSquaresNoCheck = getTargetSquaresNoCheck(square);
 		HashSet<Square> targetSquares = new HashSet<Square>();
@@ -172,49 +456,6 @@ public final class GameCalc
 		return targetSquares;
 	}
 
-	/**
-	 * Checks if a given king has moved in the game.
-	 * 
-	 * @param king the king
-	 * @return True if the given king has moved in the game, otherwise false.
-	 */
-	public boolean kingHasMoved(King king)
-	{
-		for (int i = 0; i < gameCourse.getMoveCount(); i++)
-		{
-			if (gameCourse.getMoveInfo(i).getFromPiece().equals(king))
-			{
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/**
-	 * Checks if the rook of a given color and a given side of the board has moved in the game.
-	 * 
-	 * @param rookColor the color of the rook
-	 * @param queenside True for the rook on queen side. False for the rook on the king side.
-	 * @return True if the rook of the given color and the given side of the board has moved in the game, otherwise false.
-	 */
-	public boolean rookHasMoved(ChessColor rookColor, boolean queenside)
-	{
-		for (int i = 0; i < gameCourse.getMoveCount(); i++)
-		{
-			MoveInfo moveInfo = gameCourse.getMoveInfo(i);
-			Piece movingPiece = moveInfo.getFromPiece();
-			if (movingPiece.getType() == Type.KING && movingPiece.getColor() == rookColor)
-			{
-				int fromCol = moveInfo.getFromSquareID().getColumn();
-				if ((queenside && (fromCol == 1)) || (!queenside && (fromCol == 8)))
-				{
-					return true;
-				}
-			}
-		}
-		return false;
-	}
-
 	/**
 	 * Checks if castling is safe on a given side for a king. It is not checked whether the squares between king and rook are empty.
 	 * 
@@ -290,7 +531,8 @@ public final class GameCalc
 	}
 
 	/**
-	 * Checks if castling is possible for a given king on a given side.
+	 * Checks if castling is possible for a given king on a given side. The king must still have the right to castle on that side (see
+	 * Position.getCastlingRights).
 	 * 
 	 * @param kingSquare the king's square
 	 * @param queenside True for checking the possibility of castling queenside. False for checking the possibility of castling kingside.
@@ -298,48 +540,23 @@ public final class GameCalc
 	 */
 	public boolean isCastlingPossible(Square kingSquare, boolean queenside)
 	{
-		King king = (King) kingSquare.getPiece();
-		return !kingHasMoved(king) && !rookHasMoved(king.getColor(), queenside) && isSpaceForCastling(kingSquare, queenside) && isCastlingSafe(
-				kingSquare, queenside);
+		ChessColor color = kingSquare.getPiece().getColor();
+		return board.getPosition().hasCastlingRight(color, queenside) && isSpaceForCastling(kingSquare, queenside) && isCastlingSafe(kingSquare,
+				queenside);
 	}
 
+	/**
+	 * Returns the squares the rook on a given square could move to, not taking into account the friendly king's safety. The attacked squares are
+	 * looked up in the precomputed tables of MagicAttacks.
+	 * 
+	 * @param square the rook's square
+	 * @return the squares the rook could move to
+	 */
 	public Set<Square> getRookTargetSquaresNoCheck(Square square)
 	{
-		HashSet<Square> targetSquaresNoCheck = new HashSet<Square>();
-		SquareID squareID = square.getID();
-		int col = squareID.getColumn();
-		int row = squareID.getRow();
-		int potCol, potRow;
-
-		for (int j = -1; j < 2; j += 2)
-		{
-			for (int k = -1; k < 2; k += 2)
-			{
-				for (int i = 1; i < 8; i++)
-				{
-					potCol = col + i * (j - k) / 2;
-					potRow = row + i * (k + j) / 2;
-					if (GameCalc.isInsideBoard(potCol, potRow))
-					{
-						SquareID potSquareID = new SquareID(potCol, potRow);
-						Square potSquare = board.getSquare(potSquareID);
-						if (potSquare.getPiece() == null)
-						{
-							targetSquaresNoCheck.add(potSquare);
-						}
-						else
-						{
-							if (square.getPiece().getColor() != potSquare.getPiece().getColor())
-							{
-								targetSquaresNoCheck.add(potSquare);
-							}
-							break;
-						}
-					}
-				}
-			}
-		}
-		return targetSquaresNoCheck;
+		Position position = board.getPosition();
+		long attacks = MagicAttacks.getRookAttacks(square.getID().getIndex(), position.getOccupancy());
+		return getSquares(attacks & ~position.getOccupancy(square.getPiece().getColor()));
 	}
 
 	public Set<Square> getKnightTargetSquaresNoCheck(Square square)
@@ -377,94 +594,32 @@ public final class GameCalc
 		return targetSquaresNoCheck;
 	}
 
+	/**
+	 * Returns the squares the bishop on a given square could move to, not taking into account the friendly king's safety. The attacked squares are
+	 * looked up in the precomputed tables of MagicAttacks.
+	 * 
+	 * @param square the bishop's square
+	 * @return the squares the bishop could move to
+	 */
 	public Set<Square> getBishopTargetSquaresNoCheck(Square square)
 	{
-		HashSet<Square> targetSquaresNoCheck = new HashSet<Square>();
-		SquareID squareID = square.getID();
-		int col = squareID.getColumn();
-		int row = squareID.getRow();
-		int potCol, potRow;
-
-		for (int j = -1; j < 2; j += 2)
-		{
-			for (int k = -1; k < 2; k += 2)
-			{
-				for (int i = 1; i < 8; i++)
-				{
-					potCol = col + i * j;
-					potRow = row + i * k;
-					if (GameCalc.isInsideBoard(potCol, potRow))
-					{
-						SquareID potSquareID = new SquareID(potCol, potRow);
-						Square potSquare = board.getSquare(potSquareID);
-						if (potSquare.getPiece() == null)
-						{
-							targetSquaresNoCheck.add(potSquare);
-						}
-						else
-						{
-							if (square.getPiece().getColor() != potSquare.getPiece().getColor())
-							{
-								targetSquaresNoCheck.add(potSquare);
-							}
-							break;
-						}
-					}
-				}
-			}
-		}
-		return targetSquaresNoCheck;
+		Position position = board.getPosition();
+		long attacks = MagicAttacks.getBishopAttacks(square.getID().getIndex(), position.getOccupancy());
+		return getSquares(attacks & ~position.getOccupancy(square.getPiece().getColor()));
 	}
 
+	/**
+	 * Returns the squares the queen on a given square could move to, not taking into account the friendly king's safety. The attacked squares are
+	 * looked up in the precomputed tables of MagicAttacks.
+	 * 
+	 * @param square the queen's square
+	 * @return the squares the queen could move to
+	 */
 	public Set<Square> getQueenTargetSquaresNoCheck(Square square)
 	{
-		HashSet<Square> targetSquaresNoCheck = new HashSet<Square>();
-		SquareID squareID = square.getID();
-		int col = squareID.getColumn();
-		int row = squareID.getRow();
-		int[] potCol = new int[2];
-		int[] potRow = new int[2];
-		boolean[] stopSearch = new boolean[2];
-
-		for (int j = -1; j < 2; j += 2)
-		{
-			for (int k = -1; k < 2; k += 2)
-			{
-				stopSearch[0] = false;
-				stopSearch[1] = false;
-				for (int i = 1; i < 8; i++)
-				{
-					potCol[0] = col + i * (j - k) / 2;
-					potRow[0] = row + i * (k + j) / 2;
-					potCol[1] = col + i * j;
-					potRow[1] = row + i * k;
-					for (int v = 0; v < 2; v++)
-					{
-						if (GameCalc.isInsideBoard(potCol[v], potRow[v]))
-						{
-							SquareID potSquareID = new SquareID(potCol[v], potRow[v]);
-							Square potSquare = board.getSquare(potSquareID);
-							if (!stopSearch[v])
-							{
-								if (potSquare.getPiece() == null)
-								{
-									targetSquaresNoCheck.add(potSquare);
-								}
-								else
-								{
-									if (square.getPiece().getColor() != potSquare.getPiece().getColor())
-									{
-										targetSquaresNoCheck.add(potSquare);
-									}
-									stopSearch[v] = true;
-								}
-							}
-						}
-					}
-				}
-			}
-		}
-		return targetSquaresNoCheck;
+		Position position = board.getPosition();
+		long attacks = MagicAttacks.getQueenAttacks(square.getID().getIndex(), position.getOccupancy());
+		return getSquares(attacks & ~position.getOccupancy(square.getPiece().getColor()));
 	}
 
 	public Set<Square> getKingTargetSquaresNoCheck(Square square)
@@ -564,30 +719,174 @@ public final class GameCalc
 			}
 
 			// is "en passant" possible?
-			if (row == GameCalc.getEquivalent(5, square.getPiece().getColor()))
+			int enPassantIndex = board.getPosition().getEnPassantIndex();
+			if ((enPassantIndex != Position.NO_SQUARE) && (board.getPosition().getColorToMove() == square.getPiece().getColor())
+					&& ((Bitboards.getPawnAttacks(square.getPiece().getColor(), squareID.getIndex()) & Bitboards.getMask(enPassantIndex)) != 0))
+			{
+				targetSquaresNoCheck.add(board.getSquare(enPassantIndex));
+			}
+		}
+		return targetSquaresNoCheck;
+	}
+
+	/**
+	 * Determines the king of the color to move, the pieces giving check to it and the pieces pinned to it unless this has been done for the current
+	 * position already.
+	 */
+	private void analysePosition()
+	{
+		Position position = board.getPosition();
+		if (hasAnalysis && (analysedKey == position.getKey()))
+		{
+			return;
+		}
+		ChessColor color = position.getColorToMove();
+		ChessColor foeColor = color.getOpposite();
+		long kings = position.getPieces(Type.KING, color);
+		checkers = 0;
+		pinnedPieces = 0;
+		kingIndex = (kings == 0) ? Position.NO_SQUARE : Bitboards.getFirstIndex(kings);
+
+		if (kingIndex != Position.NO_SQUARE)
+		{
+			long occupied = position.getOccupancy();
+			checkers = getAttackers(kingIndex, foeColor, occupied);
+
+			// foes' rooks, bishops and queens that would attack the king if the friendly pieces were transparent
+			long foes = position.getOccupancy(foeColor);
+			long foeQueens = position.getPieces(Type.QUEEN, foeColor);
+			long snipers = (MagicAttacks.getRookAttacks(kingIndex, foes) & (position.getPieces(Type.ROOK, foeColor) | foeQueens))
+					| (MagicAttacks.getBishopAttacks(kingIndex, foes) & (position.getPieces(Type.BISHOP, foeColor) | foeQueens));
+			for (; snipers != 0; snipers &= snipers - 1)
 			{
-				MoveInfo lastMoveInfo = gameCourse.getLastMoveInfo();
-				if (lastMoveInfo != null)
+				long blockers = Bitboards.getBetween(kingIndex, Bitboards.getFirstIndex(snipers)) & occupied;
+				if ((blockers != 0) && ((blockers & (blockers - 1)) == 0) && ((blockers & position.getOccupancy(color)) != 0))
 				{
-					int foeFromRowE = lastMoveInfo.getFromSquareID().getRow();
-					int foeToRowE = lastMoveInfo.getToSquareID().getRow();
-					if ((foeFromRowE == GameCalc.getEquivalent(7, square.getPiece().getColor())) && (foeToRowE == GameCalc.getEquivalent(5, square
-							.getPiece().getColor())))
-					{
-						int foeColumn = lastMoveInfo.getToSquareID().getColumn();
-						if ((foeColumn == col + 1) || (foeColumn == col - 1))
-						{
-							SquareID squareBehindFoe = new SquareID(foeColumn, GameCalc.getEquivalent(6, square.getPiece().getColor()));
-							if (board.getSquare(squareBehindFoe).isEmpty())
-							{
-								targetSquaresNoCheck.add(board.getSquare(squareBehindFoe));
-							}
-						}
-					}
+					pinnedPieces |= blockers;
 				}
 			}
 		}
-		return targetSquaresNoCheck;
+		analysedKey = position.getKey();
+		hasAnalysis = true;
+	}
+
+	/**
+	 * Returns the squares a pawn could move to, not taking into account the friendly king's safety.
+	 */
+	private long getPawnTargets(int index, ChessColor color, boolean capturesOnly)
+	{
+		Position position = board.getPosition();
+		long empty = ~position.getOccupancy();
+		long targets = Bitboards.getPawnAttacks(color, index) & position.getOccupancy(color.getOpposite());
+
+		int enPassantIndex = position.getEnPassantIndex();
+		if (enPassantIndex != Position.NO_SQUARE)
+		{
+			targets |= Bitboards.getPawnAttacks(color, index) & Bitboards.getMask(enPassantIndex);
+		}
+
+		int forward = (color == ChessColor.WHITE) ? Board.COLUMN_IDS.length : -Board.COLUMN_IDS.length;
+		int oneAheadIndex = index + forward;
+		if (capturesOnly && (Bitboards.getRow(index) != GameCalc.getEquivalent(7, color)))
+		{
+			return targets; // only a push to the baseline is a pawn trade move
+		}
+		if ((oneAheadIndex >= 0) && (oneAheadIndex < Board.SQUARE_COUNT) && ((empty & Bitboards.getMask(oneAheadIndex)) != 0))
+		{
+			targets |= Bitboards.getMask(oneAheadIndex);
+			int twoAheadIndex = oneAheadIndex + forward;
+			if ((Bitboards.getRow(index) == GameCalc.getEquivalent(2, color)) && ((empty & Bitboards.getMask(twoAheadIndex)) != 0))
+			{
+				targets |= Bitboards.getMask(twoAheadIndex);
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * Returns the squares a king could legally move to, including the target squares of castling.
+	 */
+	private long getLegalKingTargets(int index, ChessColor color, boolean capturesOnly)
+	{
+		Position position = board.getPosition();
+		ChessColor foeColor = color.getOpposite();
+		// the king must not block the rays of the pieces attacking it, otherwise it could step back along them
+		long occupiedWithoutKing = position.getOccupancy() & ~Bitboards.getMask(index);
+
+		long legalTargets = 0;
+		long allowedTargets = capturesOnly ? position.getOccupancy(foeColor) : ~position.getOccupancy(color);
+		for (long targets = Bitboards.getKingAttacks(index) & allowedTargets; targets != 0; targets &= targets - 1)
+		{
+			int targetIndex = Bitboards.getFirstIndex(targets);
+			if (getAttackers(targetIndex, foeColor, occupiedWithoutKing) == 0)
+			{
+				legalTargets |= Bitboards.getMask(targetIndex);
+			}
+		}
+
+		if ((checkers == 0) && !capturesOnly)
+		{
+			for (int i = 0; i < 2; i++)
+			{
+				boolean queenside = (i == 0);
+				if (isCastlingAllowed(index, color, queenside))
+				{
+					legalTargets |= Bitboards.getMask(index + (queenside ? -2 : 2));
+				}
+			}
+		}
+		return legalTargets;
+	}
+
+	/**
+	 * Checks if a king that is not in check may castle on a given side: the right must not have been lost, the squares between king and rook must be
+	 * empty and the squares the king passes or reaches must not be attacked.
+	 */
+	private boolean isCastlingAllowed(int index, ChessColor color, boolean queenside)
+	{
+		Position position = board.getPosition();
+		if (!position.hasCastlingRight(color, queenside))
+		{
+			return false;
+		}
+		int rookIndex = Bitboards.getIndex(queenside ? 1 : 8, Bitboards.getRow(index));
+		if ((position.getPieceCode(rookIndex) != Position.getPieceCode(Type.ROOK, color))
+				|| ((Bitboards.getBetween(index, rookIndex) & position.getOccupancy()) != 0))
+		{
+			return false;
+		}
+		int direction = queenside ? -1 : 1;
+		return !isAttackedBy(index + direction, color.getOpposite()) && !isAttackedBy(index + 2 * direction, color.getOpposite());
+	}
+
+	/**
+	 * Checks if an en passant capture would leave the friendly king safe. Removing both the capturing and the captured pawn from their row can expose
+	 * the king to a foe's rook or queen, which the pin analysis does not see.
+	 */
+	private boolean isEnPassantSafe(int fromIndex, int enPassantIndex, ChessColor color)
+	{
+		Position position = board.getPosition();
+		ChessColor foeColor = color.getOpposite();
+		long victim = Bitboards.getMask(GameCalc.getEnPassantVictimIndex(enPassantIndex, color));
+		long occupied = (position.getOccupancy() & ~Bitboards.getMask(fromIndex) & ~victim) | Bitboards.getMask(enPassantIndex);
+		long foeQueens = position.getPieces(Type.QUEEN, foeColor);
+
+		long rookAttackers = MagicAttacks.getRookAttacks(kingIndex, occupied) & (position.getPieces(Type.ROOK, foeColor) | foeQueens);
+		long bishopAttackers = MagicAttacks.getBishopAttacks(kingIndex, occupied) & (position.getPieces(Type.BISHOP, foeColor) | foeQueens);
+		return (rookAttackers | bishopAttackers) == 0;
+	}
+
+	/**
+	 * Returns the squares of the board that are contained in a bitboard.
+	 */
+	private Set<Square> getSquares(long bitboard)
+	{
+		HashSet<Square> squares = new HashSet<Square>();
+		for (; bitboard != 0; bitboard &= bitboard - 1)
+		{
+			squares.add(board.getSquare(Bitboards.getFirstIndex(bitboard)));
+		}
+		return squares;
 	}
 
 	/* ------------------------------------------------ STATIC METHODS ------------------------------------------------ */
@@ -674,6 +973,18 @@ public final class GameCalc
 		return (!move.getTo().isEmpty()) || GameCalc.isEnPassant(move);
 	}
 
+	/**
+	 * Returns the square of the pawn that is captured by an en passant move.
+	 * 
+	 * @param enPassantIndex the index of the en passant target square
+	 * @param capturingColor the color of the capturing pawn
+	 * @return the index of the captured pawn's square
+	 */
+	public static int getEnPassantVictimIndex(int enPassantIndex, ChessColor capturingColor)
+	{
+		return (capturingColor == ChessColor.WHITE) ? enPassantIndex - Board.COLUMN_IDS.length : enPassantIndex + Board.COLUMN_IDS.length;
+	}
+
 	/**
 	 * Checks if a given cell (as defined by a column and a row) is inside the board.
 	 * 
@@ -0,0 +1,177 @@
+package core;
+
+/**
+ * Precomputed attack tables for sliding pieces (magic bitboards). For every square the relevant occupancy (the squares on the piece's rays
+ * without the board edge) is mapped to an index into the square's attack table by one multiplication with a magic number and one shift. So the full
+ * attack set of a rook, bishop or queen is obtained by one multiply-shift-lookup instead of walking its rays square by square.
+ * 
+ * The magic numbers were found by trying sparse random numbers (generated from a fixed seed) until no two occupancies with different attacks were
+ * mapped to the same table entry. When this class is loaded only the tables are filled. Every entry is checked while filling, so a wrong magic
+ * number is detected immediately.
+ */
+public final class MagicAttacks
+{
+	/**
+	 * The time the initialization of the tables may take at most (in nanoseconds).
+	 */
+	public static final long INITIALIZATION_BUDGET = 100L * 1000 * 1000;
+
+	private static final long[] ROOK_MASKS = new long[Board.SQUARE_COUNT];
+	private static final long[] ROOK_MAGICS =
+	{
+	0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+	0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+	0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+	0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+	0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+	0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+	0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+	0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+	0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+	0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+	0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+	0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+	0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+	0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+	0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+	0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L };
+	private static final int[] ROOK_SHIFTS = new int[Board.SQUARE_COUNT];
+	private static final long[][] ROOK_ATTACKS = new long[Board.SQUARE_COUNT][];
+
+	private static final long[] BISHOP_MASKS = new long[Board.SQUARE_COUNT];
+	private static final long[] BISHOP_MAGICS =
+	{
+	0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+	0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+	0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+	0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+	0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+	0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+	0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+	0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+	0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+	0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+	0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+	0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+	0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+	0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+	0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+	0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L };
+	private static final int[] BISHOP_SHIFTS = new int[Board.SQUARE_COUNT];
+	private static final long[][] BISHOP_ATTACKS = new long[Board.SQUARE_COUNT][];
+
+	private static final long INITIALIZATION_TIME;
+
+	static
+	{
+		long start = System.nanoTime();
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			long edges = MagicAttacks.getEdges(index);
+			MagicAttacks.ROOK_MASKS[index] = Bitboards.getRookRayAttacks(index, 0) & ~edges;
+			MagicAttacks.BISHOP_MASKS[index] = Bitboards.getBishopRayAttacks(index, 0) & ~edges;
+			MagicAttacks.ROOK_SHIFTS[index] = 64 - Bitboards.getCount(MagicAttacks.ROOK_MASKS[index]);
+			MagicAttacks.BISHOP_SHIFTS[index] = 64 - Bitboards.getCount(MagicAttacks.BISHOP_MASKS[index]);
+			MagicAttacks.ROOK_ATTACKS[index] = new long[1 << Bitboards.getCount(MagicAttacks.ROOK_MASKS[index])];
+			MagicAttacks.BISHOP_ATTACKS[index] = new long[1 << Bitboards.getCount(MagicAttacks.BISHOP_MASKS[index])];
+			MagicAttacks.fillTable(index, true);
+			MagicAttacks.fillTable(index, false);
+		}
+		INITIALIZATION_TIME = System.nanoTime() - start;
+	}
+
+	private MagicAttacks()
+	{
+	}
+
+	/**
+	 * Returns the squares a rook on the given square attacks. Each ray ends at the first occupied square, which is part of the result.
+	 * 
+	 * @param index the index of the rook's square
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares
+	 */
+	public static long getRookAttacks(int index, long occupied)
+	{
+		int key = (int) (((occupied & MagicAttacks.ROOK_MASKS[index]) * MagicAttacks.ROOK_MAGICS[index]) >>> MagicAttacks.ROOK_SHIFTS[index]);
+		return MagicAttacks.ROOK_ATTACKS[index][key];
+	}
+
+	/**
+	 * Returns the squares a bishop on the given square attacks. Each ray ends at the first occupied square, which is part of the result.
+	 * 
+	 * @param index the index of the bishop's square
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares
+	 */
+	public static long getBishopAttacks(int index, long occupied)
+	{
+		int key = (int) (((occupied & MagicAttacks.BISHOP_MASKS[index]) * MagicAttacks.BISHOP_MAGICS[index]) >>> MagicAttacks.BISHOP_SHIFTS[index]);
+		return MagicAttacks.BISHOP_ATTACKS[index][key];
+	}
+
+	/**
+	 * Returns the squares a queen on the given square attacks. Each ray ends at the first occupied square, which is part of the result.
+	 * 
+	 * @param index the index of the queen's square
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares
+	 */
+	public static long getQueenAttacks(int index, long occupied)
+	{
+		return MagicAttacks.getRookAttacks(index, occupied) | MagicAttacks.getBishopAttacks(index, occupied);
+	}
+
+	/**
+	 * Returns the time it took to fill the attack tables.
+	 * 
+	 * @return the initialization time in nanoseconds
+	 */
+	public static long getInitializationTime()
+	{
+		return MagicAttacks.INITIALIZATION_TIME;
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	/**
+	 * Returns the board edges that are irrelevant for the attacks of a slider on the given square. An edge is only irrelevant if the square is not
+	 * located on it.
+	 */
+	private static long getEdges(int index)
+	{
+		long rank = Bitboards.RANK_1 << ((Bitboards.getRow(index) - 1) * 8);
+		long file = Bitboards.FILE_A << (Bitboards.getColumn(index) - 1);
+		return ((Bitboards.RANK_1 | Bitboards.RANK_8) & ~rank) | ((Bitboards.FILE_A | Bitboards.FILE_H) & ~file);
+	}
+
+	/**
+	 * Fills the attack table of the given square with the attacks of every subset of the square's relevant occupancy.
+	 * 
+	 * @throws IllegalStateException if the magic number of the square maps two subsets with different attacks to the same entry
+	 */
+	private static void fillTable(int index, boolean rook)
+	{
+		long mask = rook ? MagicAttacks.ROOK_MASKS[index] : MagicAttacks.BISHOP_MASKS[index];
+		long magic = rook ? MagicAttacks.ROOK_MAGICS[index] : MagicAttacks.BISHOP_MAGICS[index];
+		int shift = rook ? MagicAttacks.ROOK_SHIFTS[index] : MagicAttacks.BISHOP_SHIFTS[index];
+		long[] table = rook ? MagicAttacks.ROOK_ATTACKS[index] : MagicAttacks.BISHOP_ATTACKS[index];
+		boolean[] used = new boolean[table.length];
+
+		// enumerate all subsets of the mask (Carry-Rippler)
+		long subset = 0;
+		do
+		{
+			long attacks = rook ? Bitboards.getRookRayAttacks(index, subset) : Bitboards.getBishopRayAttacks(index, subset);
+			int key = (int) ((subset * magic) >>> shift);
+			if (used[key] && (table[key] != attacks))
+			{
+				throw new IllegalStateException("Invalid magic number for square " + SquareID.fromIndex(index));
+			}
+			used[key] = true;
+			table[key] = attacks;
+			subset = (subset - mask) & mask;
+		}
+		while (subset != 0);
+	}
+}
@@ -5,6 +5,8 @@ import graphics.*;
 import java.awt.event.*;
 import java.util.*;
 
+import javax.swing.SwingUtilities;
+
 import core.events.*;
 
 public class MainViewController implements ActionListener, BoardListener, ChessClockListener
@@ -49,7 +51,7 @@ public class MainViewController implements ActionListener, BoardListener, ChessC
 			List<Piece> captPieces = game.gameCourse.getCapturedPieces();
 			mainView.createAndShowGameInfoView(course, captPieces);
 		}
-		else if (e.getActionCommand() == "board")
+		else if ((e.getActionCommand() == "board") && !game.getPlayerToMove().isComputer())
 		{
 			BoardButton button = (BoardButton) e.getSource();
 			Piece piece = game.board.getSquare(button.getSquareID()).getPiece();
@@ -76,7 +78,6 @@ public class MainViewController implements ActionListener, BoardListener, ChessC
 						Move move = new Move(selectedSquare, targetSquare);
 						game.update(game.getPlayerToMove(), move);
 						mainView.unselectButton(selBoardButton);
-						mainView.updateMiddlePanel(game.board);
 					}
 				}
 				else
@@ -110,6 +111,12 @@ public class MainViewController implements ActionListener, BoardListener, ChessC
 		return upcomingChoice;
 	}
 
+	@Override
+	public void noticeMoveHasBeenMade()
+	{
+		SwingUtilities.invokeLater(() -> mainView.updateMiddlePanel(game.board));
+	}
+
 	@Override
 	public void noticeTimeUpdate(PlayerTimeEvent e)
 	{
@@ -0,0 +1,123 @@
+package core;
+
+/**
+ * A reusable buffer of packed moves (see PackedMove). A search keeps one list per ply, which is allocated once and refilled by
+ * GameCalc.generateMoves for every position reached at that ply, so generating moves does not produce any garbage.
+ * 
+ * Every move has an int score that can be used to order the moves.
+ */
+public final class MoveList
+{
+	/**
+	 * The maximum number of moves in a list. No legal chess position has more than 218 moves.
+	 */
+	public static final int CAPACITY = 256;
+
+	private final int[] moves = new int[MoveList.CAPACITY];
+	private final int[] scores = new int[MoveList.CAPACITY];
+	private int size;
+
+	/**
+	 * Creates one move list per ply.
+	 * 
+	 * @param plyCount the number of plies
+	 * @return the move lists
+	 */
+	public static MoveList[] createPerPly(int plyCount)
+	{
+		MoveList[] moveLists = new MoveList[plyCount];
+		for (int ply = 0; ply < plyCount; ply++)
+		{
+			moveLists[ply] = new MoveList();
+		}
+		return moveLists;
+	}
+
+	/**
+	 * Appends a move with the score 0.
+	 * 
+	 * @param move the packed move
+	 */
+	public void add(int move)
+	{
+		moves[size] = move;
+		scores[size] = 0;
+		size++;
+	}
+
+	public int get(int i)
+	{
+		return moves[i];
+	}
+
+	public int getScore(int i)
+	{
+		return scores[i];
+	}
+
+	public void setScore(int i, int score)
+	{
+		scores[i] = score;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public void clear()
+	{
+		size = 0;
+	}
+
+	/**
+	 * Checks if this list contains a move.
+	 * 
+	 * @param move the packed move
+	 * @return True if this list contains the move, otherwise false.
+	 */
+	public boolean contains(int move)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			if (moves[i] == move)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a move. The last move takes its place, so the order of the moves changes.
+	 * 
+	 * @param i the position of the move
+	 */
+	public void remove(int i)
+	{
+		size--;
+		moves[i] = moves[size];
+		scores[i] = scores[size];
+	}
+
+	/**
+	 * Swaps two moves together with their scores.
+	 * 
+	 * @param i the position of the first move
+	 * @param j the position of the second move
+	 */
+	public void swap(int i, int j)
+	{
+		int move = moves[i];
+		moves[i] = moves[j];
+		moves[j] = move;
+		int score = scores[i];
+		scores[i] = scores[j];
+		scores[j] = score;
+	}
+}
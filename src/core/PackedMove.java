@@ -0,0 +1,181 @@
+package core;
+
+/**
+ * Static methods for moves packed into a single int, which is the representation of moves used by the search. Unlike a Move a packed move does not
+ * refer to any squares or pieces, so creating, storing and comparing packed moves does not allocate any memory.
+ * 
+ * Layout of a packed move (bit 0 is the lowest bit):
+ * <ul>
+ * <li>bits 0 - 5: the index of the target square</li>
+ * <li>bits 6 - 11: the index of the origin square</li>
+ * <li>bits 12 - 14: the promotion piece (PromotionChoice.ordinal() + 1) or 0 if the move is not a pawn trade move</li>
+ * <li>bit 15: set if the move captures a piece</li>
+ * <li>bit 16: set if the move is an en passant move</li>
+ * <li>bit 17: set if the move is a castling move</li>
+ * </ul>
+ * The flags are derived from the position before the move when the move is created and allow executing the move without examining the board.
+ */
+public final class PackedMove
+{
+	/**
+	 * No move. It can never be a valid move because its origin and target square are the same.
+	 */
+	public static final int NONE = 0;
+
+	public static final int CAPTURE = 1 << 15;
+	public static final int EN_PASSANT = 1 << 16;
+	public static final int CASTLING = 1 << 17;
+
+	private static final int SQUARE_MASK = 63;
+	private static final int FROM_SHIFT = 6;
+	private static final int PROMOTION_SHIFT = 12;
+	private static final int PROMOTION_MASK = 7 << PackedMove.PROMOTION_SHIFT;
+
+	private static final PromotionChoice[] PROMOTION_CHOICES = PromotionChoice.values();
+	private static final String PROMOTION_CHARACTERS = "nbrq";
+
+	private PackedMove()
+	{
+	}
+
+	/**
+	 * Packs a move that is not a pawn trade move.
+	 * 
+	 * @param fromIndex the index of the origin square
+	 * @param toIndex the index of the target square
+	 * @param flags any combination of CAPTURE, EN_PASSANT and CASTLING
+	 * @return the packed move
+	 */
+	public static int create(int fromIndex, int toIndex, int flags)
+	{
+		return flags | (fromIndex << PackedMove.FROM_SHIFT) | toIndex;
+	}
+
+	/**
+	 * Packs a pawn trade move.
+	 * 
+	 * @param fromIndex the index of the origin square
+	 * @param toIndex the index of the target square
+	 * @param flags CAPTURE or 0
+	 * @param choice the piece that replaces the pawn
+	 * @return the packed move
+	 */
+	public static int create(int fromIndex, int toIndex, int flags, PromotionChoice choice)
+	{
+		return PackedMove.create(fromIndex, toIndex, flags) | ((choice.ordinal() + 1) << PackedMove.PROMOTION_SHIFT);
+	}
+
+	/**
+	 * Packs a move. The kind of the move is recognized by the move itself, so its squares have to be in the state before the move.
+	 * 
+	 * @param move the move (before it is executed)
+	 * @param choice the piece that replaces the pawn if the move is a pawn trade move. It is ignored for any other move.
+	 * @return the packed move
+	 */
+	public static int fromMove(Move move, PromotionChoice choice)
+	{
+		int fromIndex = move.getFrom().getID().getIndex();
+		int toIndex = move.getTo().getID().getIndex();
+		int flags = 0;
+		if (GameCalc.isCastling(move))
+		{
+			flags |= PackedMove.CASTLING;
+		}
+		else if (GameCalc.isEnPassant(move))
+		{
+			flags |= PackedMove.EN_PASSANT | PackedMove.CAPTURE;
+		}
+		else if (!move.getTo().isEmpty())
+		{
+			flags |= PackedMove.CAPTURE;
+		}
+		if (GameCalc.isPromotion(move))
+		{
+			return PackedMove.create(fromIndex, toIndex, flags, choice);
+		}
+		return PackedMove.create(fromIndex, toIndex, flags);
+	}
+
+	/**
+	 * Creates the Move object of a packed move for the UI.
+	 * 
+	 * @param move the packed move
+	 * @param board the board whose squares the move will refer to
+	 * @return the move
+	 */
+	public static Move toMove(int move, Board board)
+	{
+		return new Move(board.getSquare(PackedMove.getFrom(move)), board.getSquare(PackedMove.getTo(move)));
+	}
+
+	/**
+	 * Creates the MoveInfo object of a packed move for the course of a game. It has to be called before the move is executed on the board.
+	 * 
+	 * @param move the packed move
+	 * @param board the board the move will be executed on
+	 * @param remainingTime the remaining time of the moving player
+	 * @return the move info
+	 */
+	public static MoveInfo toMoveInfo(int move, Board board, long remainingTime)
+	{
+		return new MoveInfo(PackedMove.toMove(move, board), remainingTime);
+	}
+
+	public static int getFrom(int move)
+	{
+		return (move >>> PackedMove.FROM_SHIFT) & PackedMove.SQUARE_MASK;
+	}
+
+	public static int getTo(int move)
+	{
+		return move & PackedMove.SQUARE_MASK;
+	}
+
+	/**
+	 * Returns the piece that replaces the pawn of a pawn trade move.
+	 * 
+	 * @param move the packed move
+	 * @return the promotion choice or null if the move is not a pawn trade move
+	 */
+	public static PromotionChoice getPromotionChoice(int move)
+	{
+		int promotion = (move & PackedMove.PROMOTION_MASK) >>> PackedMove.PROMOTION_SHIFT;
+		return (promotion == 0) ? null : PackedMove.PROMOTION_CHOICES[promotion - 1];
+	}
+
+	public static boolean isPromotion(int move)
+	{
+		return (move & PackedMove.PROMOTION_MASK) != 0;
+	}
+
+	public static boolean isCapture(int move)
+	{
+		return (move & PackedMove.CAPTURE) != 0;
+	}
+
+	public static boolean isEnPassant(int move)
+	{
+		return (move & PackedMove.EN_PASSANT) != 0;
+	}
+
+	public static boolean isCastling(int move)
+	{
+		return (move & PackedMove.CASTLING) != 0;
+	}
+
+	/**
+	 * Returns a packed move in coordinate notation, for example "e2e4" or "a7a8q".
+	 * 
+	 * @param move the packed move
+	 * @return the move in coordinate notation
+	 */
+	public static String toString(int move)
+	{
+		String result = SquareID.fromIndex(PackedMove.getFrom(move)).toString() + SquareID.fromIndex(PackedMove.getTo(move)).toString();
+		if (PackedMove.isPromotion(move))
+		{
+			result += PackedMove.PROMOTION_CHARACTERS.charAt(PackedMove.getPromotionChoice(move).ordinal());
+		}
+		return result.toLowerCase();
+	}
+}
@@ -0,0 +1,339 @@
+package core;
+
+import java.util.Arrays;
+
+import core.Piece.Type;
+
+/**
+ * The bitboard representation of the pieces on a board. It keeps one bitboard per piece type and color, one occupancy bitboard per color and one
+ * for the whole board. In addition every square's piece code is kept in a mailbox array so that the piece on a square can be looked up without
+ * scanning the bitboards.
+ * 
+ * A piece code identifies a piece type and color: code = color.ordinal() * 6 + type.ordinal(). Empty squares have the code EMPTY.
+ * 
+ * Besides the pieces a position knows the color to move, the castling rights and the en passant target square. All of this is identified by the
+ * position's Zobrist key (see Zobrist), which is updated with every change. Two positions are equal if their pieces and this state are equal.
+ * 
+ * Objects of this class are mutable. They are owned and kept up to date by a Board.
+ */
+public final class Position
+{
+	/**
+	 * The piece code of an empty square.
+	 */
+	public static final int EMPTY = -1;
+	/**
+	 * The number of piece types (6).
+	 */
+	public static final int TYPE_COUNT = Type.values().length;
+	/**
+	 * The number of piece codes (12).
+	 */
+	public static final int PIECE_CODE_COUNT = 2 * Position.TYPE_COUNT;
+	/**
+	 * The index of a square that does not exist, for example the en passant target square if en passant is not possible.
+	 */
+	public static final int NO_SQUARE = -1;
+
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+	public static final int ALL_CASTLING_RIGHTS = Position.WHITE_KINGSIDE | Position.WHITE_QUEENSIDE | Position.BLACK_KINGSIDE
+			| Position.BLACK_QUEENSIDE;
+
+	private static final Type[] TYPES = Type.values();
+	private static final ChessColor[] COLORS = ChessColor.values();
+
+	private final long[] pieces = new long[Position.PIECE_CODE_COUNT];
+	private final long[] colors = new long[2];
+	private long occupied;
+	private final int[] mailbox = new int[Board.SQUARE_COUNT];
+	private ChessColor colorToMove = ChessColor.WHITE;
+	private int castlingRights;
+	private int enPassantIndex = Position.NO_SQUARE;
+	private long key;
+
+	/**
+	 * Constructs a new position without any pieces.
+	 */
+	public Position()
+	{
+		Arrays.fill(mailbox, Position.EMPTY);
+	}
+
+	/**
+	 * Returns the bitboard of the pieces of a given type and color.
+	 * 
+	 * @param type the type of the pieces
+	 * @param color the color of the pieces
+	 * @return the squares containing a piece of the given type and color
+	 */
+	public long getPieces(Type type, ChessColor color)
+	{
+		return pieces[Position.getPieceCode(type, color)];
+	}
+
+	/**
+	 * Returns the bitboard of the pieces with a given piece code.
+	 * 
+	 * @param pieceCode the piece code
+	 * @return the squares containing a piece with the given code
+	 */
+	public long getPieces(int pieceCode)
+	{
+		return pieces[pieceCode];
+	}
+
+	/**
+	 * Returns the bitboard of all pieces of a given color.
+	 * 
+	 * @param color the color
+	 * @return the squares containing a piece of the given color
+	 */
+	public long getOccupancy(ChessColor color)
+	{
+		return colors[color.ordinal()];
+	}
+
+	/**
+	 * Returns the bitboard of all pieces.
+	 * 
+	 * @return the squares that are not empty
+	 */
+	public long getOccupancy()
+	{
+		return occupied;
+	}
+
+	/**
+	 * Returns the code of the piece on a square.
+	 * 
+	 * @param index the index of the square
+	 * @return the code of the piece on the square or EMPTY
+	 */
+	public int getPieceCode(int index)
+	{
+		return mailbox[index];
+	}
+
+	/**
+	 * Returns the color of the player to move.
+	 * 
+	 * @return the color to move
+	 */
+	public ChessColor getColorToMove()
+	{
+		return colorToMove;
+	}
+
+	/**
+	 * Returns the castling rights. Each right is represented by one bit (WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE, BLACK_QUEENSIDE). A right
+	 * is lost as soon as the king or the rook concerned has moved or the rook has been captured. It does not say whether castling is possible at
+	 * the moment.
+	 * 
+	 * @return the castling rights
+	 */
+	public int getCastlingRights()
+	{
+		return castlingRights;
+	}
+
+	/**
+	 * Checks if a player still has the right to castle on a given side.
+	 * 
+	 * @param color the color of the player
+	 * @param queenside True for the queen side. False for the king side.
+	 * @return True if the player still has the right, otherwise false.
+	 */
+	public boolean hasCastlingRight(ChessColor color, boolean queenside)
+	{
+		return (castlingRights & Position.getCastlingRight(color, queenside)) != 0;
+	}
+
+	/**
+	 * Returns the en passant target square, that is the square a pawn that has just moved two squares ahead passed. It is only set if a pawn of the
+	 * color to move stands next to the pawn that moved.
+	 * 
+	 * @return the index of the en passant target square or NO_SQUARE
+	 */
+	public int getEnPassantIndex()
+	{
+		return enPassantIndex;
+	}
+
+	/**
+	 * Returns the Zobrist key of this position.
+	 * 
+	 * @return the Zobrist key
+	 */
+	public long getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * Two positions are equal if they have the same pieces on the same squares, the same color to move, the same castling rights and the same en
+	 * passant target square.
+	 */
+	@Override
+	public boolean equals(Object o)
+	{
+		if (!(o instanceof Position))
+		{
+			return false;
+		}
+		Position position = (Position) o;
+		return (position.key == key) && (position.colorToMove == colorToMove) && (position.castlingRights == castlingRights)
+				&& (position.enPassantIndex == enPassantIndex) && Arrays.equals(position.mailbox, mailbox);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (int) (key ^ (key >>> 32));
+	}
+
+	/**
+	 * Places a piece onto an empty square.
+	 * 
+	 * @param index the index of the square
+	 * @param pieceCode the code of the piece
+	 */
+	void put(int index, int pieceCode)
+	{
+		long mask = Bitboards.getMask(index);
+		pieces[pieceCode] |= mask;
+		colors[pieceCode / Position.TYPE_COUNT] |= mask;
+		occupied |= mask;
+		mailbox[index] = pieceCode;
+		key ^= Zobrist.getPieceKey(pieceCode, index);
+	}
+
+	/**
+	 * Removes the piece located on a square if such a piece exists.
+	 * 
+	 * @param index the index of the square
+	 */
+	void remove(int index)
+	{
+		int pieceCode = mailbox[index];
+		if (pieceCode != Position.EMPTY)
+		{
+			long mask = ~Bitboards.getMask(index);
+			pieces[pieceCode] &= mask;
+			colors[pieceCode / Position.TYPE_COUNT] &= mask;
+			occupied &= mask;
+			mailbox[index] = Position.EMPTY;
+			key ^= Zobrist.getPieceKey(pieceCode, index);
+		}
+	}
+
+	void setColorToMove(ChessColor colorToMove)
+	{
+		if (colorToMove != this.colorToMove)
+		{
+			key ^= Zobrist.getBlackToMoveKey();
+			this.colorToMove = colorToMove;
+		}
+	}
+
+	void setCastlingRights(int castlingRights)
+	{
+		key ^= Zobrist.getCastlingKey(this.castlingRights) ^ Zobrist.getCastlingKey(castlingRights);
+		this.castlingRights = castlingRights;
+	}
+
+	void setEnPassantIndex(int enPassantIndex)
+	{
+		if (this.enPassantIndex != Position.NO_SQUARE)
+		{
+			key ^= Zobrist.getEnPassantKey(this.enPassantIndex);
+		}
+		if (enPassantIndex != Position.NO_SQUARE)
+		{
+			key ^= Zobrist.getEnPassantKey(enPassantIndex);
+		}
+		this.enPassantIndex = enPassantIndex;
+	}
+
+	/**
+	 * Overwrites the state of this position with the state of another position.
+	 * 
+	 * @param other the position to be copied
+	 */
+	void copyFrom(Position other)
+	{
+		System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+		System.arraycopy(other.colors, 0, colors, 0, colors.length);
+		System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+		occupied = other.occupied;
+		colorToMove = other.colorToMove;
+		castlingRights = other.castlingRights;
+		enPassantIndex = other.enPassantIndex;
+		key = other.key;
+	}
+
+	/* ------------------------------------------------ STATIC METHODS ------------------------------------------------ */
+
+	/**
+	 * Returns the code of a piece type and color.
+	 * 
+	 * @param type the type of the piece
+	 * @param color the color of the piece
+	 * @return the piece code
+	 */
+	public static int getPieceCode(Type type, ChessColor color)
+	{
+		return color.ordinal() * Position.TYPE_COUNT + type.ordinal();
+	}
+
+	/**
+	 * Returns the bit representing the right to castle on a given side.
+	 * 
+	 * @param color the color of the castling player
+	 * @param queenside True for the queen side. False for the king side.
+	 * @return one of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE
+	 */
+	public static int getCastlingRight(ChessColor color, boolean queenside)
+	{
+		if (color == ChessColor.WHITE)
+		{
+			return queenside ? Position.WHITE_QUEENSIDE : Position.WHITE_KINGSIDE;
+		}
+		return queenside ? Position.BLACK_QUEENSIDE : Position.BLACK_KINGSIDE;
+	}
+
+	/**
+	 * Returns the code of a piece.
+	 * 
+	 * @param piece the piece or null
+	 * @return the piece code or EMPTY if the piece is null
+	 */
+	public static int getPieceCode(Piece piece)
+	{
+		return (piece == null) ? Position.EMPTY : Position.getPieceCode(piece.getType(), piece.getColor());
+	}
+
+	/**
+	 * Returns the piece type of a piece code.
+	 * 
+	 * @param pieceCode the piece code (not EMPTY)
+	 * @return the type of the piece
+	 */
+	public static Type getType(int pieceCode)
+	{
+		return Position.TYPES[pieceCode % Position.TYPE_COUNT];
+	}
+
+	/**
+	 * Returns the color of a piece code.
+	 * 
+	 * @param pieceCode the piece code (not EMPTY)
+	 * @return the color of the piece
+	 */
+	public static ChessColor getColor(int pieceCode)
+	{
+		return Position.COLORS[pieceCode / Position.TYPE_COUNT];
+	}
+}
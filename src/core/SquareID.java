@@ -7,6 +7,16 @@ package core;
  */
 public final class SquareID
 {
+	private static final SquareID[] IDS = new SquareID[Board.SQUARE_COUNT];
+
+	static
+	{
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			SquareID.IDS[index] = new SquareID(Bitboards.getColumn(index), Bitboards.getRow(index));
+		}
+	}
+
 	/**
 	 * The column of the square whose position is represented by the SquareID object.
 	 */
@@ -74,6 +84,27 @@ public final class SquareID
 		return row;
 	}
 
+	/**
+	 * Returns the index of the square whose position is represented by the SquareID object. The index is (row - 1) * 8 + (column - 1).
+	 * 
+	 * @return the index of the square (0 to 63)
+	 */
+	public int getIndex()
+	{
+		return Bitboards.getIndex(col, row);
+	}
+
+	/**
+	 * Returns the SquareID of the square with the given index. No new object is created.
+	 * 
+	 * @param index the index of the square (0 to 63)
+	 * @return the SquareID of the square with the given index
+	 */
+	public static SquareID fromIndex(int index)
+	{
+		return SquareID.IDS[index];
+	}
+
 	/**
 	 * Checks if two SquareID objects are equal. Two SquareID objects are equal if they represent the same position, that is if they have the same
 	 * column and row values.
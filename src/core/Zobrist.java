@@ -0,0 +1,116 @@
+package core;
+
+import java.util.Random;
+
+/**
+ * The random keys of Zobrist hashing. The Zobrist key of a position is the XOR of the keys of all pieces on their squares, the key for black to
+ * move (if black is to move), the key of the castling rights and the key of the en passant column (if en passant is possible). Hence every change
+ * of the position can be applied to its key by XOR-ing the keys of the parts that changed.
+ * 
+ * The keys are generated from a fixed seed so that they are the same on every start.
+ */
+public final class Zobrist
+{
+	private static final long SEED = 0x5DEECE66DL;
+
+	private static final long[][] PIECE_KEYS = new long[Position.PIECE_CODE_COUNT][Board.SQUARE_COUNT];
+	private static final long[] CASTLING_KEYS = new long[Position.ALL_CASTLING_RIGHTS + 1];
+	private static final long[] EN_PASSANT_KEYS = new long[Board.COLUMN_IDS.length];
+	private static final long BLACK_TO_MOVE_KEY;
+
+	static
+	{
+		Random random = new Random(Zobrist.SEED);
+		for (long[] keys : Zobrist.PIECE_KEYS)
+		{
+			for (int index = 0; index < keys.length; index++)
+			{
+				keys[index] = random.nextLong();
+			}
+		}
+		// no castling rights at all is represented by 0 so that an empty position has the key 0
+		for (int i = 1; i < Zobrist.CASTLING_KEYS.length; i++)
+		{
+			Zobrist.CASTLING_KEYS[i] = random.nextLong();
+		}
+		for (int i = 0; i < Zobrist.EN_PASSANT_KEYS.length; i++)
+		{
+			Zobrist.EN_PASSANT_KEYS[i] = random.nextLong();
+		}
+		BLACK_TO_MOVE_KEY = random.nextLong();
+	}
+
+	private Zobrist()
+	{
+	}
+
+	/**
+	 * Returns the key of a piece on a square.
+	 * 
+	 * @param pieceCode the code of the piece (see Position)
+	 * @param index the index of the square
+	 * @return the key
+	 */
+	public static long getPieceKey(int pieceCode, int index)
+	{
+		return Zobrist.PIECE_KEYS[pieceCode][index];
+	}
+
+	/**
+	 * Returns the key of a combination of castling rights.
+	 * 
+	 * @param castlingRights the castling rights (see Position)
+	 * @return the key
+	 */
+	public static long getCastlingKey(int castlingRights)
+	{
+		return Zobrist.CASTLING_KEYS[castlingRights];
+	}
+
+	/**
+	 * Returns the key of an en passant target square. Only the column of the square is taken into account.
+	 * 
+	 * @param index the index of the en passant target square
+	 * @return the key
+	 */
+	public static long getEnPassantKey(int index)
+	{
+		return Zobrist.EN_PASSANT_KEYS[Bitboards.getColumn(index) - 1];
+	}
+
+	/**
+	 * Returns the key that is XOR-ed into the key of every position in which black is to move.
+	 * 
+	 * @return the key
+	 */
+	public static long getBlackToMoveKey()
+	{
+		return Zobrist.BLACK_TO_MOVE_KEY;
+	}
+
+	/**
+	 * Computes the key of a position from scratch. Positions maintain their key incrementally, so this is only needed to verify a key.
+	 * 
+	 * @param position the position
+	 * @return the Zobrist key of the position
+	 */
+	public static long computeKey(Position position)
+	{
+		long key = 0;
+		for (long occupied = position.getOccupancy(); occupied != 0; occupied &= occupied - 1)
+		{
+			int index = Bitboards.getFirstIndex(occupied);
+			key ^= Zobrist.getPieceKey(position.getPieceCode(index), index);
+		}
+		if (position.getColorToMove() == ChessColor.BLACK)
+		{
+			key ^= Zobrist.BLACK_TO_MOVE_KEY;
+		}
+		key ^= Zobrist.getCastlingKey(position.getCastlingRights());
+		if (position.getEnPassantIndex() != Position.NO_SQUARE)
+		{
+			key ^= Zobrist.getEnPassantKey(position.getEnPassantIndex());
+		}
+		return key;
+	}
+}
@@ -0,0 +1,288 @@
+package support;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import core.*;
+
+/**
+ * Counts the leaf nodes of the tree of legal moves up to a given depth (perft). The node counts of many positions are well known, so perft verifies
+ * the move generation of GameCalc and the make and unmake methods of Board. Since perft does nothing but generating and executing moves it is also
+ * the measure of their speed.
+ * 
+ * Optionally the node counts of subtrees are stored in a hash table indexed by the Zobrist key, so that transpositions are only counted once. The
+ * table is shared by all threads without locks: each entry is stored as the XOR of key and data next to the data, so an entry that has been torn
+ * by concurrent writes fails the key check and is ignored.
+ * 
+ * In parallel mode the subtrees are split across the threads of a ForkJoinPool. Every task works on its own copy of the board.
+ * 
+ * Usage: java support.Perft depth [-fen "FEN"] [-divide] [-hash megabytes] [-threads count]
+ */
+public final class Perft
+{
+	/**
+	 * Subtrees with less than this depth are not split any further in parallel mode.
+	 */
+	private static final int MIN_SPLIT_DEPTH = 3;
+	private static final int ENTRY_SIZE = 2 * Long.BYTES;
+	private static final int DEPTH_BITS = 8;
+
+	private final long[] hashTable;
+	private final int hashMask;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a sequential perft without hash table.
+	 */
+	public Perft()
+	{
+		this(0, 1);
+	}
+
+	/**
+	 * Creates a perft.
+	 * 
+	 * @param hashSize the size of the hash table in bytes. It is rounded down to a power of two. 0 disables the hash table.
+	 * @param threadCount the number of threads. 1 counts sequentially in the calling thread.
+	 */
+	public Perft(long hashSize, int threadCount)
+	{
+		if (hashSize >= Perft.ENTRY_SIZE)
+		{
+			int entryCount = Integer.highestOneBit((int) Math.min(hashSize / Perft.ENTRY_SIZE, 1 << 30));
+			hashTable = new long[2 * entryCount];
+			hashMask = entryCount - 1;
+		}
+		else
+		{
+			hashTable = null;
+			hashMask = 0;
+		}
+		pool = (threadCount > 1) ? new ForkJoinPool(threadCount) : null;
+	}
+
+	/**
+	 * Counts the leaf nodes of the move tree of a board's position.
+	 * 
+	 * @param board the board. It is in its original state again when this method returns.
+	 * @param depth the depth of the tree (at least 1)
+	 * @return the number of leaf nodes
+	 */
+	public long perft(Board board, int depth)
+	{
+		if (pool != null)
+		{
+			return pool.invoke(new PerftTask(board.clone(), depth));
+		}
+		return count(board, new GameCalc(board), MoveList.createPerPly(depth), depth);
+	}
+
+	/**
+	 * Counts the leaf nodes of the subtree of each legal move of a board's position.
+	 * 
+	 * @param board the board. It is in its original state again when this method returns.
+	 * @param depth the depth of the tree (at least 1)
+	 * @return the number of leaf nodes per move in coordinate notation, in the order of move generation
+	 */
+	public Map<String, Long> divide(Board board, int depth)
+	{
+		MoveList moves = new MoveList();
+		new GameCalc(board).generateMoves(moves);
+		Map<String, Long> nodeCounts = new LinkedHashMap<>();
+		for (int i = 0; i < moves.size(); i++)
+		{
+			long nodeCount = 1;
+			if (depth > 1)
+			{
+				board.makeMove(moves.get(i));
+				nodeCount = perft(board, depth - 1);
+				board.unmakeMove();
+			}
+			nodeCounts.put(PackedMove.toString(moves.get(i)), nodeCount);
+		}
+		return nodeCounts;
+	}
+
+	/**
+	 * Stops the threads of the parallel mode.
+	 */
+	public void shutdown()
+	{
+		if (pool != null)
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Computes the speed of a perft.
+	 * 
+	 * @param nodeCount the number of counted nodes
+	 * @param nanoseconds the time the perft took
+	 * @return the nodes per second
+	 */
+	public static long getNodesPerSecond(long nodeCount, long nanoseconds)
+	{
+		return (nanoseconds == 0) ? 0 : (long) (nodeCount * 1e9 / nanoseconds);
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length == 0)
+		{
+			System.out.println("Usage: java support.Perft depth [-fen \"FEN\"] [-divide] [-hash megabytes] [-threads count]");
+			return;
+		}
+		int depth = Integer.parseInt(args[0]);
+		Board board = new Board(true);
+		boolean divide = false;
+		long hashSize = 0;
+		int threadCount = 1;
+		for (int i = 1; i < args.length; i++)
+		{
+			switch (args[i])
+			{
+			case "-fen":
+				board = new Board(args[++i]);
+				break;
+			case "-divide":
+				divide = true;
+				break;
+			case "-hash":
+				hashSize = Long.parseLong(args[++i]) * 1024 * 1024;
+				break;
+			case "-threads":
+				threadCount = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		Perft perft = new Perft(hashSize, threadCount);
+		long start = System.nanoTime();
+		long nodeCount = 0;
+		if (divide)
+		{
+			for (Map.Entry<String, Long> entry : perft.divide(board, depth).entrySet())
+			{
+				System.out.println(entry.getKey() + ": " + entry.getValue());
+				nodeCount += entry.getValue();
+			}
+		}
+		else
+		{
+			nodeCount = perft.perft(board, depth);
+		}
+		long time = System.nanoTime() - start;
+		perft.shutdown();
+
+		System.out.println("nodes: " + nodeCount);
+		System.out.println("time:  " + (time / 1000000) + " ms");
+		System.out.println("nps:   " + Perft.getNodesPerSecond(nodeCount, time));
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private long count(Board board, GameCalc gameCalc, MoveList[] moveLists, int depth)
+	{
+		MoveList moves = moveLists[depth - 1];
+		if (depth == 1)
+		{
+			return gameCalc.generateMoves(moves);
+		}
+		long key = board.getZobristKey();
+		long nodeCount = probe(key, depth);
+		if (nodeCount >= 0)
+		{
+			return nodeCount;
+		}
+		gameCalc.generateMoves(moves);
+		nodeCount = 0;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			board.makeMove(moves.get(i));
+			nodeCount += count(board, gameCalc, moveLists, depth - 1);
+			board.unmakeMove();
+		}
+		store(key, depth, nodeCount);
+		return nodeCount;
+	}
+
+	/**
+	 * Looks up the node count of a position's subtree of a given depth.
+	 * 
+	 * @return the node count or -1 if it is not stored
+	 */
+	private long probe(long key, int depth)
+	{
+		if (hashTable == null)
+		{
+			return -1;
+		}
+		int entry = 2 * ((int) key & hashMask);
+		long data = hashTable[entry + 1];
+		if (((hashTable[entry] ^ data) == key) && ((data & ((1 << Perft.DEPTH_BITS) - 1)) == depth))
+		{
+			return data >>> Perft.DEPTH_BITS;
+		}
+		return -1;
+	}
+
+	private void store(long key, int depth, long nodeCount)
+	{
+		if (hashTable != null)
+		{
+			int entry = 2 * ((int) key & hashMask);
+			long data = (nodeCount << Perft.DEPTH_BITS) | depth;
+			hashTable[entry] = key ^ data;
+			hashTable[entry + 1] = data;
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes of a subtree in parallel by forking one task per move as long as the remaining depth is large enough.
+	 */
+	private final class PerftTask extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Board board;
+		private final int depth;
+
+		/**
+		 * @param board the board, which is owned by the task
+		 */
+		PerftTask(Board board, int depth)
+		{
+			this.board = board;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute()
+		{
+			GameCalc gameCalc = new GameCalc(board);
+			if (depth < Perft.MIN_SPLIT_DEPTH)
+			{
+				return count(board, gameCalc, MoveList.createPerPly(depth), depth);
+			}
+			MoveList moves = new MoveList();
+			gameCalc.generateMoves(moves);
+			List<PerftTask> tasks = new ArrayList<>();
+			for (int i = 0; i < moves.size(); i++)
+			{
+				Board child = board.clone();
+				child.makeMove(moves.get(i));
+				tasks.add(new PerftTask(child, depth - 1));
+			}
+			long nodeCount = 0;
+			for (PerftTask task : RecursiveTask.invokeAll(tasks))
+			{
+				nodeCount += task.join();
+			}
+			return nodeCount;
+		}
+	}
+}
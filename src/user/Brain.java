@@ -1,25 +1,103 @@
 package user;
 
+import user.schubert.richard.SearchTelemetry;
 import core.Game;
 
 public class Brain
 {
 	private Player owner;
 	private MoveThoughtsThread moveThoughtsThread;
+	private int threadCount = 1;
+	private boolean ponderingEnabled = true;
+	private SearchStrategy strategy = SearchStrategy.ALPHA_BETA;
+	private SearchTelemetry telemetry;
 
 	public Brain(Player owner)
 	{
 		this.owner = owner;
 	}
 
+	/**
+	 * Starts the thread that searches the moves of the owner. A human player does not need one, so nothing happens if the owner is not a computer.
+	 * 
+	 * @param game the game the owner takes part in
+	 */
 	public void startThinking(Game game)
 	{
-		MoveThoughts moveThoughts = new MoveThoughts(game);
+		if (!owner.isComputer())
+		{
+			return;
+		}
+		MoveThoughts moveThoughts = new MoveThoughts(game, owner, threadCount, strategy);
+		moveThoughts.setPonderingEnabled(ponderingEnabled);
+		moveThoughts.setTelemetry(telemetry);
 		moveThoughtsThread = new MoveThoughtsThread(moveThoughts, owner.getName());
 		moveThoughtsThread.setMoveThoughts(moveThoughts);
 		moveThoughtsThread.start();
 	}
 
+	public int getThreadCount()
+	{
+		return threadCount;
+	}
+
+	/**
+	 * Sets the number of threads that search the moves of the owner (see ParallelSearch). It takes effect when the brain starts thinking.
+	 * 
+	 * @param threadCount the number of threads (at least 1)
+	 */
+	public void setThreadCount(int threadCount)
+	{
+		if (threadCount < 1)
+		{
+			throw new IllegalArgumentException("A brain needs at least one thread.");
+		}
+		this.threadCount = threadCount;
+	}
+
+	public SearchStrategy getStrategy()
+	{
+		return strategy;
+	}
+
+	/**
+	 * Sets the engine that searches the moves of the owner. It is SearchStrategy.ALPHA_BETA by default and takes effect when the brain starts
+	 * thinking.
+	 * 
+	 * @param strategy the engine
+	 */
+	public void setStrategy(SearchStrategy strategy)
+	{
+		this.strategy = strategy;
+	}
+
+	public boolean isPonderingEnabled()
+	{
+		return ponderingEnabled;
+	}
+
+	/**
+	 * Switches the pondering on the opponent's time on or off (see MoveThoughts). It is on by default and takes effect when the brain starts
+	 * thinking.
+	 * 
+	 * @param ponderingEnabled True to ponder while the opponent is to move
+	 */
+	public void setPonderingEnabled(boolean ponderingEnabled)
+	{
+		this.ponderingEnabled = ponderingEnabled;
+	}
+
+	/**
+	 * Sets the telemetry the searches of the owner's moves publish their statistics to (see SearchTelemetry). It takes effect when the brain starts
+	 * thinking.
+	 * 
+	 * @param telemetry the telemetry or null to publish nothing
+	 */
+	public void setTelemetry(SearchTelemetry telemetry)
+	{
+		this.telemetry = telemetry;
+	}
+
 	public void requestThinkStop()
 	{
 		if (moveThoughtsThread != null && moveThoughtsThread.isAlive())
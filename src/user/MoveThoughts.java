@@ -1,46 +1,225 @@
 package user;
 
-import core.Game;
+import java.util.concurrent.*;
 
+import user.schubert.richard.*;
+import core.*;
+
+/**
+ * The thoughts of a computer player. While the game is being played they wait for the turn of their owner, search a move by iterative deepening
+ * within the time the owner's clock allows (see TimeManager) and make it in the game. Instead of the alpha-beta search they may use the Monte Carlo
+ * search (see SearchStrategy), which obeys the same time manager and control.
+ * 
+ * While the opponent is to move, the thoughts ponder: they search the position after the reply the last search expected (the second move of its
+ * principal variation) on a thread of their own. If the opponent plays that reply, the pondering search goes on as the search for the owner's move
+ * with the limits of the owner's clock, so the time spent pondering is won. Otherwise it is stopped, and only what it has stored in the
+ * transposition table may still be of use.
+ * 
+ * Stop and pause requests are passed on to the running search (see SearchControl), so a search that is stopped makes no move any more within a few
+ * milliseconds, and a search that is paused parks until it is resumed and then goes on where it left off.
+ */
 public class MoveThoughts implements Runnable
 {
-	private boolean thinkStopRequested;
-	private boolean thinkPauseRequested;
+	/**
+	 * The depth at which the search stops even if there is time left.
+	 */
+	private static final int MAX_DEPTH = 64;
+	/**
+	 * The time to wait before looking at the game again while it is not the owner's turn (in milliseconds).
+	 */
+	private static final long IDLE_TIME = 20;
+
+	private volatile boolean thinkStopRequested;
+	private volatile boolean thinkPauseRequested;
+	/**
+	 * The control of the running search, the search for the owner's move or the pondering search, or null.
+	 */
+	private volatile SearchControl control;
 	private boolean isThinking;
 	private boolean isPaused;
 	private Game game;
+	private final Player owner;
+	private final PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+	/**
+	 * The table of the alpha-beta search, or null if the moves are searched by the Monte Carlo search, which needs none.
+	 */
+	private final TranspositionTable transpositionTable;
+	/**
+	 * The alpha-beta search, or null if the moves are searched by the Monte Carlo search.
+	 */
+	private final ParallelSearch search;
+	/**
+	 * The Monte Carlo search, or null if the moves are searched by the alpha-beta search.
+	 */
+	private final MonteCarloSearch monteCarloSearch;
+	private final ExecutorService ponderer;
+	private boolean ponderingEnabled = true;
+	/**
+	 * The position after the expected reply of the opponent or null if there is nothing to ponder. It is only used by the thread of the thoughts,
+	 * like the two fields below.
+	 */
+	private Board ponderBoard;
+	private TimeManager ponderTimeManager;
+	private Future<SearchResult> ponderResult;
 
-	public MoveThoughts(Game game)
+	/**
+	 * Creates the thoughts of a computer player.
+	 * 
+	 * @param game the game the owner takes part in
+	 * @param owner the player whose moves are searched
+	 * @param threadCount the number of threads the search runs on
+	 */
+	public MoveThoughts(Game game, Player owner, int threadCount)
+	{
+		this(game, owner, threadCount, SearchStrategy.ALPHA_BETA);
+	}
+
+	/**
+	 * Creates the thoughts of a computer player.
+	 * 
+	 * @param game the game the owner takes part in
+	 * @param owner the player whose moves are searched
+	 * @param threadCount the number of threads the search runs on
+	 * @param strategy the engine that searches the moves
+	 */
+	public MoveThoughts(Game game, Player owner, int threadCount, SearchStrategy strategy)
 	{
 		this.game = game;
+		this.owner = owner;
+		if (strategy == SearchStrategy.MONTE_CARLO)
+		{
+			transpositionTable = null;
+			search = null;
+			monteCarloSearch = new MonteCarloSearch(evaluator, threadCount);
+		}
+		else
+		{
+			transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE);
+			search = new ParallelSearch(evaluator, transpositionTable, threadCount);
+			monteCarloSearch = null;
+		}
+		ponderer = Executors.newSingleThreadExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, owner.getName() + " pondering");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
 	@Override
 	public void run()
 	{
-		isThinking = true;
-
-		isThinking = false;
+		while (!isThinkStopRequested())
+		{
+			setPaused(isThinkPauseRequested());
+			boolean mayThink = !isPaused() && game.isBeingPlayed() && !game.isPaused();
+			if (mayThink && (game.getPlayerToMove() == owner))
+			{
+				setThinking(true);
+				makeMove();
+				setThinking(false);
+			}
+			else
+			{
+				if (!game.isBeingPlayed())
+				{
+					stopPondering();
+				}
+				else if (mayThink && (ponderBoard != null) && (ponderResult == null) && isPonderingEnabled())
+				{
+					startPondering();
+				}
+				try
+				{
+					Thread.sleep(MoveThoughts.IDLE_TIME);
+				}
+				catch (InterruptedException e)
+				{
+					break;
+				}
+			}
+		}
+		stopPondering();
+		ponderer.shutdownNow();
+		if (search != null)
+		{
+			search.shutdown();
+		}
+		else
+		{
+			monteCarloSearch.shutdown();
+		}
+		setThinking(false);
 	}
 
-	public synchronized boolean isThinkStopRequested()
+	public boolean isThinkStopRequested()
 	{
 		return thinkStopRequested;
 	}
 
-	public synchronized void setThinkStopRequested(boolean thinkStopRequested)
+	/**
+	 * Requests the thoughts to stop. A running search is stopped as well (see SearchControl.stop), and its move is not made.
+	 * 
+	 * @param thinkStopRequested True to stop
+	 */
+	public void setThinkStopRequested(boolean thinkStopRequested)
 	{
 		this.thinkStopRequested = thinkStopRequested;
+		SearchControl runningControl = control;
+		if (thinkStopRequested && (runningControl != null))
+		{
+			runningControl.stop();
+		}
 	}
 
-	public synchronized boolean isThinkPauseRequested()
+	public synchronized boolean isPonderingEnabled()
+	{
+		return ponderingEnabled;
+	}
+
+	/**
+	 * Switches the pondering on the opponent's time on or off. It is on by default. Switching it off does not stop a pondering search that is
+	 * already running.
+	 * 
+	 * @param ponderingEnabled True to ponder while the opponent is to move
+	 */
+	public synchronized void setPonderingEnabled(boolean ponderingEnabled)
+	{
+		this.ponderingEnabled = ponderingEnabled;
+	}
+
+	public boolean isThinkPauseRequested()
 	{
 		return thinkPauseRequested;
 	}
 
-	public synchronized void setThinkPauseRequested(boolean thinkPauseRequested)
+	/**
+	 * Requests the thoughts to pause or to go on. A running search is paused or resumed as well (see SearchControl.pause).
+	 * 
+	 * @param thinkPauseRequested True to pause, false to go on
+	 */
+	public void setThinkPauseRequested(boolean thinkPauseRequested)
 	{
 		this.thinkPauseRequested = thinkPauseRequested;
+		SearchControl runningControl = control;
+		if (runningControl != null)
+		{
+			MoveThoughts.applyPauseRequest(runningControl, thinkPauseRequested);
+		}
+	}
+
+	/**
+	 * Sets the telemetry the searches of the thoughts, including the pondering searches, publish the statistics of their iterations to. The Monte
+	 * Carlo search has no iterations and publishes nothing.
+	 * 
+	 * @param telemetry the telemetry or null to publish nothing
+	 */
+	public void setTelemetry(SearchTelemetry telemetry)
+	{
+		if (search != null)
+		{
+			search.setTelemetry(telemetry);
+		}
 	}
 
 	/**
@@ -54,9 +233,169 @@ public class MoveThoughts implements Runnable
 		return isThinking;
 	}
 
+	/**
+	 * Checks if the thoughts are paused: they wait for the pause to end, or their search is parked.
+	 * 
+	 * @return True if the thoughts are paused, otherwise false.
+	 */
 	public synchronized boolean isPaused()
 	{
-		return isPaused;
+		SearchControl runningControl = control;
+		return isPaused || ((runningControl != null) && runningControl.isPaused());
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private synchronized void setThinking(boolean isThinking)
+	{
+		this.isThinking = isThinking;
+	}
+
+	private synchronized void setPaused(boolean isPaused)
+	{
+		this.isPaused = isPaused;
+	}
+
+	/**
+	 * Searches a move for the owner on a copy of the board and makes it in the game. Pawns are always promoted to queens. If the pondering search
+	 * has searched the current position, its result is taken instead.
+	 */
+	private void makeMove()
+	{
+		long remainingTime = game.chessClock.getRemainingTime(owner.getColor());
+		int moveNumber = game.gameCourse.getMoveCount() / 2 + 1;
+		SearchResult result = finishPondering(remainingTime, moveNumber);
+		if (result == null)
+		{
+			result = runSearch(game.board, new TimeManager(remainingTime, moveNumber), createControl());
+			control = null;
+		}
+		Move move = result.getBestMove(game.board);
+		if (move == null)
+		{
+			// checkmate or stalemate: there is nothing left to think about
+			setThinkStopRequested(true);
+			return;
+		}
+		int[] principalVariation = result.getPrincipalVariation();
+		if (principalVariation.length >= 2)
+		{
+			ponderBoard = game.board.clone();
+			ponderBoard.makeMove(principalVariation[0]);
+			ponderBoard.makeMove(principalVariation[1]);
+		}
+		if (!isThinkStopRequested() && game.isBeingPlayed())
+		{
+			game.update(owner, move, PromotionChoice.QUEEN);
+		}
+	}
+
+	/**
+	 * Starts a search of the position after the expected reply of the opponent on the thread of the ponderer.
+	 */
+	private void startPondering()
+	{
+		Board board = ponderBoard;
+		TimeManager timeManager = TimeManager.createForPondering();
+		SearchControl ponderControl = createControl();
+		ponderTimeManager = timeManager;
+		ponderResult = ponderer.submit(() -> runSearch(board, timeManager, ponderControl));
+	}
+
+	/**
+	 * Searches a position with the engine of the thoughts.
+	 */
+	private SearchResult runSearch(Board board, TimeManager timeManager, SearchControl searchControl)
+	{
+		if (search != null)
+		{
+			transpositionTable.newSearch();
+			return search.search(board, timeManager, MoveThoughts.MAX_DEPTH, searchControl);
+		}
+		return monteCarloSearch.search(board, timeManager, searchControl);
+	}
+
+	/**
+	 * Creates the control of a new search and makes it the control of the running search. Requests that came in before are applied to it.
+	 */
+	private SearchControl createControl()
+	{
+		SearchControl newControl = new SearchControl();
+		control = newControl;
+		// a request that comes in from now on is applied by its setter, and one that came in before by these lines
+		MoveThoughts.applyPauseRequest(newControl, isThinkPauseRequested());
+		if (isThinkStopRequested())
+		{
+			newControl.stop();
+		}
+		return newControl;
+	}
+
+	private static void applyPauseRequest(SearchControl control, boolean thinkPauseRequested)
+	{
+		if (thinkPauseRequested)
+		{
+			control.pause();
+		}
+		else
+		{
+			control.resume();
+		}
+	}
+
+	/**
+	 * Ends the pondering when the owner is to move. If the opponent has played the expected reply, the pondering search continues within the limits
+	 * of the owner's clock and its result is returned. Otherwise it is stopped.
+	 * 
+	 * @return the result of the pondering search or null if it has not searched the current position
+	 */
+	private SearchResult finishPondering(long remainingTime, int moveNumber)
+	{
+		boolean isPonderHit = (ponderResult != null) && (game.board.getZobristKey() == ponderBoard.getZobristKey());
+		if (isPonderHit)
+		{
+			ponderTimeManager.ponderHit(remainingTime, moveNumber);
+		}
+		SearchResult result = stopPondering();
+		ponderBoard = null;
+		return isPonderHit ? result : null;
+	}
+
+	/**
+	 * Waits for the pondering search to end. If it is still pondering, it is stopped.
+	 * 
+	 * @return the result of the pondering search or null if there is none
+	 */
+	private SearchResult stopPondering()
+	{
+		if (ponderResult == null)
+		{
+			return null;
+		}
+		if (ponderTimeManager.isPondering())
+		{
+			// the control wakes the search up if it is paused
+			control.stop();
+		}
+		try
+		{
+			return ponderResult.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("The pondering search failed.", e.getCause());
+		}
+		finally
+		{
+			ponderResult = null;
+			ponderTimeManager = null;
+			control = null;
+		}
 	}
 
 }
@@ -7,12 +7,26 @@ public final class Player
 {
 	private final String name;
 	private final ChessColor color;
+	private final boolean isComputer;
 	private final Brain brain;
 
 	public Player(String name, ChessColor color)
+	{
+		this(name, color, false);
+	}
+
+	/**
+	 * Creates a player.
+	 * 
+	 * @param name the name of the player
+	 * @param color the color the player plays
+	 * @param isComputer True if the moves of the player are searched by its brain, false if they are made by a human on the board.
+	 */
+	public Player(String name, ChessColor color, boolean isComputer)
 	{
 		this.name = name;
 		this.color = color;
+		this.isComputer = isComputer;
 		brain = new Brain(this);
 	}
 
@@ -36,6 +50,11 @@ public final class Player
 		brain.requestThinkStop();
 	}
 
+	public boolean isComputer()
+	{
+		return isComputer;
+	}
+
 	public Brain getBrain()
 	{
 		return brain;
@@ -0,0 +1,16 @@
+package user;
+
+/**
+ * The engines a brain can search the moves of its owner with (see Brain.setStrategy).
+ */
+public enum SearchStrategy
+{
+	/**
+	 * Iterative deepening alpha-beta search on a shared transposition table (see ParallelSearch).
+	 */
+	ALPHA_BETA,
+	/**
+	 * Monte Carlo tree search with tree-parallel playouts (see MonteCarloSearch).
+	 */
+	MONTE_CARLO
+}
@@ -6,14 +6,24 @@ import core.*;
 
 public class Calc
 {
-	public static Set<Move> getPossibleMoves(Board board, GameCourse gameCourse, ChessColor playerColor)
+	/**
+	 * Returns the legal moves of a player. Only the player whose color is to move has moves (see GameCalc.getTargetSquares).
+	 * 
+	 * @param board the board containing the position
+	 * @param playerColor the color of the player
+	 * @return the legal moves of the player, which are none if the color of the player is not to move
+	 */
+	public static Set<Move> getPossibleMoves(Board board, ChessColor playerColor)
 	{
+		Set<Move> moves = new HashSet<>();
+		if (playerColor != board.getPosition().getColorToMove())
+		{
+			return moves;
+		}
 
-		GameCalc gameCalc = new GameCalc(board, gameCourse);
+		GameCalc gameCalc = new GameCalc(board);
 		Set<Square> myPiecesSquares = board.getSquaresWithPiecesOfColor(playerColor);
 
-		Set<Move> moves = new HashSet<>();
-
 		myPiecesSquares.stream().forEach(square ->
 		{
 
@@ -26,43 +36,18 @@ public class Calc
 		return moves;
 	}
 
-	public static Move getBestMove(Board board, GameCourse gameCourse, ChessColor playerToMove)
+	/**
+	 * Searches the best move for the color to move with an alpha-beta search (see Search). The search runs on a copy of the board, so the given board
+	 * is not changed.
+	 * 
+	 * @param board the board containing the position
+	 * @param depth the depth of the search in plies
+	 * @return the best move (its squares belong to the given board) or null if the color to move has no legal move
+	 */
+	public static Move getBestMove(Board board, int depth)
 	{
-
-		PositionEvaluator pieceDefaultValueEvaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
-
-		LinkedList<MoveNode> moveNodeQueue = new LinkedList<>();
-		MoveNode pastMoveNode = new MoveNode(board, playerToMove.getOpposite(), pieceDefaultValueEvaluator);
-		moveNodeQueue.add(pastMoveNode);
-
-		while (true)
-		{
-			MoveNode lastMoveNode = moveNodeQueue.pop();
-
-			ChessColor movingPlayerColor = lastMoveNode.getMovingPlayerColor().getOpposite();
-			Set<Move> possibleMoves = getPossibleMoves(lastMoveNode.getBoardAfterMove(), gameCourse, lastMoveNode.getMovingPlayerColor());
-
-			possibleMoves.stream().forEach(move ->
-			{
-				lastMoveNode.addChild(lastMoveNode.getBoardAfterMove(), move, pieceDefaultValueEvaluator);
-			});
-		}
-
-		Set<MoveNode> moveNodes = new HashSet<>();
-
-		possibleMoves.stream().forEach(move ->
-		{
-			MoveNode moveNode = new MoveNode(board, move, pieceDefaultValueEvaluator);
-			moveNodes.add(moveNode);
-		});
-
-		moveNodes.stream().forEach(moveNode ->
-		{
-			Set<Move> possibleMoves2 = getPossibleMoves(playerColor.getOpposite());
-
-		});
-
-		return null;
+		Search search = new Search(board.clone(), PositionEvaluatorFactory.createPieceDefaultValueEvaluator());
+		return search.search(depth).getBestMove(board);
 	}
 
 	/* ------------------------------------------------ STATIC METHODS ------------------------------------------------ */
@@ -0,0 +1,224 @@
+package user.schubert.richard;
+
+import java.util.*;
+
+import core.*;
+
+/**
+ * Finds forced mates, for example to validate "mate in N" puzzles. It is an AND/OR search on top of GameCalc: at the OR nodes the color to move at
+ * the root (the attacker) only tries its checking moves, and one of them has to mate; at the AND nodes the defender tries all its evasions, and
+ * all of them have to be mated. Since every attacker move is a check, the defender's moves are few, and the tree is much smaller than that of a
+ * full-width search. Mates that need a quiet move of the attacker are not found.
+ * 
+ * The search deepens one move at a time, so the first mate found is the shortest one. The returned line is exact: the attacker takes the
+ * shortest mate and the defender the evasion that delays it longest. Checks are tried in the order of the number of evasions they leave, the
+ * fewest first, as in proof-number search.
+ */
+public final class MateSearch
+{
+	/**
+	 * The number of moves of the attacker the search looks for a mate within at most.
+	 */
+	public static final int MAX_MOVES = (Search.MAX_PLY - 1) / 2;
+
+	/**
+	 * The distance returned if no mate has been found within the bound.
+	 */
+	private static final int NO_MATE = Integer.MAX_VALUE;
+
+	private final Board board;
+	private final GameCalc gameCalc;
+	private final MoveList[] moveLists = MoveList.createPerPly(Search.MAX_PLY);
+	/**
+	 * The triangular table of the mating lines, like that of Search.
+	 */
+	private final int[] lines = new int[Search.MAX_PLY * Search.MAX_PLY];
+	private final int[] lineEnds = new int[Search.MAX_PLY];
+	private long nodeCount;
+	private SearchControl control = new SearchControl();
+	private boolean aborted;
+
+	/**
+	 * Creates a mate search on a board. The board is changed during the search and restored when the search returns.
+	 * 
+	 * @param board the board containing the position to be searched. The color to move is the attacker.
+	 */
+	public MateSearch(Board board)
+	{
+		this.board = board;
+		gameCalc = new GameCalc(board);
+	}
+
+	/**
+	 * Searches the shortest forced mate by checks of the color to move.
+	 * 
+	 * @param maxMoves the number of moves of the attacker the mate has to be delivered within (between 1 and MAX_MOVES)
+	 * @return the first move of the mate, the mate score (see Search.MATE_SCORE), the number of plies to the mate as depth, the node count and the
+	 *         mating line. If there is no such mate or the search has been stopped, the move is PackedMove.NONE, the score 0 and the line empty.
+	 */
+	public SearchResult search(int maxMoves)
+	{
+		if ((maxMoves < 1) || (maxMoves > MateSearch.MAX_MOVES))
+		{
+			throw new IllegalArgumentException("A mate search looks for a mate within 1 to " + MateSearch.MAX_MOVES + " moves.");
+		}
+		nodeCount = 1;
+		aborted = false;
+		for (int moves = 1; (moves <= maxMoves) && !aborted; moves++)
+		{
+			int distance = attack(2 * moves - 1, 0);
+			if ((distance != MateSearch.NO_MATE) && !aborted)
+			{
+				int[] line = Arrays.copyOfRange(lines, 0, lineEnds[0]);
+				return new SearchResult(line[0], Search.MATE_SCORE - distance, distance, nodeCount, line);
+			}
+		}
+		return new SearchResult(PackedMove.NONE, 0, 0, nodeCount, new int[0]);
+	}
+
+	/**
+	 * Returns the number of positions visited by the current or last search.
+	 * 
+	 * @return the node count
+	 */
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Stops the search as soon as possible (see SearchControl.stop). It may be called by any thread.
+	 */
+	public void stop()
+	{
+		control.stop();
+	}
+
+	/**
+	 * Sets the control by which other threads stop the search. It must not be called while the search is running.
+	 * 
+	 * @param control the control
+	 */
+	public void setControl(SearchControl control)
+	{
+		this.control = control;
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	/**
+	 * Searches an OR node: the attacker is to move.
+	 * 
+	 * @param depth the number of plies the mate has to be delivered within (odd)
+	 * @return the number of plies to the shortest mate by checks or NO_MATE
+	 */
+	private int attack(int depth, int ply)
+	{
+		lineEnds[ply] = ply;
+		MoveList moves = moveLists[ply];
+		gameCalc.generateMoves(moves);
+		int checkCount = 0;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = moves.get(i);
+			board.makeMove(move);
+			nodeCount++;
+			if (gameCalc.isInCheck())
+			{
+				if (!gameCalc.hasLegalMove())
+				{
+					board.unmakeMove();
+					lineEnds[ply + 1] = ply + 1;
+					updateLine(ply, move);
+					return 1;
+				}
+				// only the checks are kept, scored so that the fewer evasions they leave the earlier they are tried
+				moves.swap(checkCount, i);
+				moves.setScore(checkCount++, (depth > 1) ? -gameCalc.generateMoves(moveLists[ply + 1]) : 0);
+			}
+			board.unmakeMove();
+		}
+		if ((depth == 1) || isAborted())
+		{
+			return MateSearch.NO_MATE;
+		}
+		while (moves.size() > checkCount)
+		{
+			moves.remove(moves.size() - 1);
+		}
+
+		int bestDistance = MateSearch.NO_MATE;
+		for (int i = 0; (i < moves.size()) && (depth >= 3); i++)
+		{
+			int move = MoveOrdering.pickMove(moves, i);
+			board.makeMove(move);
+			int distance = defend(depth - 1, ply + 1);
+			board.unmakeMove();
+			if (aborted)
+			{
+				return MateSearch.NO_MATE;
+			}
+			if (distance != MateSearch.NO_MATE)
+			{
+				bestDistance = distance + 1;
+				updateLine(ply, move);
+				// only a shorter mate may replace this one
+				depth = bestDistance - 2;
+			}
+		}
+		return bestDistance;
+	}
+
+	/**
+	 * Searches an AND node: the defender is to move and in check.
+	 * 
+	 * @param depth the number of plies the defender has to be mated within (even)
+	 * @return the number of plies to the mate after the evasion that delays it longest, or NO_MATE if an evasion escapes the mate
+	 */
+	private int defend(int depth, int ply)
+	{
+		lineEnds[ply] = ply;
+		MoveList moves = moveLists[ply];
+		if (gameCalc.generateMoves(moves) == 0)
+		{
+			return 0;
+		}
+		int longestDistance = 0;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = moves.get(i);
+			board.makeMove(move);
+			nodeCount++;
+			int distance = attack(depth - 1, ply + 1);
+			board.unmakeMove();
+			if ((distance == MateSearch.NO_MATE) || aborted)
+			{
+				return MateSearch.NO_MATE;
+			}
+			if (distance + 1 > longestDistance)
+			{
+				longestDistance = distance + 1;
+				updateLine(ply, move);
+			}
+		}
+		return longestDistance;
+	}
+
+	/**
+	 * Sets the line of a ply to a move followed by the line of the next ply.
+	 */
+	private void updateLine(int ply, int move)
+	{
+		int start = ply * Search.MAX_PLY;
+		lines[start + ply] = move;
+		int childLength = lineEnds[ply + 1] - (ply + 1);
+		System.arraycopy(lines, (ply + 1) * Search.MAX_PLY + ply + 1, lines, start + ply + 1, childLength);
+		lineEnds[ply] = ply + 1 + childLength;
+	}
+
+	private boolean isAborted()
+	{
+		aborted = aborted || control.isStopRequested();
+		return aborted;
+	}
+}
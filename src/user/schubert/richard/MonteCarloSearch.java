@@ -0,0 +1,575 @@
+package user.schubert.richard;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import core.*;
+
+/**
+ * A Monte Carlo tree search (MCTS), the alternative to the alpha-beta Search. Every iteration walks down the tree from the root by PUCT selection
+ * (the average value of a child plus an exploration bonus that grows with its prior and shrinks with its visits), expands the leaf it reaches,
+ * evaluates the leaf by a playout (see Playout) and adds the value to all nodes of the path. The best move is the most visited move of the root.
+ * Without a policy network the priors come from the evaluator: a softmax over the scores of the positions after the moves.
+ * 
+ * The tree lives in an arena of parallel arrays that is allocated once, so a search creates no objects per node: a node is an index, the children
+ * of a node are stored next to each other, and a node only keeps its move, its first child, its child count, its prior, its visits and the sum of
+ * its values. The values are those of the color that made the move of the node, between -1 (lost) and 1 (won). The positions of the nodes are
+ * not stored; every iteration replays the moves of its path on a board of its own.
+ * 
+ * With several threads the search is tree-parallel: all threads walk the same tree. A thread adds a virtual loss to every node of its path on the
+ * way down and takes it back with the real value on the way up, so that the other threads prefer other paths in the meantime. The expansion of a
+ * node is claimed by one thread through an atomic state; the statistics are plain floats that are updated without locking, because an update
+ * lost now and then only blurs them a little.
+ */
+public final class MonteCarloSearch
+{
+	/**
+	 * The number of nodes the arena holds if no other capacity is requested (about 24 MB).
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	/**
+	 * The ways of evaluating the leaf reached by an iteration.
+	 */
+	public enum Playout
+	{
+		/**
+		 * The evaluator judges the leaf after a quiescence search of its captures (see Search.evaluateQuietly).
+		 */
+		EVALUATOR,
+		/**
+		 * Random legal moves are played from the leaf until the game ends or MAX_PLAYOUT_PLIES have been played, then the evaluator judges the
+		 * position.
+		 */
+		RANDOM
+	}
+
+	/**
+	 * The maximum length of a random playout in plies.
+	 */
+	public static final int MAX_PLAYOUT_PLIES = 40;
+	/**
+	 * The weight of the exploration bonus of PUCT selection.
+	 */
+	private static final float EXPLORATION = 1.5f;
+	/**
+	 * The value of an unvisited child is the value of its parent reduced by this amount, so the children with a high prior are tried first.
+	 */
+	private static final float FIRST_PLAY_REDUCTION = 0.2f;
+	/**
+	 * The visits an iteration adds to every node of its path until it knows the value (each counting as a loss).
+	 */
+	private static final float VIRTUAL_LOSS = 1;
+	/**
+	 * The score in centipawns that is worth a value of tanh(1), about 0.76.
+	 */
+	private static final double VALUE_SCALE = 400;
+	/**
+	 * The temperature of the softmax that turns the scores of the moves into priors (in centipawns).
+	 */
+	private static final double PRIOR_TEMPERATURE = 100;
+	/**
+	 * The greatest value converted into a score that is not a mate score.
+	 */
+	private static final double MAX_SCORED_VALUE = 0.999;
+	private static final int ROOT = 0;
+	private static final int UNEXPANDED = 0;
+	private static final int EXPANDING = 1;
+	private static final int EXPANDED = 2;
+
+	private final PositionEvaluator evaluator;
+	private final int threadCount;
+	private final ExecutorService workerPool;
+	private final int capacity;
+	private final int[] moves;
+	private final int[] firstChildren;
+	private final short[] childCounts;
+	private final float[] priors;
+	private final float[] visits;
+	private final float[] values;
+	/**
+	 * The expansion states of the nodes. Setting a node to EXPANDED publishes its children to the other threads.
+	 */
+	private final AtomicIntegerArray states;
+	/**
+	 * The number of nodes allocated in the arena. It may exceed the capacity once the arena is full.
+	 */
+	private final AtomicInteger allocatedCount = new AtomicInteger();
+	private final LongAdder nodeCounter = new LongAdder();
+	private volatile boolean finished;
+	private Playout playout = Playout.EVALUATOR;
+	private long nodeLimit = Long.MAX_VALUE;
+
+	/**
+	 * Creates a search with an arena of DEFAULT_CAPACITY nodes.
+	 * 
+	 * @param evaluator the evaluator used for the priors and the playouts
+	 * @param threadCount the number of threads including the calling thread (at least 1)
+	 */
+	public MonteCarloSearch(PositionEvaluator evaluator, int threadCount)
+	{
+		this(evaluator, threadCount, MonteCarloSearch.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a search and allocates its arena.
+	 * 
+	 * @param evaluator the evaluator used for the priors and the playouts
+	 * @param threadCount the number of threads including the calling thread (at least 1)
+	 * @param capacity the number of nodes the arena holds (more than MoveList.CAPACITY). When it is full, the leaves are no longer expanded, but
+	 *            the search goes on.
+	 */
+	public MonteCarloSearch(PositionEvaluator evaluator, int threadCount, int capacity)
+	{
+		if (threadCount < 1)
+		{
+			throw new IllegalArgumentException("A search needs at least one thread.");
+		}
+		if (capacity <= MoveList.CAPACITY)
+		{
+			throw new IllegalArgumentException("The arena must hold more than " + MoveList.CAPACITY + " nodes.");
+		}
+		this.evaluator = evaluator;
+		this.threadCount = threadCount;
+		this.capacity = capacity;
+		moves = new int[capacity];
+		firstChildren = new int[capacity];
+		childCounts = new short[capacity];
+		priors = new float[capacity];
+		visits = new float[capacity];
+		values = new float[capacity];
+		states = new AtomicIntegerArray(capacity);
+		if (threadCount > 1)
+		{
+			workerPool = Executors.newFixedThreadPool(threadCount - 1, runnable ->
+			{
+				Thread thread = new Thread(runnable, "Playout worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		else
+		{
+			workerPool = null;
+		}
+	}
+
+	/**
+	 * Searches the best move for the color to move on all threads. The board is not changed.
+	 * 
+	 * @param board the board containing the position to be searched
+	 * @param timeManager decides when the search stops, or null to stop only at the node limit or when the search is stopped
+	 * @return the most visited move and its score
+	 */
+	public SearchResult search(Board board, TimeManager timeManager)
+	{
+		return search(board, timeManager, new SearchControl());
+	}
+
+	/**
+	 * Searches the best move for the color to move on all threads until the soft limit of the time manager or the node limit is reached. The root
+	 * is always expanded, so a move is found even if the time is very short. The board is not changed.
+	 * 
+	 * @param board the board containing the position to be searched
+	 * @param timeManager decides when the search stops, or null to stop only at the node limit or when the search is stopped
+	 * @param control stops or pauses all threads of the search
+	 * @return the most visited move and its score. The principal variation follows the most visited children, and the depth is its length. The
+	 *         move is PackedMove.NONE if the color to move has no legal move.
+	 */
+	public SearchResult search(Board board, TimeManager timeManager, SearchControl control)
+	{
+		allocatedCount.set(1);
+		initNode(MonteCarloSearch.ROOT, PackedMove.NONE, 1);
+		nodeCounter.reset();
+		finished = false;
+
+		Worker mainWorker = new Worker(board.clone(), 0);
+		states.set(MonteCarloSearch.ROOT, MonteCarloSearch.EXPANDING);
+		int rootMoveCount = mainWorker.expand(MonteCarloSearch.ROOT);
+		// the iterations reset the node count of the worker
+		nodeCounter.add(mainWorker.nodeCount);
+		if (rootMoveCount == 0)
+		{
+			int score = mainWorker.gameCalc.isInCheck() ? -Search.MATE_SCORE : 0;
+			return new SearchResult(PackedMove.NONE, score, 0, 0, new int[0]);
+		}
+		List<Future<?>> workerResults = new ArrayList<>();
+		for (int workerIndex = 1; workerIndex < threadCount; workerIndex++)
+		{
+			Worker worker = new Worker(board.clone(), workerIndex);
+			workerResults.add(workerPool.submit(() -> worker.run(timeManager, control, false)));
+		}
+		mainWorker.run(timeManager, control, true);
+		finished = true;
+		for (Future<?> workerResult : workerResults)
+		{
+			try
+			{
+				workerResult.get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException e)
+			{
+				throw new IllegalStateException("A playout worker failed.", e.getCause());
+			}
+		}
+		return createResult();
+	}
+
+	/**
+	 * Sets the way the leaves are evaluated. It must not be called while the search is running. It is Playout.EVALUATOR by default.
+	 * 
+	 * @param playout the way of evaluating the leaves
+	 */
+	public void setPlayout(Playout playout)
+	{
+		this.playout = playout;
+	}
+
+	/**
+	 * Limits the number of nodes the search visits: the positions reached by the moves of the paths, by the evaluation of the priors and by the
+	 * playouts, counted the way Search counts its nodes, so both engines can be compared under equal node budgets. It is not limited by default.
+	 * 
+	 * @param nodeLimit the maximum node count of all threads together (at least 1)
+	 */
+	public void setNodeLimit(long nodeLimit)
+	{
+		if (nodeLimit < 1)
+		{
+			throw new IllegalArgumentException("The node limit must be at least 1.");
+		}
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Returns the number of nodes in the tree of the current or last search.
+	 * 
+	 * @return the tree size, at most the capacity of the arena
+	 */
+	public int getTreeSize()
+	{
+		return Math.min(allocatedCount.get(), capacity);
+	}
+
+	public int getThreadCount()
+	{
+		return threadCount;
+	}
+
+	/**
+	 * Stops the threads of the workers. The search must not be used afterwards.
+	 */
+	public void shutdown()
+	{
+		if (workerPool != null)
+		{
+			workerPool.shutdownNow();
+		}
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private void initNode(int node, int move, float prior)
+	{
+		moves[node] = move;
+		firstChildren[node] = -1;
+		childCounts[node] = 0;
+		priors[node] = prior;
+		visits[node] = 0;
+		values[node] = 0;
+		states.set(node, MonteCarloSearch.UNEXPANDED);
+	}
+
+	private boolean isLeaf(int node)
+	{
+		return (states.get(node) != MonteCarloSearch.EXPANDED) || (childCounts[node] == 0);
+	}
+
+	/**
+	 * Returns the most visited child of an expanded node or, if none has been visited, the child with the highest prior.
+	 */
+	private int getMostVisitedChild(int node)
+	{
+		int bestChild = firstChildren[node];
+		for (int child = bestChild + 1; child < firstChildren[node] + childCounts[node]; child++)
+		{
+			if ((visits[child] > visits[bestChild]) || ((visits[child] == visits[bestChild]) && (priors[child] > priors[bestChild])))
+			{
+				bestChild = child;
+			}
+		}
+		return bestChild;
+	}
+
+	private SearchResult createResult()
+	{
+		int[] principalVariation = new int[Search.MAX_PLY];
+		int length = 0;
+		int node = MonteCarloSearch.ROOT;
+		while (!isLeaf(node) && (length < Search.MAX_PLY))
+		{
+			node = getMostVisitedChild(node);
+			if ((length > 0) && (visits[node] <= 0))
+			{
+				break;
+			}
+			principalVariation[length++] = moves[node];
+		}
+
+		int bestChild = getMostVisitedChild(MonteCarloSearch.ROOT);
+		double value = (visits[bestChild] > 0) ? values[bestChild] / visits[bestChild] : 0;
+		int score;
+		if ((states.get(bestChild) == MonteCarloSearch.EXPANDED) && (childCounts[bestChild] == 0) && (value > 0))
+		{
+			// the move checkmates
+			score = Search.MATE_SCORE - 1;
+		}
+		else
+		{
+			value = Math.max(-MonteCarloSearch.MAX_SCORED_VALUE, Math.min(MonteCarloSearch.MAX_SCORED_VALUE, value));
+			score = (int) Math.round(MonteCarloSearch.VALUE_SCALE * 0.5 * Math.log((1 + value) / (1 - value)));
+		}
+		return new SearchResult(moves[bestChild], score, length, nodeCounter.sum(), Arrays.copyOf(principalVariation, length));
+	}
+
+	private static float toValue(int score)
+	{
+		return (float) Math.tanh(score / MonteCarloSearch.VALUE_SCALE);
+	}
+
+	/**
+	 * The iterations of one thread on a board of its own.
+	 */
+	private final class Worker
+	{
+		private final Board board;
+		private final GameCalc gameCalc;
+		private final MoveList moveList = new MoveList();
+		/**
+		 * The scores of the moves of the node being expanded.
+		 */
+		private final double[] scores = new double[MoveList.CAPACITY];
+		/**
+		 * The nodes of the path of the current iteration, indexed by ply.
+		 */
+		private final int[] path = new int[Search.MAX_PLY];
+		/**
+		 * Evaluates the leaves by a quiescence search, or null for random playouts.
+		 */
+		private final Search quiescence;
+		private long random;
+		/**
+		 * The nodes visited by the current iteration.
+		 */
+		private long nodeCount;
+
+		private Worker(Board board, int workerIndex)
+		{
+			this.board = board;
+			gameCalc = new GameCalc(board);
+			quiescence = (playout == Playout.EVALUATOR) ? new Search(board, evaluator) : null;
+			random = (workerIndex + 1) * 0x9E3779B97F4A7C15L;
+		}
+
+		/**
+		 * Runs iterations until the search has to stop. Only the main worker, the one on the calling thread, excludes pauses from the time.
+		 */
+		private void run(TimeManager timeManager, SearchControl control, boolean isMainWorker)
+		{
+			while (!finished && !control.isStopRequested() && (nodeCounter.sum() < nodeLimit) && ((timeManager == null)
+					|| ((timeManager.getElapsedTime() < timeManager.getSoftLimit()) && !timeManager.isHardLimitReached())))
+			{
+				if (control.isPauseRequested())
+				{
+					long pauseStart = System.nanoTime();
+					control.awaitResume();
+					if (isMainWorker && (timeManager != null))
+					{
+						timeManager.excludePause(System.nanoTime() - pauseStart);
+					}
+					continue;
+				}
+				iterate();
+			}
+		}
+
+		/**
+		 * Selects a path down to a leaf, expands the leaf, evaluates it and backs the value up.
+		 */
+		private void iterate()
+		{
+			nodeCount = 0;
+			int node = MonteCarloSearch.ROOT;
+			int ply = 0;
+			path[0] = node;
+			addVirtualLoss(node);
+			while (!isLeaf(node) && (ply < Search.MAX_PLY - 1))
+			{
+				node = selectChild(node);
+				board.makeMove(moves[node]);
+				nodeCount++;
+				path[++ply] = node;
+				addVirtualLoss(node);
+			}
+
+			int moveCount = -1;
+			if ((states.get(node) == MonteCarloSearch.UNEXPANDED) && (allocatedCount.get() < capacity)
+					&& states.compareAndSet(node, MonteCarloSearch.UNEXPANDED, MonteCarloSearch.EXPANDING))
+			{
+				moveCount = expand(node);
+			}
+			if (moveCount < 0)
+			{
+				moveCount = gameCalc.generateMoves(moveList);
+			}
+			float value = (moveCount == 0) ? getValueWithoutMoves() : playOut();
+
+			// the value of a node is that of the color that made its move, the opponent of the color to move in its position
+			value = -value;
+			for (int i = ply; i >= 0; i--)
+			{
+				int pathNode = path[i];
+				visits[pathNode] += 1 - MonteCarloSearch.VIRTUAL_LOSS;
+				values[pathNode] += value + MonteCarloSearch.VIRTUAL_LOSS;
+				value = -value;
+			}
+			for (int i = 0; i < ply; i++)
+			{
+				board.unmakeMove();
+			}
+			nodeCounter.add(nodeCount);
+		}
+
+		private void addVirtualLoss(int node)
+		{
+			visits[node] += MonteCarloSearch.VIRTUAL_LOSS;
+			values[node] -= MonteCarloSearch.VIRTUAL_LOSS;
+		}
+
+		/**
+		 * Returns the child with the highest PUCT score.
+		 */
+		private int selectChild(int node)
+		{
+			float parentVisits = Math.max(1, visits[node]);
+			float explorationFactor = MonteCarloSearch.EXPLORATION * (float) Math.sqrt(parentVisits);
+			float firstPlayValue = -values[node] / parentVisits - MonteCarloSearch.FIRST_PLAY_REDUCTION;
+			int bestChild = firstChildren[node];
+			float bestScore = Float.NEGATIVE_INFINITY;
+			for (int child = firstChildren[node]; child < firstChildren[node] + childCounts[node]; child++)
+			{
+				float childVisits = visits[child];
+				float value = (childVisits > 0) ? values[child] / childVisits : firstPlayValue;
+				float score = value + explorationFactor * priors[child] / (1 + childVisits);
+				if (score > bestScore)
+				{
+					bestScore = score;
+					bestChild = child;
+				}
+			}
+			return bestChild;
+		}
+
+		/**
+		 * Allocates the children of a node whose expansion the worker has claimed, computes their priors and publishes them. If the arena is full,
+		 * the node stays a leaf.
+		 * 
+		 * @return the number of legal moves in the position of the node
+		 */
+		private int expand(int node)
+		{
+			int moveCount = gameCalc.generateMoves(moveList);
+			int firstChild = (moveCount == 0) ? -1 : allocatedCount.getAndAdd(moveCount);
+			if (firstChild + moveCount > capacity)
+			{
+				states.set(node, MonteCarloSearch.UNEXPANDED);
+				return moveCount;
+			}
+
+			double maxScore = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < moveCount; i++)
+			{
+				board.makeMove(moveList.get(i));
+				nodeCount++;
+				scores[i] = -evaluator.evaluate(board) / MonteCarloSearch.PRIOR_TEMPERATURE;
+				board.unmakeMove();
+				maxScore = Math.max(maxScore, scores[i]);
+			}
+			double sum = 0;
+			for (int i = 0; i < moveCount; i++)
+			{
+				scores[i] = Math.exp(scores[i] - maxScore);
+				sum += scores[i];
+			}
+			for (int i = 0; i < moveCount; i++)
+			{
+				initNode(firstChild + i, moveList.get(i), (float) (scores[i] / sum));
+			}
+			firstChildren[node] = firstChild;
+			childCounts[node] = (short) moveCount;
+			states.set(node, MonteCarloSearch.EXPANDED);
+			return moveCount;
+		}
+
+		/**
+		 * Returns the value of the color to move in a position without legal moves.
+		 */
+		private float getValueWithoutMoves()
+		{
+			return gameCalc.isInCheck() ? -1 : 0;
+		}
+
+		/**
+		 * Evaluates the position on the board, which has legal moves.
+		 * 
+		 * @return the value of the color to move
+		 */
+		private float playOut()
+		{
+			if (quiescence != null)
+			{
+				long quiescenceNodeCount = quiescence.getNodeCount();
+				int score = quiescence.evaluateQuietly();
+				nodeCount += quiescence.getNodeCount() - quiescenceNodeCount;
+				return MonteCarloSearch.toValue(score);
+			}
+
+			int ply = 0;
+			float value;
+			while (true)
+			{
+				board.makeMove(moveList.get(nextRandom(moveList.size())));
+				nodeCount++;
+				ply++;
+				if (gameCalc.generateMoves(moveList) == 0)
+				{
+					value = getValueWithoutMoves();
+					break;
+				}
+				if (ply == MonteCarloSearch.MAX_PLAYOUT_PLIES)
+				{
+					value = MonteCarloSearch.toValue(evaluator.evaluate(board));
+					break;
+				}
+			}
+			for (int i = 0; i < ply; i++)
+			{
+				board.unmakeMove();
+			}
+			// the color to move changes with every ply
+			return (ply % 2 == 0) ? value : -value;
+		}
+
+		private int nextRandom(int bound)
+		{
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			return (int) ((random >>> 1) % bound);
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package user.schubert.richard;
+
+import core.*;
+import core.Piece.Type;
+
+/**
+ * Decides in which order the search tries the moves of a position. Alpha-beta cuts off the more subtrees the earlier the best move is tried, so
+ * the moves are scored by these heuristics, from the highest to the lowest score:
+ * <ol>
+ * <li>the move stored in the transposition table for the position</li>
+ * <li>captures and pawn trade moves to a queen: the most valuable victim first, among equal victims the least valuable attacker first (MVV-LVA)</li>
+ * <li>the two killer moves of the ply: quiet moves that recently caused a cutoff at the same distance to the root</li>
+ * <li>the countermove: the quiet move that recently refuted the previous move</li>
+ * <li>all other quiet moves by their history score: how often and how deep they caused cutoffs anywhere in the tree (butterfly history)</li>
+ * </ol>
+ * Underpromotions count as quiet moves (unless they capture), since they are rarely better than the promotion to a queen.
+ * All tables are primitive arrays that are allocated once. An instance belongs to one search and must not be shared between threads.
+ *
+ * The ordering also counts the cutoffs and how many of them were caused by the first move tried, which shows how good the ordering is.
+ */
+public final class MoveOrdering
+{
+	private static final int TT_MOVE_SCORE = 1 << 30;
+	private static final int CAPTURE_SCORE = 1 << 28;
+	private static final int FIRST_KILLER_SCORE = 1 << 27;
+	private static final int SECOND_KILLER_SCORE = MoveOrdering.FIRST_KILLER_SCORE - 1;
+	private static final int COUNTERMOVE_SCORE = MoveOrdering.FIRST_KILLER_SCORE - 2;
+	/**
+	 * The weight of the victim in the MVV-LVA score of a capture. It makes any more valuable victim outweigh any attacker.
+	 */
+	private static final int MVV_LVA_FACTOR = 100;
+	/**
+	 * When a history score reaches this value, all history scores are halved, so that they stay below the scores of killers and countermoves and
+	 * recent cutoffs weigh more than old ones.
+	 */
+	private static final int MAX_HISTORY_SCORE = 1 << 24;
+
+	private final Board board;
+	private final int[] killers = new int[2 * Search.MAX_PLY];
+	/**
+	 * The history scores indexed by color, from square and to square.
+	 */
+	private final int[] history = new int[2 * Board.SQUARE_COUNT * Board.SQUARE_COUNT];
+	/**
+	 * The countermoves indexed by the piece code and the to square of the previous move.
+	 */
+	private final int[] countermoves = new int[Position.PIECE_CODE_COUNT * Board.SQUARE_COUNT];
+
+	private long cutoffCount;
+	private long firstMoveCutoffCount;
+
+	/**
+	 * Creates an ordering for the moves of the positions on a board.
+	 *
+	 * @param board the board the search works on
+	 */
+	public MoveOrdering(Board board)
+	{
+		this.board = board;
+	}
+
+	/**
+	 * Prepares the ordering for a new search: the history scores are halved and the statistics are reset. The killers are kept, because the new
+	 * search starts at the same root as the last one or at a root the ordering has been advanced to (see advance).
+	 */
+	public void startSearch()
+	{
+		ageHistory();
+		cutoffCount = 0;
+		firstMoveCutoffCount = 0;
+	}
+
+	/**
+	 * Adapts the ordering to a root that is some plies further into the game than the root of the last search: the killers move closer to the
+	 * root by that many plies, and the killers of the skipped plies are forgotten. The history and the countermoves do not depend on the ply and
+	 * are kept as they are.
+	 *
+	 * @param plyCount the number of plies the root has moved on (at least 0)
+	 */
+	public void advance(int plyCount)
+	{
+		int shift = Math.min(2 * plyCount, killers.length);
+		System.arraycopy(killers, shift, killers, 0, killers.length - shift);
+		for (int i = killers.length - shift; i < killers.length; i++)
+		{
+			killers[i] = PackedMove.NONE;
+		}
+	}
+
+	/**
+	 * Scores the moves of the position on the board by all heuristics (see setScore of MoveList).
+	 *
+	 * @param moves the legal moves of the position
+	 * @param ply the distance of the position to the root
+	 * @param ttMove the move stored in the transposition table for the position or PackedMove.NONE
+	 * @param previousMove the move that led to the position or PackedMove.NONE
+	 */
+	public void scoreMoves(MoveList moves, int ply, int ttMove, int previousMove)
+	{
+		int colorOffset = getColorOffset();
+		int countermove = getCountermove(previousMove);
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = moves.get(i);
+			int score;
+			if (move == ttMove)
+			{
+				score = MoveOrdering.TT_MOVE_SCORE;
+			}
+			else if (MoveOrdering.isTactical(move))
+			{
+				score = MoveOrdering.CAPTURE_SCORE + getMvvLvaScore(move);
+			}
+			else if (move == killers[2 * ply])
+			{
+				score = MoveOrdering.FIRST_KILLER_SCORE;
+			}
+			else if (move == killers[2 * ply + 1])
+			{
+				score = MoveOrdering.SECOND_KILLER_SCORE;
+			}
+			else if (move == countermove)
+			{
+				score = MoveOrdering.COUNTERMOVE_SCORE;
+			}
+			else
+			{
+				score = history[colorOffset + MoveOrdering.getButterflyIndex(move)];
+			}
+			moves.setScore(i, score);
+		}
+	}
+
+	/**
+	 * Scores the moves of the position on the board by MVV-LVA only. Quiet moves score 0.
+	 *
+	 * @param moves the moves, usually only captures and pawn trade moves
+	 */
+	public void scoreCaptures(MoveList moves)
+	{
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = moves.get(i);
+			moves.setScore(i, MoveOrdering.isTactical(move) ? getMvvLvaScore(move) : 0);
+		}
+	}
+
+	/**
+	 * Moves the move with the highest score among the moves from an index on to the index. Picking the moves one by one is cheaper than sorting
+	 * the list when a cutoff makes the remaining moves unnecessary.
+	 *
+	 * @param moves the scored moves
+	 * @param index the index of the move to be picked
+	 * @return the picked move
+	 */
+	public static int pickMove(MoveList moves, int index)
+	{
+		int bestIndex = index;
+		for (int i = index + 1; i < moves.size(); i++)
+		{
+			if (moves.getScore(i) > moves.getScore(bestIndex))
+			{
+				bestIndex = i;
+			}
+		}
+		moves.swap(index, bestIndex);
+		return moves.get(index);
+	}
+
+	/**
+	 * Learns from a cutoff in the position on the board. If the move is quiet it becomes a killer of the ply and the countermove of the previous
+	 * move, and its history score rises while the scores of the quiet moves tried before it fall.
+	 *
+	 * @param moves the moves of the position in the order they were tried
+	 * @param moveIndex the index of the move that caused the cutoff
+	 * @param ply the distance of the position to the root
+	 * @param depth the remaining depth of the position
+	 * @param previousMove the move that led to the position or PackedMove.NONE
+	 */
+	public void recordCutoff(MoveList moves, int moveIndex, int ply, int depth, int previousMove)
+	{
+		cutoffCount++;
+		firstMoveCutoffCount += (moveIndex == 0) ? 1 : 0;
+
+		int move = moves.get(moveIndex);
+		if (MoveOrdering.isTactical(move))
+		{
+			return;
+		}
+		if (killers[2 * ply] != move)
+		{
+			killers[2 * ply + 1] = killers[2 * ply];
+			killers[2 * ply] = move;
+		}
+		if (previousMove != PackedMove.NONE)
+		{
+			countermoves[getCountermoveIndex(previousMove)] = move;
+		}
+
+		int colorOffset = getColorOffset();
+		int bonus = depth * depth;
+		for (int i = 0; i < moveIndex; i++)
+		{
+			int triedMove = moves.get(i);
+			if (!MoveOrdering.isTactical(triedMove))
+			{
+				addHistoryScore(colorOffset + MoveOrdering.getButterflyIndex(triedMove), -bonus);
+			}
+		}
+		addHistoryScore(colorOffset + MoveOrdering.getButterflyIndex(move), bonus);
+	}
+
+	/**
+	 * Returns the number of cutoffs since the start of the search.
+	 *
+	 * @return the cutoff count
+	 */
+	public long getCutoffCount()
+	{
+		return cutoffCount;
+	}
+
+	/**
+	 * Returns the share of the cutoffs since the start of the search that were caused by the first move tried. The closer it is to 1, the better
+	 * the ordering.
+	 *
+	 * @return the first-move cutoff rate between 0 and 1, or 0 if there has not been any cutoff
+	 */
+	public double getFirstMoveCutoffRate()
+	{
+		return (cutoffCount == 0) ? 0 : (double) firstMoveCutoffCount / cutoffCount;
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	/**
+	 * Checks if a move is scored by MVV-LVA: a capture or a pawn trade move to a queen. Underpromotions that capture nothing are hardly ever good,
+	 * so they are ordered like quiet moves.
+	 */
+	private static boolean isTactical(int move)
+	{
+		return PackedMove.isCapture(move) || (PackedMove.getPromotionChoice(move) == PromotionChoice.QUEEN);
+	}
+
+	/**
+	 * Returns the MVV-LVA score of a capture or pawn trade move to a queen. It is always positive.
+	 */
+	private int getMvvLvaScore(int move)
+	{
+		Position position = board.getPosition();
+		int victimValue;
+		if (PackedMove.isEnPassant(move))
+		{
+			victimValue = PieceDefaultValueEvaluation.getCentipawns(Type.PAWN);
+		}
+		else
+		{
+			int victimCode = position.getPieceCode(PackedMove.getTo(move));
+			victimValue = (victimCode == Position.EMPTY) ? 0 : PieceDefaultValueEvaluation.getCentipawns(Position.getType(victimCode));
+		}
+		if (PackedMove.getPromotionChoice(move) == PromotionChoice.QUEEN)
+		{
+			victimValue += PieceDefaultValueEvaluation.getCentipawns(Type.QUEEN);
+		}
+		int attackerValue = PieceDefaultValueEvaluation.getCentipawns(Position.getType(position.getPieceCode(PackedMove.getFrom(move))));
+		return MoveOrdering.MVV_LVA_FACTOR * victimValue - attackerValue;
+	}
+
+	private int getCountermove(int previousMove)
+	{
+		return (previousMove == PackedMove.NONE) ? PackedMove.NONE : countermoves[getCountermoveIndex(previousMove)];
+	}
+
+	/**
+	 * Returns the index of the countermove of the previous move, which is identified by the piece that moved and its to square.
+	 */
+	private int getCountermoveIndex(int previousMove)
+	{
+		int to = PackedMove.getTo(previousMove);
+		return board.getPosition().getPieceCode(to) * Board.SQUARE_COUNT + to;
+	}
+
+	private int getColorOffset()
+	{
+		return board.getPosition().getColorToMove().ordinal() * Board.SQUARE_COUNT * Board.SQUARE_COUNT;
+	}
+
+	private void addHistoryScore(int index, int bonus)
+	{
+		history[index] += bonus;
+		if (Math.abs(history[index]) >= MoveOrdering.MAX_HISTORY_SCORE)
+		{
+			ageHistory();
+		}
+	}
+
+	private void ageHistory()
+	{
+		for (int i = 0; i < history.length; i++)
+		{
+			history[i] /= 2;
+		}
+	}
+
+	private static int getButterflyIndex(int move)
+	{
+		return PackedMove.getFrom(move) * Board.SQUARE_COUNT + PackedMove.getTo(move);
+	}
+}
@@ -0,0 +1,241 @@
+package user.schubert.richard;
+
+import core.*;
+
+/**
+ * A move tree for analysis, kept in an arena of primitive arrays that is allocated once. A node is an index into the arrays and stores only its
+ * packed move (see PackedMove), its score, the index of its first child and the number of its children; the children of a node are stored next to
+ * each other, so they need no links of their own. That is BYTES_PER_NODE bytes per node, so a few GB of heap hold tens of millions of nodes.
+ * 
+ * The nodes keep no boards and no parents. The position of a node is rebuilt on demand by replaying the moves of its path from the root (see
+ * createBoard and makeMoves), where the path is the list of nodes below the root leading to it, as a walk down the tree finds them.
+ */
+public final class MoveTree
+{
+	/**
+	 * The index of the root, whose move is PackedMove.NONE.
+	 */
+	public static final int ROOT = 0;
+	/**
+	 * The heap the arrays take per node.
+	 */
+	public static final int BYTES_PER_NODE = Integer.BYTES + Integer.BYTES + Integer.BYTES + Short.BYTES;
+	/**
+	 * The first child of a node that has not been expanded.
+	 */
+	private static final int NOT_EXPANDED = -1;
+
+	private final Board rootBoard;
+	private final PositionEvaluator evaluator;
+	private final int[] moves;
+	private final int[] scores;
+	private final int[] firstChildren;
+	private final short[] childCounts;
+	private int size;
+
+	/**
+	 * Creates a tree that consists of the root.
+	 * 
+	 * @param board the board containing the position of the root. It is copied, so it may be changed afterwards.
+	 * @param evaluator the evaluator that scores the positions of the new nodes
+	 * @param capacity the number of nodes the tree holds at most (at least 1)
+	 */
+	public MoveTree(Board board, PositionEvaluator evaluator, int capacity)
+	{
+		if (capacity < 1)
+		{
+			throw new IllegalArgumentException("A move tree must hold at least its root.");
+		}
+		rootBoard = board.clone();
+		this.evaluator = evaluator;
+		moves = new int[capacity];
+		scores = new int[capacity];
+		firstChildren = new int[capacity];
+		childCounts = new short[capacity];
+		clear();
+	}
+
+	/**
+	 * Removes all nodes but the root.
+	 */
+	public void clear()
+	{
+		size = 0;
+		addNode(PackedMove.NONE, -evaluator.evaluate(rootBoard));
+	}
+
+	/**
+	 * Adds a child for every legal move of a node. The board must be in the position of the node and is in the same position when the method
+	 * returns.
+	 * 
+	 * @param node the node, which must not have been expanded yet
+	 * @param board the board in the position of the node
+	 * @return the number of children, which is 0 if the color to move has no legal move
+	 * @throws IllegalStateException if the tree is full
+	 */
+	public int expand(int node, Board board)
+	{
+		MoveList legalMoves = new MoveList();
+		new GameCalc(board).generateMoves(legalMoves);
+		return expand(node, board, legalMoves);
+	}
+
+	/**
+	 * Adds a child for each of some moves of a node, for example for the moves an analysis considers worth looking at. The board must be in the
+	 * position of the node and is in the same position when the method returns.
+	 * 
+	 * @param node the node, which must not have been expanded yet
+	 * @param board the board in the position of the node
+	 * @param childMoves the packed moves, which must be legal in the position of the node
+	 * @return the number of children
+	 * @throws IllegalStateException if the tree is full
+	 */
+	public int expand(int node, Board board, MoveList childMoves)
+	{
+		if (isExpanded(node))
+		{
+			throw new IllegalStateException("The node " + node + " has been expanded already.");
+		}
+		if (size + childMoves.size() > moves.length)
+		{
+			throw new IllegalStateException("The move tree is full (" + moves.length + " nodes).");
+		}
+		int firstChild = size;
+		for (int i = 0; i < childMoves.size(); i++)
+		{
+			int move = childMoves.get(i);
+			board.makeMove(move);
+			// the score of a node is that of the color that made its move
+			int score = -evaluator.evaluate(board);
+			board.unmakeMove();
+			addNode(move, score);
+		}
+		firstChildren[node] = firstChild;
+		childCounts[node] = (short) childMoves.size();
+		return childMoves.size();
+	}
+
+	/**
+	 * Creates a board in the position of a node by replaying the moves of its path on a copy of the root position.
+	 * 
+	 * @param path the nodes leading from the root to the node, without the root. The root itself has an empty path.
+	 * @param length the number of nodes of the path
+	 * @return the new board
+	 */
+	public Board createBoard(int[] path, int length)
+	{
+		Board board = rootBoard.clone();
+		makeMoves(board, path, length);
+		return board;
+	}
+
+	/**
+	 * Replays the moves of a path on a board, which is cheaper than creating a board if the same board is used for many nodes. They can be taken
+	 * back by calling Board.unmakeMove length times.
+	 * 
+	 * @param board the board in the position of the root
+	 * @param path the nodes leading from the root to a node, without the root
+	 * @param length the number of nodes of the path
+	 */
+	public void makeMoves(Board board, int[] path, int length)
+	{
+		for (int i = 0; i < length; i++)
+		{
+			board.makeMove(moves[path[i]]);
+		}
+	}
+
+	/**
+	 * Returns the child of a node with a given move.
+	 * 
+	 * @param node the node
+	 * @param move the packed move
+	 * @return the index of the child or -1 if there is none
+	 */
+	public int findChild(int node, int move)
+	{
+		for (int child = getFirstChild(node); child < getFirstChild(node) + getChildCount(node); child++)
+		{
+			if (moves[child] == move)
+			{
+				return child;
+			}
+		}
+		return -1;
+	}
+
+	public int getMove(int node)
+	{
+		return moves[node];
+	}
+
+	/**
+	 * Returns the score of a node: the score of its position in centipawns from the perspective of the color that made its move. It is the score of
+	 * the evaluator unless it has been set.
+	 * 
+	 * @param node the node
+	 * @return the score
+	 */
+	public int getScore(int node)
+	{
+		return scores[node];
+	}
+
+	/**
+	 * Sets the score of a node, for example the score an analysis has backed up from its children.
+	 * 
+	 * @param node the node
+	 * @param score the score in centipawns from the perspective of the color that made its move
+	 */
+	public void setScore(int node, int score)
+	{
+		scores[node] = score;
+	}
+
+	public boolean isExpanded(int node)
+	{
+		return firstChildren[node] != MoveTree.NOT_EXPANDED;
+	}
+
+	/**
+	 * Returns the index of the first child of a node. The other children follow it.
+	 * 
+	 * @param node the node
+	 * @return the index of the first child, which is meaningless if the node has no children
+	 */
+	public int getFirstChild(int node)
+	{
+		return firstChildren[node];
+	}
+
+	public int getChildCount(int node)
+	{
+		return childCounts[node];
+	}
+
+	/**
+	 * Returns the number of nodes in the tree, including the root.
+	 * 
+	 * @return the size
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	public int getCapacity()
+	{
+		return moves.length;
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private void addNode(int move, int score)
+	{
+		moves[size] = move;
+		scores[size] = score;
+		firstChildren[size] = MoveTree.NOT_EXPANDED;
+		childCounts[size] = 0;
+		size++;
+	}
+}
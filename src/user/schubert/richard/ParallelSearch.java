@@ -0,0 +1,244 @@
+package user.schubert.richard;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import core.*;
+
+/**
+ * A search on several threads by "Lazy SMP": every thread searches the same root position on its own copy of the board, and the threads only
+ * communicate through a shared TranspositionTable. The main search runs on the calling thread and decides when to stop (see
+ * Search.search(TimeManager, int)). The helpers run on a fixed pool of threads that is created once; they start at different depths and order the
+ * root moves differently (see Search.searchAsHelper), so they fill the table with results the main search finds there later.
+ *
+ * With a thread count of 1 no pool is created and the search is a plain Search.
+ *
+ * The searches of the threads are kept from one call to the next. If the position to be searched can be reached from the last searched position
+ * by at most MAX_ADVANCE_PLIES moves, for example after a move of each player, the searches are advanced by these moves (see Search.advance), so
+ * they start warm. Otherwise new searches are created.
+ */
+public final class ParallelSearch
+{
+	private final PositionEvaluator evaluator;
+	private final TranspositionTable transpositionTable;
+	private final int threadCount;
+	/**
+	 * The maximum number of plies the searches are advanced by to reach the next position to be searched.
+	 */
+	public static final int MAX_ADVANCE_PLIES = 2;
+
+	private final ExecutorService helperPool;
+	/**
+	 * The main search followed by the helpers, or an empty list if there has not been any search yet.
+	 */
+	private final List<Search> searches = new ArrayList<>();
+	/**
+	 * A copy of the last searched position or null.
+	 */
+	private Board searchedBoard;
+	private SearchTelemetry telemetry;
+	private long nodeLimit = Long.MAX_VALUE;
+
+	/**
+	 * Creates a parallel search.
+	 *
+	 * @param evaluator the evaluator used by all threads
+	 * @param transpositionTable the table shared by all threads
+	 * @param threadCount the number of threads including the calling thread (at least 1)
+	 */
+	public ParallelSearch(PositionEvaluator evaluator, TranspositionTable transpositionTable, int threadCount)
+	{
+		if (threadCount < 1)
+		{
+			throw new IllegalArgumentException("A search needs at least one thread.");
+		}
+		this.evaluator = evaluator;
+		this.transpositionTable = transpositionTable;
+		this.threadCount = threadCount;
+		if (threadCount > 1)
+		{
+			helperPool = Executors.newFixedThreadPool(threadCount - 1, runnable ->
+			{
+				Thread thread = new Thread(runnable, "Search helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		else
+		{
+			helperPool = null;
+		}
+	}
+
+	/**
+	 * Searches the best move for the color to move by iterative deepening on all threads. The board is not changed.
+	 *
+	 * @param board the board containing the position to be searched
+	 * @param timeManager decides when the search stops
+	 * @param maxDepth the depth at which the search stops at the latest
+	 * @return the result of the main search. Its node count is the sum of the node counts of all threads.
+	 */
+	public SearchResult search(Board board, TimeManager timeManager, int maxDepth)
+	{
+		return search(board, timeManager, maxDepth, new SearchControl());
+	}
+
+	/**
+	 * Searches the best move for the color to move by iterative deepening on all threads. The board is not changed.
+	 *
+	 * @param board the board containing the position to be searched
+	 * @param timeManager decides when the search stops
+	 * @param maxDepth the depth at which the search stops at the latest
+	 * @param control stops or pauses all threads of the search
+	 * @return the result of the main search. Its node count is the sum of the node counts of all threads.
+	 */
+	public SearchResult search(Board board, TimeManager timeManager, int maxDepth, SearchControl control)
+	{
+		prepareSearches(board);
+		List<Future<SearchResult>> helperResults = new ArrayList<>();
+		for (int helperIndex = 1; helperIndex < threadCount; helperIndex++)
+		{
+			Search helper = searches.get(helperIndex);
+			helper.setControl(new SearchControl(control));
+			int index = helperIndex;
+			helperResults.add(helperPool.submit(() -> helper.searchAsHelper(maxDepth, index)));
+		}
+
+		Search mainSearch = searches.get(0);
+		mainSearch.setControl(control);
+		mainSearch.setTelemetry(telemetry);
+		mainSearch.setNodeLimit(nodeLimit);
+		SearchResult result = mainSearch.search(timeManager, maxDepth);
+		long nodeCount = result.getNodeCount();
+		for (int helperIndex = 1; helperIndex < threadCount; helperIndex++)
+		{
+			searches.get(helperIndex).stop();
+		}
+		for (Future<SearchResult> helperResult : helperResults)
+		{
+			try
+			{
+				nodeCount += helperResult.get().getNodeCount();
+			}
+			catch (InterruptedException e)
+			{
+				// the helper may still be running, so it must not be used again
+				searches.clear();
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException e)
+			{
+				searches.clear();
+				throw new IllegalStateException("A search helper failed.", e.getCause());
+			}
+		}
+		return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodeCount, result.getPrincipalVariation());
+	}
+
+	/**
+	 * Sets the telemetry the main search publishes the statistics of its iterations to (see Search.setTelemetry). The node counts of the events
+	 * are those of the main search only. It must not be called while the search is running.
+	 *
+	 * @param telemetry the telemetry or null to publish nothing
+	 */
+	public void setTelemetry(SearchTelemetry telemetry)
+	{
+		this.telemetry = telemetry;
+	}
+
+	/**
+	 * Limits the number of nodes the main search visits (see Search.setNodeLimit). The helpers stop together with the main search, so with several
+	 * threads the total node count is about the limit times the thread count.
+	 *
+	 * @param nodeLimit the maximum node count of the main search (at least 1)
+	 */
+	public void setNodeLimit(long nodeLimit)
+	{
+		if (nodeLimit < 1)
+		{
+			throw new IllegalArgumentException("The node limit must be at least 1.");
+		}
+		this.nodeLimit = nodeLimit;
+	}
+
+	public int getThreadCount()
+	{
+		return threadCount;
+	}
+
+	/**
+	 * Stops the threads of the pool. The search cannot be used afterwards.
+	 */
+	public void shutdown()
+	{
+		if (helperPool != null)
+		{
+			helperPool.shutdownNow();
+		}
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	/**
+	 * Lets the searches of the threads reach the position on a board, either by advancing the existing searches or by creating new ones.
+	 */
+	private void prepareSearches(Board board)
+	{
+		int[] moves = (searches.isEmpty()) ? null : ParallelSearch.findMoves(searchedBoard, board, ParallelSearch.MAX_ADVANCE_PLIES);
+		if (moves == null)
+		{
+			searches.clear();
+			for (int i = 0; i < threadCount; i++)
+			{
+				searches.add(new Search(board.clone(), evaluator, transpositionTable));
+			}
+		}
+		else
+		{
+			for (Search search : searches)
+			{
+				for (int move : moves)
+				{
+					search.advance(move);
+				}
+			}
+		}
+		searchedBoard = board.clone();
+	}
+
+	/**
+	 * Looks for moves that lead from one position to another.
+	 *
+	 * @param from the board containing the first position. It is changed during the search and restored afterwards.
+	 * @param to the board containing the position to be reached
+	 * @param maxPlies the maximum number of moves
+	 * @return the moves or null if the position cannot be reached by at most maxPlies moves
+	 */
+	private static int[] findMoves(Board from, Board to, int maxPlies)
+	{
+		if ((from.getZobristKey() == to.getZobristKey()) && from.equals(to))
+		{
+			return new int[0];
+		}
+		if (maxPlies == 0)
+		{
+			return null;
+		}
+		MoveList moves = new MoveList();
+		new GameCalc(from).generateMoves(moves);
+		for (int i = 0; i < moves.size(); i++)
+		{
+			from.makeMove(moves.get(i));
+			int[] laterMoves = ParallelSearch.findMoves(from, to, maxPlies - 1);
+			from.unmakeMove();
+			if (laterMoves != null)
+			{
+				int[] foundMoves = new int[laterMoves.length + 1];
+				foundMoves[0] = moves.get(i);
+				System.arraycopy(laterMoves, 0, foundMoves, 1, laterMoves.length);
+				return foundMoves;
+			}
+		}
+		return null;
+	}
+}
@@ -3,9 +3,19 @@ package user.schubert.richard;
 import java.util.*;
 
 import core.*;
+import core.Piece.Type;
+import core.pieces.*;
 
 public class PieceDefaultValueEvaluation extends PositionEvaluation
 {
+	/**
+	 * The default values of the piece types in centipawns, indexed by Type.ordinal().
+	 */
+	private static final int[] CENTIPAWNS =
+	{ PieceDefaultValueEvaluation.toCentipawns(Pawn.DEFAULT_VALUE), PieceDefaultValueEvaluation.toCentipawns(Bishop.DEFAULT_VALUE),
+			PieceDefaultValueEvaluation.toCentipawns(Knight.DEFAULT_VALUE), PieceDefaultValueEvaluation.toCentipawns(Rook.DEFAULT_VALUE),
+			PieceDefaultValueEvaluation.toCentipawns(Queen.DEFAULT_VALUE), PieceDefaultValueEvaluation.toCentipawns(King.DEFAULT_VALUE) };
+
 	public PieceDefaultValueEvaluation(Board board)
 	{
 		super(board);
@@ -13,9 +23,46 @@ public class PieceDefaultValueEvaluation extends PositionEvaluation
 		super.blackValue = getValue(ChessColor.BLACK);
 	}
 
+	/**
+	 * Returns the default value of a piece type in centipawns.
+	 * 
+	 * @param type the piece type
+	 * @return the value in centipawns
+	 */
+	public static int getCentipawns(Type type)
+	{
+		return PieceDefaultValueEvaluation.CENTIPAWNS[type.ordinal()];
+	}
+
+	/**
+	 * Computes the same evaluation as an object of this class from the bitboards of a board, without allocating any objects.
+	 * 
+	 * @param board the board
+	 * @return the value of the color to move's pieces minus the value of the foe's pieces in centipawns
+	 */
+	public static int getScore(Board board)
+	{
+		Position position = board.getPosition();
+		ChessColor color = position.getColorToMove();
+		int score = 0;
+		for (int type = 0; type < Position.TYPE_COUNT; type++)
+		{
+			int pieceCode = Position.getPieceCode(Position.getType(type), color);
+			int foePieceCode = Position.getPieceCode(Position.getType(type), color.getOpposite());
+			int pieceCountDifference = Bitboards.getCount(position.getPieces(pieceCode)) - Bitboards.getCount(position.getPieces(foePieceCode));
+			score += pieceCountDifference * PieceDefaultValueEvaluation.CENTIPAWNS[type];
+		}
+		return score;
+	}
+
 	private double getValue(ChessColor color)
 	{
 		Set<Square> squares = board.getSquaresWithPiecesOfColor(color);
 		return squares.stream().mapToDouble(square -> square.getPiece().getDefaultValue()).sum();
 	}
+
+	private static int toCentipawns(double value)
+	{
+		return (int) Math.round(100 * value);
+	}
 }
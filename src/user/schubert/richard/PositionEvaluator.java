@@ -5,4 +5,19 @@ import core.*;
 public interface PositionEvaluator
 {
 	PositionEvaluation getPositionEvaluation(Board board);
+
+	/**
+	 * Evaluates a position for the search. The score is given in centipawns (a pawn being worth 100) from the perspective of the color to move:
+	 * positive scores are good for the color to move. The default implementation derives the score from getPositionEvaluation. Since the search
+	 * evaluates a very large number of positions, evaluators should override it with an implementation that does not allocate any objects.
+	 * 
+	 * @param board the board containing the position
+	 * @return the score of the position for the color to move
+	 */
+	default int evaluate(Board board)
+	{
+		PositionEvaluation evaluation = getPositionEvaluation(board);
+		int score = (int) Math.round(100 * (evaluation.getWhiteValue() - evaluation.getBlackValue()));
+		return (board.getPosition().getColorToMove() == ChessColor.WHITE) ? score : -score;
+	}
 }
@@ -13,6 +13,12 @@ public class PositionEvaluatorFactory
 			{
 				return new PieceDefaultValueEvaluation(board);
 			}
+
+			@Override
+			public int evaluate(Board board)
+			{
+				return PieceDefaultValueEvaluation.getScore(board);
+			}
 		};
 	}
 }
@@ -0,0 +1,982 @@
+package user.schubert.richard;
+
+import java.util.*;
+
+import core.*;
+import core.Piece.Type;
+
+/**
+ * A depth-first alpha-beta search in negamax form. The search works on a single board: every move is made on the board before its subtree is
+ * searched and unmade afterwards. The moves of each ply are generated into a move list that is allocated once per ply, so the memory needed by
+ * the search does not grow with the number of searched positions but only (linearly) with the depth.
+ * 
+ * The search can be run to a fixed depth or by iterative deepening: the depth is increased by one ply at a time for as long as a TimeManager allows.
+ * The best move of each iteration is searched first by the next iteration. If the time runs out during an iteration, the iteration is abandoned and
+ * the result of the last completed iteration is returned.
+ * 
+ * At the leaves the search is extended by a quiescence search that only looks at captures and pawn trade moves (see GameCalc.generateCaptures),
+ * so that positions are not evaluated in the middle of an exchange. The color to move may "stand pat": take the evaluation of the position instead
+ * of capturing. Captures that could not raise the score to alpha even if they won the captured piece for free are skipped (delta pruning).
+ * 
+ * The search is a principal variation search: in every position the first move is searched with the full window and all other moves with a null
+ * window that only shows whether they are better than the first one. Only a move that is better is searched again with the full window. The
+ * iterations of the iterative deepening start with an aspiration window around the score of the previous iteration, which is widened step by step
+ * while the score falls outside. The principal variation, the sequence of best moves of both sides, is collected in a triangular table that is
+ * allocated once. For analysis the search can also find several best lines at once, each starting with another move (see searchLines).
+ * 
+ * Three kinds of selective pruning let the search reach greater depths. Each of them can be switched off, for example to measure its effect:
+ * <ul>
+ * <li>Null-move pruning: the color to move passes and the foe gets a reduced search. If the position is still good enough to fail high, it is cut
+ * off. Passing is not tried in check, twice in a row or without pieces other than pawns, where zugzwang is likely.</li>
+ * <li>Late move reductions: quiet moves that the move ordering ranks late are searched with a reduced depth and a null window first. They are only
+ * searched again at full depth if they turn out better than alpha.</li>
+ * <li>Reverse futility pruning: close to the leaves, a position whose evaluation exceeds beta by a margin per remaining ply is cut off.</li>
+ * </ul>
+ * 
+ * If the search has a TranspositionTable, the result of every searched position is stored in it. A position found in the table that has been
+ * searched deeply enough is not searched again.
+ * 
+ * The statistics of every completed iteration can be published to a SearchTelemetry, which delivers them to its listeners on a thread of its own.
+ * 
+ * Scores are given in centipawns from the perspective of the color to move (see PositionEvaluator.evaluate). Checkmate is scored as MATE_SCORE
+ * minus the number of plies to the mate, so that faster mates score higher.
+ */
+public final class Search
+{
+	/**
+	 * The maximum depth of the search in plies.
+	 */
+	public static final int MAX_PLY = 128;
+	/**
+	 * The score of being checkmated at the root.
+	 */
+	public static final int MATE_SCORE = 100000;
+	/**
+	 * A score greater than any score of a position.
+	 */
+	public static final int INFINITE_SCORE = Search.MATE_SCORE + 1;
+
+	/**
+	 * The number of nodes searched between two looks at the clock and the control. It bounds the time the search takes to notice a stop or pause
+	 * request: even a slow search visits that many nodes in well under a millisecond.
+	 */
+	private static final int NODES_PER_CHECK = 256;
+	/**
+	 * The minimum depth of an iteration that starts with an aspiration window.
+	 */
+	private static final int ASPIRATION_MIN_DEPTH = 4;
+	/**
+	 * The distance of the bounds of the first aspiration window to the score of the previous iteration (in centipawns). It doubles whenever the
+	 * score falls outside the window.
+	 */
+	private static final int ASPIRATION_WINDOW = 25;
+	/**
+	 * The margin of the delta pruning for positional gains of a capture (in centipawns).
+	 */
+	private static final int DELTA_MARGIN = 200;
+	/**
+	 * The minimum remaining depth for null-move pruning.
+	 */
+	private static final int NULL_MOVE_MIN_DEPTH = 3;
+	/**
+	 * The depth by which the search after a null move is reduced, in addition to the null move itself. Deep searches are reduced by one more ply.
+	 */
+	private static final int NULL_MOVE_REDUCTION = 2;
+	private static final int NULL_MOVE_DEEP_REDUCTION_DEPTH = 7;
+	/**
+	 * The minimum remaining depth for late move reductions.
+	 */
+	private static final int LMR_MIN_DEPTH = 3;
+	/**
+	 * The number of moves that are never reduced. They include the transposition table move, the good captures and the killers.
+	 */
+	private static final int LMR_FULL_DEPTH_MOVE_COUNT = 3;
+	/**
+	 * The reductions of late moves indexed by the remaining depth and the rank of the move. They grow with the logarithm of both.
+	 */
+	private static final int[][] LMR_REDUCTIONS = Search.createLateMoveReductions();
+	/**
+	 * The maximum remaining depth for reverse futility pruning.
+	 */
+	private static final int REVERSE_FUTILITY_MAX_DEPTH = 3;
+	/**
+	 * The margin of reverse futility pruning per remaining ply (in centipawns).
+	 */
+	private static final int REVERSE_FUTILITY_MARGIN = 120;
+
+	private final Board board;
+	private final GameCalc gameCalc;
+	private final PositionEvaluator evaluator;
+	private final TranspositionTable transpositionTable;
+	private final MoveList[] moveLists = MoveList.createPerPly(Search.MAX_PLY);
+	private final MoveOrdering moveOrdering;
+	/**
+	 * The moves that led from the root to the current position, indexed by ply.
+	 */
+	private final int[] playedMoves = new int[Search.MAX_PLY];
+	/**
+	 * The triangular table of principal variations: the principal variation of the position at a ply starts at index ply * MAX_PLY + ply and ends
+	 * before index ply * MAX_PLY + principalVariationEnds[ply].
+	 */
+	private final int[] principalVariations = new int[Search.MAX_PLY * Search.MAX_PLY];
+	private final int[] principalVariationEnds = new int[Search.MAX_PLY];
+	/**
+	 * The root moves that are left out, because the multi-PV search has already found their lines in the current iteration.
+	 */
+	private final MoveList excludedRootMoves = new MoveList();
+
+	private long nodeCount;
+	/**
+	 * The node count at which the iterative deepening stops, like at the hard limit of the time manager.
+	 */
+	private long nodeLimit = Long.MAX_VALUE;
+	private TimeManager timeManager;
+	/**
+	 * True while the running iteration may be aborted, that is after the first iteration.
+	 */
+	private boolean abortable;
+	private boolean aborted;
+	private SearchControl control = new SearchControl();
+	/**
+	 * The telemetry the statistics of every completed iteration are published to, or null.
+	 */
+	private SearchTelemetry telemetry;
+	private long startTime;
+	/**
+	 * The greatest distance to the root reached since the start of the search.
+	 */
+	private int selectiveDepth;
+	private long hashProbeCount;
+	private long hashHitCount;
+	/**
+	 * The index of a helper of a parallel search (see ParallelSearch) or 0.
+	 */
+	private int helperIndex;
+	private boolean quiescenceEnabled = true;
+	private boolean nullMovePruningEnabled = true;
+	private boolean lateMoveReductionsEnabled = true;
+	private boolean reverseFutilityPruningEnabled = true;
+
+	/**
+	 * Creates a search on a board. The board is changed during the search and restored when the search returns, so it must not be changed by anyone
+	 * else in the meantime.
+	 * 
+	 * @param board the board containing the position to be searched
+	 * @param evaluator the evaluator of the positions at the leaves of the search tree
+	 */
+	public Search(Board board, PositionEvaluator evaluator)
+	{
+		this(board, evaluator, null);
+	}
+
+	/**
+	 * Creates a search on a board that uses a transposition table. The table may be shared with other searches that run at the same time.
+	 * 
+	 * @param board the board containing the position to be searched
+	 * @param evaluator the evaluator of the positions at the leaves of the search tree
+	 * @param transpositionTable the table or null if the search does not use one
+	 */
+	public Search(Board board, PositionEvaluator evaluator, TranspositionTable transpositionTable)
+	{
+		this.board = board;
+		this.evaluator = evaluator;
+		this.transpositionTable = transpositionTable;
+		gameCalc = new GameCalc(board);
+		moveOrdering = new MoveOrdering(board);
+	}
+
+	/**
+	 * Searches the best move for the color to move up to a fixed depth.
+	 * 
+	 * @param depth the depth in plies (at least 1)
+	 * @return the best move and its score. The move is PackedMove.NONE if the color to move has no legal move.
+	 */
+	public SearchResult search(int depth)
+	{
+		nodeCount = 0;
+		timeManager = null;
+		abortable = false;
+		aborted = false;
+		moveOrdering.startSearch();
+		return searchRoot(depth, PackedMove.NONE, -Search.INFINITE_SCORE, Search.INFINITE_SCORE);
+	}
+
+	/**
+	 * Searches the best move for the color to move by iterative deepening. The first iteration is always completed, so a move is found even if the
+	 * time is very short.
+	 * 
+	 * @param timeManager decides when the search stops. Its time is measured from its creation or from its last start.
+	 * @param maxDepth the depth at which the search stops at the latest
+	 * @return the best move of the last completed iteration and its score. The move is PackedMove.NONE if the color to move has no legal move.
+	 */
+	public SearchResult search(TimeManager timeManager, int maxDepth)
+	{
+		this.timeManager = timeManager;
+		helperIndex = 0;
+		return deepen(1, maxDepth);
+	}
+
+	/**
+	 * Searches the best lines for the color to move by iterative deepening (multi-PV): every iteration searches the root once per line, each time
+	 * without the first moves of the lines found before, so the second line is the best line that starts with another move than the first one, and
+	 * so on. All lines share the transposition table and the move ordering, so the later lines profit from the work done for the earlier ones.
+	 * 
+	 * @param timeManager decides when the search stops
+	 * @param maxDepth the depth at which the search stops at the latest
+	 * @param lineCount the number of lines (at least 1). If the color to move has fewer legal moves, there are fewer lines.
+	 * @param listener is told about every line as soon as it has been found, or null
+	 * @return the lines of the last completed iteration, the best first. The list is empty if the color to move has no legal move.
+	 */
+	public List<SearchResult> searchLines(TimeManager timeManager, int maxDepth, int lineCount, SearchLineListener listener)
+	{
+		if (lineCount < 1)
+		{
+			throw new IllegalArgumentException("A multi-PV search needs at least one line.");
+		}
+		this.timeManager = timeManager;
+		helperIndex = 0;
+		prepareSearch();
+
+		List<SearchResult> lines = new ArrayList<>();
+		for (int depth = 1; depth <= Math.min(maxDepth, Search.MAX_PLY - 1); depth++)
+		{
+			if ((depth > 1) && (lines.isEmpty() || control.isStopRequested() || ((timeManager != null) && !timeManager.canStartIteration(0))))
+			{
+				break;
+			}
+			List<SearchResult> iterationLines = searchLineIteration(depth, lines, lineCount, listener);
+			if (aborted)
+			{
+				break;
+			}
+			lines = iterationLines;
+			abortable = true;
+		}
+		excludedRootMoves.clear();
+		return lines;
+	}
+
+	/**
+	 * Makes a move on the board of the search between two searches, so that the next search starts at the position after the move and starts warm:
+	 * what the search has learned about the moves of the subtree below the move is kept (see MoveOrdering.advance). The results in the transposition
+	 * table are kept anyway.
+	 * 
+	 * @param move the packed move, which must be legal in the position on the board
+	 */
+	public void advance(int move)
+	{
+		board.makeMove(move);
+		moveOrdering.advance(1);
+	}
+
+	/**
+	 * Stops the search as soon as possible (see SearchControl.stop). It may be called by any thread. A search that has been stopped returns the
+	 * result of its last completed iteration, and it cannot be used again until it gets a new control (see setControl).
+	 */
+	public void stop()
+	{
+		control.stop();
+	}
+
+	public SearchControl getControl()
+	{
+		return control;
+	}
+
+	/**
+	 * Sets the control by which other threads stop or pause the search. It must not be called while the search is running. Every search has a
+	 * control of its own by default.
+	 * 
+	 * @param control the control
+	 */
+	public void setControl(SearchControl control)
+	{
+		this.control = control;
+	}
+
+	/**
+	 * Limits the number of nodes the iterative deepening visits, for example to compare engines under equal node budgets. Like the time limits it
+	 * is obeyed only after the first iteration. It is not limited by default.
+	 * 
+	 * @param nodeLimit the maximum node count (at least 1)
+	 */
+	public void setNodeLimit(long nodeLimit)
+	{
+		if (nodeLimit < 1)
+		{
+			throw new IllegalArgumentException("The node limit must be at least 1.");
+		}
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Searches as a helper of a parallel search by iterative deepening until the search is stopped or the maximum depth is reached. Helpers with an
+	 * odd index start one ply deeper, and every helper searches the root moves in its own order, so that the helpers do not all search the same
+	 * subtrees at the same time.
+	 * 
+	 * @param maxDepth the depth at which the search stops at the latest
+	 * @param helperIndex the index of the helper (at least 1)
+	 * @return the best move of the last completed iteration and its score
+	 */
+	SearchResult searchAsHelper(int maxDepth, int helperIndex)
+	{
+		timeManager = null;
+		this.helperIndex = helperIndex;
+		return deepen(1 + helperIndex % 2, maxDepth);
+	}
+
+	/**
+	 * Switches the quiescence search on or off. Without it the positions at the leaves are evaluated as they are. It is on by default.
+	 * 
+	 * @param quiescenceEnabled True to extend the leaves by a quiescence search
+	 */
+	public void setQuiescenceEnabled(boolean quiescenceEnabled)
+	{
+		this.quiescenceEnabled = quiescenceEnabled;
+	}
+
+	/**
+	 * Switches the null-move pruning on or off. It is on by default.
+	 * 
+	 * @param nullMovePruningEnabled True to prune by null moves
+	 */
+	public void setNullMovePruningEnabled(boolean nullMovePruningEnabled)
+	{
+		this.nullMovePruningEnabled = nullMovePruningEnabled;
+	}
+
+	/**
+	 * Switches the late move reductions on or off. They are on by default.
+	 * 
+	 * @param lateMoveReductionsEnabled True to reduce late quiet moves
+	 */
+	public void setLateMoveReductionsEnabled(boolean lateMoveReductionsEnabled)
+	{
+		this.lateMoveReductionsEnabled = lateMoveReductionsEnabled;
+	}
+
+	/**
+	 * Switches the reverse futility pruning on or off. It is on by default.
+	 * 
+	 * @param reverseFutilityPruningEnabled True to prune positions far above beta close to the leaves
+	 */
+	public void setReverseFutilityPruningEnabled(boolean reverseFutilityPruningEnabled)
+	{
+		this.reverseFutilityPruningEnabled = reverseFutilityPruningEnabled;
+	}
+
+	/**
+	 * Switches all selective pruning (null moves, late move reductions and reverse futility pruning) on or off.
+	 * 
+	 * @param pruningEnabled True to switch all selective pruning on
+	 */
+	public void setPruningEnabled(boolean pruningEnabled)
+	{
+		setNullMovePruningEnabled(pruningEnabled);
+		setLateMoveReductionsEnabled(pruningEnabled);
+		setReverseFutilityPruningEnabled(pruningEnabled);
+	}
+
+	/**
+	 * Sets the telemetry the statistics of every completed iteration of the iterative deepening are published to (see SearchEvent). It must not be
+	 * called while the search is running.
+	 * 
+	 * @param telemetry the telemetry or null to publish nothing
+	 */
+	public void setTelemetry(SearchTelemetry telemetry)
+	{
+		this.telemetry = telemetry;
+	}
+
+	/**
+	 * Returns the number of positions visited so far by the current or last search.
+	 * 
+	 * @return the node count
+	 */
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the move ordering of the search, for example to read its cutoff statistics after a search.
+	 * 
+	 * @return the move ordering
+	 */
+	public MoveOrdering getMoveOrdering()
+	{
+		return moveOrdering;
+	}
+
+	/**
+	 * Checks if a score means that one of the players will be checkmated.
+	 * 
+	 * @param score the score
+	 * @return True if the score is a mate score, otherwise false.
+	 */
+	public static boolean isMateScore(int score)
+	{
+		return Math.abs(score) > Search.MATE_SCORE - Search.MAX_PLY;
+	}
+
+	/**
+	 * Evaluates the position on the board after a quiescence search of its captures, so that the evaluation does not stop in the middle of an
+	 * exchange. It is used by the playouts of the MonteCarloSearch and counts its nodes like a search (see getNodeCount).
+	 * 
+	 * @return the score from the perspective of the color to move
+	 */
+	int evaluateQuietly()
+	{
+		return quiescenceEnabled ? quiesce(0, -Search.INFINITE_SCORE, Search.INFINITE_SCORE) : evaluator.evaluate(board);
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	/**
+	 * Runs the iterative deepening. If there is no time manager, it only stops at the maximum depth or when the search is stopped.
+	 */
+	private SearchResult deepen(int firstDepth, int maxDepth)
+	{
+		prepareSearch();
+
+		SearchResult result = searchRoot(Math.min(firstDepth, maxDepth), PackedMove.NONE, -Search.INFINITE_SCORE, Search.INFINITE_SCORE);
+		publishIteration(result, 0);
+		long previousIterationNodeCount = nodeCount;
+		abortable = true;
+		int stableIterationCount = 0;
+		for (int depth = result.getDepth() + 1; depth <= Math.min(maxDepth, Search.MAX_PLY - 1); depth++)
+		{
+			if ((result.getBestMove() == PackedMove.NONE) || Search.isMateScore(result.getScore()) || control.isStopRequested()
+					|| (nodeCount >= nodeLimit) || ((timeManager != null) && !timeManager.canStartIteration(stableIterationCount)))
+			{
+				break;
+			}
+			long iterationStartNodeCount = nodeCount;
+			SearchResult iterationResult = searchWithAspirationWindow(depth, result);
+			if (aborted)
+			{
+				break;
+			}
+			long iterationNodeCount = nodeCount - iterationStartNodeCount;
+			publishIteration(iterationResult, (double) iterationNodeCount / Math.max(1, previousIterationNodeCount));
+			previousIterationNodeCount = iterationNodeCount;
+			stableIterationCount = (iterationResult.getBestMove() == result.getBestMove()) ? stableIterationCount + 1 : 0;
+			result = iterationResult;
+		}
+		return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodeCount, result.getPrincipalVariation());
+	}
+
+	/**
+	 * Resets the state of the search for the iterative deepening.
+	 */
+	private void prepareSearch()
+	{
+		nodeCount = 0;
+		abortable = false;
+		aborted = false;
+		startTime = System.nanoTime();
+		selectiveDepth = 0;
+		hashProbeCount = 0;
+		hashHitCount = 0;
+		moveOrdering.startSearch();
+	}
+
+	/**
+	 * Runs an iteration of the multi-PV search. The line of each rank is searched with an aspiration window around the score of the line of the
+	 * same rank in the previous iteration.
+	 * 
+	 * @param previousLines the lines of the previous iteration
+	 * @return the lines found, sorted by their scores. They are incomplete if the search has been aborted.
+	 */
+	private List<SearchResult> searchLineIteration(int depth, List<SearchResult> previousLines, int lineCount, SearchLineListener listener)
+	{
+		List<SearchResult> lines = new ArrayList<>();
+		excludedRootMoves.clear();
+		for (int rank = 0; rank < lineCount; rank++)
+		{
+			SearchResult line;
+			if (rank < previousLines.size())
+			{
+				line = searchWithAspirationWindow(depth, previousLines.get(rank));
+			}
+			else
+			{
+				line = searchRoot(depth, PackedMove.NONE, -Search.INFINITE_SCORE, Search.INFINITE_SCORE);
+			}
+			if (aborted || (line.getBestMove() == PackedMove.NONE))
+			{
+				break;
+			}
+			lines.add(line);
+			excludedRootMoves.add(line.getBestMove());
+			if (listener != null)
+			{
+				listener.noticeLineFound(rank, line);
+			}
+		}
+		// a later line may turn out better than an earlier one, because the earlier one has been searched with less knowledge in the table
+		lines.sort((line, otherLine) -> Integer.compare(otherLine.getScore(), line.getScore()));
+		return lines;
+	}
+
+	/**
+	 * Runs an iteration with a window around the score of the previous iteration. If the score falls outside the window, the iteration is repeated
+	 * with a window that is wider on that side. The best move found by a failed iteration is searched first by the next one.
+	 */
+	private SearchResult searchWithAspirationWindow(int depth, SearchResult previousResult)
+	{
+		int score = previousResult.getScore();
+		int firstMove = previousResult.getBestMove();
+		int window = Search.ASPIRATION_WINDOW;
+		int alpha = -Search.INFINITE_SCORE;
+		int beta = Search.INFINITE_SCORE;
+		if (depth >= Search.ASPIRATION_MIN_DEPTH)
+		{
+			alpha = Math.max(score - window, -Search.INFINITE_SCORE);
+			beta = Math.min(score + window, Search.INFINITE_SCORE);
+		}
+		while (true)
+		{
+			SearchResult result = searchRoot(depth, firstMove, alpha, beta);
+			if (aborted || (result.getBestMove() == PackedMove.NONE) || ((result.getScore() > alpha) && (result.getScore() < beta)))
+			{
+				return result;
+			}
+			window *= 2;
+			if (result.getScore() <= alpha)
+			{
+				alpha = Math.max(result.getScore() - window, -Search.INFINITE_SCORE);
+			}
+			else
+			{
+				beta = Math.min(result.getScore() + window, Search.INFINITE_SCORE);
+				firstMove = result.getBestMove();
+			}
+		}
+	}
+
+	/**
+	 * Searches the moves of the root position to a given depth within a window.
+	 * 
+	 * @param firstMove the move to be searched first, usually the best move of the previous iteration, or PackedMove.NONE
+	 * @return the result of the search. It is incomplete if the search has been aborted. If its score is not greater than alpha or not less than
+	 *         beta, it is only a bound of the real score.
+	 */
+	private SearchResult searchRoot(int depth, int firstMove, int alpha, int beta)
+	{
+		principalVariationEnds[0] = 0;
+		MoveList moves = moveLists[0];
+		if (gameCalc.generateMoves(moves) == 0)
+		{
+			return new SearchResult(PackedMove.NONE, getScoreWithoutMoves(0), depth, nodeCount, new int[0]);
+		}
+		for (int i = moves.size() - 1; i >= 0; i--)
+		{
+			if (excludedRootMoves.contains(moves.get(i)))
+			{
+				moves.remove(i);
+			}
+		}
+		if (moves.isEmpty())
+		{
+			// all moves are excluded
+			return new SearchResult(PackedMove.NONE, -Search.INFINITE_SCORE, depth, nodeCount, new int[0]);
+		}
+		if ((firstMove == PackedMove.NONE) && (transpositionTable != null))
+		{
+			// the root may have been searched as an inner node by the search of the last move
+			long entry = transpositionTable.probe(board.getZobristKey());
+			firstMove = (entry == TranspositionTable.NO_ENTRY) ? PackedMove.NONE : TranspositionTable.getMove(entry);
+		}
+		moveOrdering.scoreMoves(moves, 0, firstMove, PackedMove.NONE);
+		MoveOrdering.pickMove(moves, 0);
+		if (helperIndex > 0)
+		{
+			// a helper searches the first move first as well, but the other moves in its own order
+			shuffleRootMoves(moves);
+		}
+
+		int bestMove = moves.get(0);
+		int bestScore = -Search.INFINITE_SCORE;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = (helperIndex > 0) ? moves.get(i) : MoveOrdering.pickMove(moves, i);
+			playedMoves[0] = move;
+			board.makeMove(move);
+			int score = -Search.INFINITE_SCORE;
+			if (i > 0)
+			{
+				score = -negamax(depth - 1, 1, -alpha - 1, -alpha);
+			}
+			if ((i == 0) || ((score > alpha) && (score < beta)))
+			{
+				score = -negamax(depth - 1, 1, -beta, -alpha);
+			}
+			board.unmakeMove();
+			if (aborted)
+			{
+				break;
+			}
+			if (score > bestScore)
+			{
+				bestScore = score;
+				bestMove = move;
+				if (score > alpha)
+				{
+					alpha = score;
+					updatePrincipalVariation(0, move);
+					if (score >= beta)
+					{
+						break;
+					}
+				}
+			}
+		}
+		int[] principalVariation = Arrays.copyOfRange(principalVariations, 0, principalVariationEnds[0]);
+		return new SearchResult(bestMove, bestScore, depth, nodeCount, principalVariation);
+	}
+
+	/**
+	 * Searches the position on the board.
+	 * 
+	 * @param depth the remaining depth
+	 * @param ply the distance to the root
+	 * @param alpha the score the color to move is already guaranteed
+	 * @param beta the score the foe is already guaranteed (from the perspective of the color to move)
+	 * @return the score of the position. If it is not greater than alpha or not less than beta it is only a bound of the real score.
+	 */
+	private int negamax(int depth, int ply, int alpha, int beta)
+	{
+		principalVariationEnds[ply] = ply;
+		selectiveDepth = Math.max(selectiveDepth, ply);
+		if ((depth <= 0) && quiescenceEnabled)
+		{
+			return quiesce(ply, alpha, beta);
+		}
+		if (visitNode())
+		{
+			return 0;
+		}
+		if ((depth <= 0) || (ply == Search.MAX_PLY - 1))
+		{
+			return evaluator.evaluate(board);
+		}
+		long key = board.getZobristKey();
+		boolean isPrincipalVariationNode = (beta - alpha > 1);
+		int ttMove = PackedMove.NONE;
+		if (transpositionTable != null)
+		{
+			long entry = transpositionTable.probe(key);
+			hashProbeCount++;
+			hashHitCount += (entry == TranspositionTable.NO_ENTRY) ? 0 : 1;
+			ttMove = (entry == TranspositionTable.NO_ENTRY) ? PackedMove.NONE : TranspositionTable.getMove(entry);
+			// a cutoff in a node of the principal variation would cut the principal variation short
+			if ((entry != TranspositionTable.NO_ENTRY) && !isPrincipalVariationNode && (TranspositionTable.getDepth(entry) >= depth))
+			{
+				int score = TranspositionTable.getScore(entry, ply);
+				int bound = TranspositionTable.getBound(entry);
+				if ((bound == TranspositionTable.EXACT) || ((bound == TranspositionTable.LOWER_BOUND) && (score >= beta))
+						|| ((bound == TranspositionTable.UPPER_BOUND) && (score <= alpha)))
+				{
+					return score;
+				}
+			}
+		}
+		int previousMove = playedMoves[ply - 1];
+		boolean isInCheck = gameCalc.isInCheck();
+		if (!isInCheck && !isPrincipalVariationNode && !Search.isMateScore(beta) && (nullMovePruningEnabled || reverseFutilityPruningEnabled))
+		{
+			int staticScore = evaluator.evaluate(board);
+			int futilityMargin = Search.REVERSE_FUTILITY_MARGIN * depth;
+			if (reverseFutilityPruningEnabled && (depth <= Search.REVERSE_FUTILITY_MAX_DEPTH) && (staticScore - futilityMargin >= beta))
+			{
+				return staticScore - futilityMargin;
+			}
+			if (nullMovePruningEnabled && (depth >= Search.NULL_MOVE_MIN_DEPTH) && (staticScore >= beta) && (previousMove != PackedMove.NONE)
+					&& hasPiecesBesidesPawns())
+			{
+				int reduction = Search.NULL_MOVE_REDUCTION + ((depth >= Search.NULL_MOVE_DEEP_REDUCTION_DEPTH) ? 1 : 0);
+				playedMoves[ply] = PackedMove.NONE;
+				board.makeNullMove();
+				int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+				board.unmakeNullMove();
+				if (aborted)
+				{
+					return 0;
+				}
+				if (score >= beta)
+				{
+					// a mate found after passing is not a real mate
+					return Search.isMateScore(score) ? beta : score;
+				}
+			}
+		}
+
+		MoveList moves = moveLists[ply];
+		if (gameCalc.generateMoves(moves) == 0)
+		{
+			return getScoreWithoutMoves(ply);
+		}
+
+		moveOrdering.scoreMoves(moves, ply, ttMove, previousMove);
+
+		int originalAlpha = alpha;
+		int bestScore = -Search.INFINITE_SCORE;
+		int bestMove = PackedMove.NONE;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = MoveOrdering.pickMove(moves, i);
+			playedMoves[ply] = move;
+			board.makeMove(move);
+			int score = -Search.INFINITE_SCORE;
+			if (i > 0)
+			{
+				// the later moves only have to be proven worse than alpha, late quiet moves even at a reduced depth
+				int reduction = getLateMoveReduction(move, i, depth, isInCheck);
+				score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+				if ((score > alpha) && (reduction > 0))
+				{
+					score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+				}
+			}
+			if ((i == 0) || ((score > alpha) && (score < beta)))
+			{
+				score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			}
+			board.unmakeMove();
+			if (aborted)
+			{
+				return 0; // the remaining moves would not be searched anyway
+			}
+			if (score > bestScore)
+			{
+				bestScore = score;
+				if (score > alpha)
+				{
+					alpha = score;
+					bestMove = move;
+					updatePrincipalVariation(ply, move);
+					if (score >= beta)
+					{
+						moveOrdering.recordCutoff(moves, i, ply, depth, previousMove);
+						break; // the foe will avoid this position
+					}
+				}
+			}
+		}
+		if (transpositionTable != null)
+		{
+			int bound = (bestScore >= beta) ? TranspositionTable.LOWER_BOUND
+					: (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+			transpositionTable.store(key, bestMove, bestScore, depth, bound, ply);
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Searches the captures and pawn trade moves of the position on the board. If the color to move is in check, all moves are searched instead,
+	 * because standing pat is no option.
+	 * 
+	 * @param ply the distance to the root
+	 * @param alpha the score the color to move is already guaranteed
+	 * @param beta the score the foe is already guaranteed (from the perspective of the color to move)
+	 * @return the score of the position. If it is not greater than alpha or not less than beta it is only a bound of the real score.
+	 */
+	private int quiesce(int ply, int alpha, int beta)
+	{
+		principalVariationEnds[ply] = ply;
+		selectiveDepth = Math.max(selectiveDepth, ply);
+		if (visitNode())
+		{
+			return 0;
+		}
+		if (ply == Search.MAX_PLY - 1)
+		{
+			return evaluator.evaluate(board);
+		}
+
+		MoveList moves = moveLists[ply];
+		boolean isInCheck = gameCalc.isInCheck();
+		int standPatScore = -Search.INFINITE_SCORE;
+		if (isInCheck)
+		{
+			if (gameCalc.generateMoves(moves) == 0)
+			{
+				return getScoreWithoutMoves(ply);
+			}
+		}
+		else
+		{
+			standPatScore = evaluator.evaluate(board);
+			if (standPatScore >= beta)
+			{
+				return standPatScore;
+			}
+			alpha = Math.max(alpha, standPatScore);
+			gameCalc.generateCaptures(moves);
+		}
+		moveOrdering.scoreCaptures(moves);
+
+		int bestScore = standPatScore;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = MoveOrdering.pickMove(moves, i);
+			if (!isInCheck && !PackedMove.isPromotion(move) && (standPatScore + getCapturedValue(move) + Search.DELTA_MARGIN <= alpha))
+			{
+				continue; // delta pruning
+			}
+			board.makeMove(move);
+			int score = -quiesce(ply + 1, -beta, -alpha);
+			board.unmakeMove();
+			if (aborted)
+			{
+				return 0;
+			}
+			if (score > bestScore)
+			{
+				bestScore = score;
+				if (score > alpha)
+				{
+					alpha = score;
+					if (score >= beta)
+					{
+						break;
+					}
+				}
+			}
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Publishes the statistics of a completed iteration to the telemetry, if there is one.
+	 * 
+	 * @param branchingFactor the node count of the iteration divided by the node count of the previous iteration, or 0 if there is none
+	 */
+	private void publishIteration(SearchResult result, double branchingFactor)
+	{
+		if (telemetry == null)
+		{
+			return;
+		}
+		long elapsedTime = (System.nanoTime() - startTime) / (1000 * 1000);
+		int hashUsage = (transpositionTable == null) ? 0 : transpositionTable.getUsage();
+		double hashHitRate = (hashProbeCount == 0) ? 0 : (double) hashHitCount / hashProbeCount;
+		telemetry.publish(new SearchEvent(this, result, selectiveDepth, elapsedTime, hashUsage, hashHitRate, branchingFactor));
+	}
+
+	/**
+	 * Sets the principal variation of a ply to a move followed by the principal variation of the next ply.
+	 */
+	private void updatePrincipalVariation(int ply, int move)
+	{
+		int start = ply * Search.MAX_PLY;
+		principalVariations[start + ply] = move;
+		int childEnd = principalVariationEnds[ply + 1];
+		System.arraycopy(principalVariations, (ply + 1) * Search.MAX_PLY + ply + 1, principalVariations, start + ply + 1, childEnd - ply - 1);
+		principalVariationEnds[ply] = childEnd;
+	}
+
+	/**
+	 * Returns by how many plies a move of the position before the move is searched less deep. The move has already been made on the board.
+	 */
+	private int getLateMoveReduction(int move, int rank, int depth, boolean wasInCheck)
+	{
+		if (!lateMoveReductionsEnabled || (depth < Search.LMR_MIN_DEPTH) || (rank < Search.LMR_FULL_DEPTH_MOVE_COUNT) || wasInCheck
+				|| PackedMove.isCapture(move) || PackedMove.isPromotion(move) || gameCalc.isInCheck())
+		{
+			return 0;
+		}
+		int[] reductions = Search.LMR_REDUCTIONS[Math.min(depth, Search.LMR_REDUCTIONS.length - 1)];
+		// the reduced search must not drop into the quiescence search directly
+		return Math.min(reductions[Math.min(rank, reductions.length - 1)], depth - 2);
+	}
+
+	/**
+	 * Checks if the color to move has a piece other than pawns and its king. Without such a piece zugzwang is common, so passing is no good test.
+	 */
+	private boolean hasPiecesBesidesPawns()
+	{
+		Position position = board.getPosition();
+		ChessColor color = position.getColorToMove();
+		return (position.getOccupancy(color) & ~position.getPieces(Type.PAWN, color) & ~position.getPieces(Type.KING, color)) != 0;
+	}
+
+	/**
+	 * Counts a visited node and checks from time to time if the search has to be paused or aborted. A pause parks the thread right here, so the
+	 * search goes on with its state intact when it is resumed.
+	 * 
+	 * @return True if the search has been aborted, otherwise false.
+	 */
+	private boolean visitNode()
+	{
+		nodeCount++;
+		if ((nodeCount % Search.NODES_PER_CHECK) == 0)
+		{
+			if (control.isPauseRequested())
+			{
+				long pauseStart = System.nanoTime();
+				control.awaitResume();
+				if (timeManager != null)
+				{
+					timeManager.excludePause(System.nanoTime() - pauseStart);
+				}
+			}
+			if (abortable && (control.isStopRequested() || (nodeCount >= nodeLimit)
+					|| ((timeManager != null) && timeManager.isHardLimitReached())))
+			{
+				aborted = true;
+			}
+		}
+		return aborted;
+	}
+
+	/**
+	 * Returns the value of the piece captured by a move in centipawns.
+	 */
+	private int getCapturedValue(int move)
+	{
+		if (PackedMove.isEnPassant(move))
+		{
+			return PieceDefaultValueEvaluation.getCentipawns(Type.PAWN);
+		}
+		int pieceCode = board.getPosition().getPieceCode(PackedMove.getTo(move));
+		return (pieceCode == Position.EMPTY) ? 0 : PieceDefaultValueEvaluation.getCentipawns(Position.getType(pieceCode));
+	}
+
+	/**
+	 * Shuffles all root moves but the first one by a random order that depends on the helper index and the node count.
+	 */
+	private void shuffleRootMoves(MoveList moves)
+	{
+		long random = (helperIndex * 0x9E3779B97F4A7C15L) ^ nodeCount;
+		for (int i = moves.size() - 1; i > 1; i--)
+		{
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			moves.swap(i, 1 + (int) ((random >>> 33) % i));
+		}
+	}
+
+	private static int[][] createLateMoveReductions()
+	{
+		int[][] reductions = new int[64][64];
+		for (int depth = 1; depth < reductions.length; depth++)
+		{
+			for (int rank = 1; rank < reductions[depth].length; rank++)
+			{
+				reductions[depth][rank] = Math.max(1, (int) (0.5 + Math.log(depth) * Math.log(rank) / 2.25));
+			}
+		}
+		return reductions;
+	}
+
+	/**
+	 * Returns the score of a position in which the color to move has no legal move: checkmate or stalemate.
+	 */
+	private int getScoreWithoutMoves(int ply)
+	{
+		return gameCalc.isInCheck() ? -Search.MATE_SCORE + ply : 0;
+	}
+}
@@ -0,0 +1,132 @@
+package user.schubert.richard;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Lets other threads stop or pause a running search. The requests are volatile flags that the search looks at every few nodes (see
+ * Search.NODES_PER_CHECK), so asking for them costs the search no locking. A stopped search returns the result of its last completed iteration
+ * within MAX_STOP_LATENCY. A paused search parks its thread and goes on where it left off when it is resumed; its search tree, tables and time
+ * (see TimeManager.excludePause) are kept.
+ *
+ * A control can have a parent, for example the controls of the helpers of a parallel search have the control of the main search as their parent.
+ * Such a control is stopped if it or its parent is stopped, but it is paused and resumed only together with its parent.
+ */
+public final class SearchControl
+{
+	/**
+	 * The time a search takes at most to return after stop has been called (in milliseconds), unless the machine is overloaded.
+	 */
+	public static final long MAX_STOP_LATENCY = 5;
+
+	private final SearchControl parent;
+	private volatile boolean stopRequested;
+	private volatile boolean pauseRequested;
+	/**
+	 * The threads parked by this control and its children. Only the control without a parent keeps them.
+	 */
+	private final Queue<Thread> parkedThreads;
+
+	/**
+	 * Creates a control that is neither stopped nor paused.
+	 */
+	public SearchControl()
+	{
+		this(null);
+	}
+
+	/**
+	 * Creates a control that obeys another control as well.
+	 *
+	 * @param parent the control whose stop and pause requests apply to this control too, or null
+	 */
+	public SearchControl(SearchControl parent)
+	{
+		this.parent = parent;
+		parkedThreads = (parent == null) ? new ConcurrentLinkedQueue<>() : null;
+	}
+
+	/**
+	 * Asks the search to stop as soon as possible. It may be called by any thread. A stopped control cannot be used again.
+	 */
+	public void stop()
+	{
+		stopRequested = true;
+		// a paused search has to wake up to stop
+		for (Thread thread : getRoot().parkedThreads)
+		{
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Asks the search to pause. It may be called by any thread.
+	 */
+	public void pause()
+	{
+		getRoot().pauseRequested = true;
+	}
+
+	/**
+	 * Resumes a paused search. It may be called by any thread.
+	 */
+	public void resume()
+	{
+		SearchControl root = getRoot();
+		root.pauseRequested = false;
+		for (Thread thread : root.parkedThreads)
+		{
+			LockSupport.unpark(thread);
+		}
+	}
+
+	public boolean isStopRequested()
+	{
+		return stopRequested || ((parent != null) && parent.isStopRequested());
+	}
+
+	public boolean isPauseRequested()
+	{
+		return getRoot().pauseRequested;
+	}
+
+	/**
+	 * Checks if a search thread is parked by this control, its parent or one of their children.
+	 *
+	 * @return True if a search is paused, otherwise false.
+	 */
+	public boolean isPaused()
+	{
+		return !getRoot().parkedThreads.isEmpty();
+	}
+
+	/**
+	 * Parks the calling thread as long as a pause is requested and no stop. It is called by the search.
+	 */
+	void awaitResume()
+	{
+		Queue<Thread> threads = getRoot().parkedThreads;
+		Thread thread = Thread.currentThread();
+		threads.add(thread);
+		try
+		{
+			// parking may end spuriously, so the flags are looked at again
+			while (isPauseRequested() && !isStopRequested())
+			{
+				LockSupport.park(this);
+			}
+		}
+		finally
+		{
+			threads.remove(thread);
+		}
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private SearchControl getRoot()
+	{
+		return (parent == null) ? this : parent.getRoot();
+	}
+}
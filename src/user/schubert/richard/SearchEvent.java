@@ -0,0 +1,122 @@
+package user.schubert.richard;
+
+import java.util.EventObject;
+
+/**
+ * The statistics of a completed iteration of the iterative deepening. The counts are summed up from the start of the search.
+ */
+public final class SearchEvent extends EventObject
+{
+	private static final long serialVersionUID = 1L;
+	private final SearchResult result;
+	private final int selectiveDepth;
+	private final long elapsedTime;
+	private final int hashUsage;
+	private final double hashHitRate;
+	private final double branchingFactor;
+
+	/**
+	 * Creates an event.
+	 * 
+	 * @param source the search
+	 * @param result the result of the iteration, containing the depth, the node count and the principal variation
+	 * @param selectiveDepth the greatest distance to the root that the search reached, including the quiescence search
+	 * @param elapsedTime the time since the start of the search (in milliseconds)
+	 * @param hashUsage the share of the transposition table used by the search in permille (see TranspositionTable.getUsage)
+	 * @param hashHitRate the share of the transposition table probes that found the position
+	 * @param branchingFactor the number of nodes of the iteration divided by the number of nodes of the previous iteration
+	 */
+	public SearchEvent(Object source, SearchResult result, int selectiveDepth, long elapsedTime, int hashUsage, double hashHitRate,
+			double branchingFactor)
+	{
+		super(source);
+		this.result = result;
+		this.selectiveDepth = selectiveDepth;
+		this.elapsedTime = elapsedTime;
+		this.hashUsage = hashUsage;
+		this.hashHitRate = hashHitRate;
+		this.branchingFactor = branchingFactor;
+	}
+
+	public SearchResult getResult()
+	{
+		return result;
+	}
+
+	public int getDepth()
+	{
+		return result.getDepth();
+	}
+
+	public int getSelectiveDepth()
+	{
+		return selectiveDepth;
+	}
+
+	public long getNodeCount()
+	{
+		return result.getNodeCount();
+	}
+
+	/**
+	 * Returns the elapsed time since the start of the search.
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+
+	/**
+	 * Returns the speed of the search.
+	 * 
+	 * @return the nodes per second
+	 */
+	public long getNodesPerSecond()
+	{
+		return result.getNodeCount() * 1000 / Math.max(1, elapsedTime);
+	}
+
+	/**
+	 * Returns the share of the transposition table that is used by the search.
+	 * 
+	 * @return the usage in permille or 0 if the search has no table
+	 */
+	public int getHashUsage()
+	{
+		return hashUsage;
+	}
+
+	/**
+	 * Returns the share of the transposition table probes that found the position.
+	 * 
+	 * @return the hit rate between 0 and 1
+	 */
+	public double getHashHitRate()
+	{
+		return hashHitRate;
+	}
+
+	/**
+	 * Returns the effective branching factor: how many times more nodes the iteration needed than the one before.
+	 * 
+	 * @return the branching factor or 0 for the first iteration
+	 */
+	public double getBranchingFactor()
+	{
+		return branchingFactor;
+	}
+
+	public int[] getPrincipalVariation()
+	{
+		return result.getPrincipalVariation();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s   |   seldepth %d   |   nps %d   |   hash %d permille, %.0f%% hits   |   branching %.2f", result, selectiveDepth,
+				getNodesPerSecond(), hashUsage, 100 * hashHitRate, branchingFactor);
+	}
+}
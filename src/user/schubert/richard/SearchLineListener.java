@@ -0,0 +1,15 @@
+package user.schubert.richard;
+
+import java.util.EventListener;
+
+public interface SearchLineListener extends EventListener
+{
+	/**
+	 * Is called by the search thread whenever a line of the multi-PV search (see Search.searchLines) has been completed, so it should return
+	 * quickly.
+	 * 
+	 * @param rank the rank of the line within its iteration, starting at 0 for the line of the best move
+	 * @param line the best move of the line, its score and its principal variation
+	 */
+	public void noticeLineFound(int rank, SearchResult line);
+}
@@ -0,0 +1,12 @@
+package user.schubert.richard;
+
+import java.util.EventListener;
+
+public interface SearchListener extends EventListener
+{
+	/**
+	 * Is called after an iteration of the iterative deepening has been completed. It is called by the thread of the SearchTelemetry, never by the
+	 * search thread, so it may take its time; events that come in meanwhile may be dropped, though.
+	 */
+	public void noticeIterationCompleted(SearchEvent e);
+}
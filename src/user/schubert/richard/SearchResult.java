@@ -0,0 +1,107 @@
+package user.schubert.richard;
+
+import java.util.*;
+
+import core.*;
+
+/**
+ * The result of a search: the best move found, its score, the principal variation and some statistics. Objects of this class are immutable.
+ */
+public final class SearchResult
+{
+	private final int bestMove;
+	private final int score;
+	private final int depth;
+	private final long nodeCount;
+	private final int[] principalVariation;
+
+	public SearchResult(int bestMove, int score, int depth, long nodeCount)
+	{
+		this(bestMove, score, depth, nodeCount, (bestMove == PackedMove.NONE) ? new int[0] : new int[]
+		{ bestMove });
+	}
+
+	/**
+	 * Creates a result with a principal variation.
+	 * 
+	 * @param principalVariation the moves expected to be played from the searched position on (see PackedMove). The array is copied.
+	 */
+	public SearchResult(int bestMove, int score, int depth, long nodeCount, int[] principalVariation)
+	{
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodeCount = nodeCount;
+		this.principalVariation = principalVariation.clone();
+	}
+
+	/**
+	 * Returns the best move.
+	 * 
+	 * @return the packed move (see PackedMove) or PackedMove.NONE if there is no legal move
+	 */
+	public int getBestMove()
+	{
+		return bestMove;
+	}
+
+	/**
+	 * Returns the best move as a Move object.
+	 * 
+	 * @param board the board whose squares the move will refer to
+	 * @return the move or null if there is no legal move
+	 */
+	public Move getBestMove(Board board)
+	{
+		return (bestMove == PackedMove.NONE) ? null : PackedMove.toMove(bestMove, board);
+	}
+
+	/**
+	 * Returns the score of the best move in centipawns from the perspective of the color to move.
+	 * 
+	 * @return the score
+	 */
+	public int getScore()
+	{
+		return score;
+	}
+
+	public int getDepth()
+	{
+		return depth;
+	}
+
+	/**
+	 * Returns the number of positions that were visited by the search.
+	 * 
+	 * @return the node count
+	 */
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the principal variation: the best move followed by the best replies of both colors, as far as the search has seen them. It may be
+	 * shorter than the depth, for example if the game ends earlier.
+	 * 
+	 * @return a copy of the packed moves (see PackedMove). It is empty if there is no legal move.
+	 */
+	public int[] getPrincipalVariation()
+	{
+		return principalVariation.clone();
+	}
+
+	@Override
+	public String toString()
+	{
+		String move = (bestMove == PackedMove.NONE) ? "none" : PackedMove.toString(bestMove);
+		StringJoiner principalVariationText = new StringJoiner(" ");
+		for (int pvMove : principalVariation)
+		{
+			principalVariationText.add(PackedMove.toString(pvMove));
+		}
+		return "depth " + depth + "   |   move " + move + "   |   score " + score + "   |   nodes " + nodeCount + "   |   pv "
+				+ principalVariationText;
+	}
+}
@@ -0,0 +1,133 @@
+package user.schubert.richard;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Delivers the statistics of the iterations of a search (see SearchEvent) to listeners without slowing the search down. The search only puts the
+ * events into a bounded queue; a thread of the telemetry takes them out and calls the listeners. If the queue is full because the listeners are
+ * slower than the search, the event is dropped instead of making the search wait.
+ *
+ * The queue is a ring buffer for a single producer and a single consumer, so it needs no locking: the producer only writes the tail and the
+ * consumer only writes the head. Only one search at a time may publish to a telemetry. Several searches may use it one after another, for example
+ * the searches for the moves of a game.
+ */
+public final class SearchTelemetry
+{
+	/**
+	 * The number of events the queue holds if no other capacity is requested.
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final SearchEvent[] events;
+	/**
+	 * The number of events taken out of the queue. It is only written by the consumer.
+	 */
+	private volatile long head;
+	/**
+	 * The number of events put into the queue. It is only written by the producer.
+	 */
+	private volatile long tail;
+	private volatile long droppedCount;
+	private volatile boolean closed;
+	private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+	private final Thread consumer;
+
+	/**
+	 * Creates a telemetry with a queue of DEFAULT_CAPACITY events.
+	 */
+	public SearchTelemetry()
+	{
+		this(SearchTelemetry.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a telemetry and starts its thread.
+	 *
+	 * @param capacity the number of events the queue holds (at least 1)
+	 */
+	public SearchTelemetry(int capacity)
+	{
+		if (capacity < 1)
+		{
+			throw new IllegalArgumentException("The queue of a telemetry must hold at least one event.");
+		}
+		events = new SearchEvent[capacity];
+		consumer = new Thread(this::deliverEvents, "Search telemetry");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	public void addListener(SearchListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	public void removeListener(SearchListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Puts an event into the queue. It never blocks. It is called by the search.
+	 *
+	 * @param event the event
+	 * @return True if the event has been queued, false if it has been dropped because the queue is full or the telemetry is closed.
+	 */
+	public boolean publish(SearchEvent event)
+	{
+		long currentTail = tail;
+		if (closed || (currentTail - head == events.length))
+		{
+			droppedCount++; // only written by the producer as well
+			return false;
+		}
+		events[(int) (currentTail % events.length)] = event;
+		tail = currentTail + 1; // makes the event visible to the consumer
+		LockSupport.unpark(consumer);
+		return true;
+	}
+
+	/**
+	 * Returns the number of events that have been dropped.
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount()
+	{
+		return droppedCount;
+	}
+
+	/**
+	 * Stops the thread of the telemetry. Events that have not been delivered yet are dropped.
+	 */
+	public void close()
+	{
+		closed = true;
+		LockSupport.unpark(consumer);
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private void deliverEvents()
+	{
+		while (!closed)
+		{
+			long currentHead = head;
+			if (currentHead == tail)
+			{
+				LockSupport.park(this);
+				continue;
+			}
+			int index = (int) (currentHead % events.length);
+			SearchEvent event = events[index];
+			events[index] = null;
+			head = currentHead + 1; // frees the slot for the producer
+			for (SearchListener listener : listeners)
+			{
+				listener.noticeIterationCompleted(event);
+			}
+		}
+	}
+}
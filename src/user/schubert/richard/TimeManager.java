@@ -0,0 +1,201 @@
+package user.schubert.richard;
+
+/**
+ * Decides how long the search for a move may take. The time is split into two limits:
+ * <ul>
+ * <li>The soft limit is the time the search should take. A new iteration of the iterative deepening is only started while the soft limit has not
+ * been reached. The more iterations in a row have found the same best move, the earlier the search stops, because a further iteration is unlikely
+ * to change the move.</li>
+ * <li>The hard limit is the time the search must not exceed. When it is reached the current iteration is aborted and the best move of the last
+ * completed iteration is played.</li>
+ * </ul>
+ * The soft limit is the remaining time divided by the number of moves the game is expected to last, so that there is always time left for the
+ * following moves. A safety margin is kept for the overhead of making the move.
+ *
+ * A time manager can also be created for pondering, a search on the opponent's time in the position after the expected reply. It has no limits
+ * until the pondering ends: either the opponent plays the expected reply and the limits are set from the clock (see ponderHit), so the running
+ * search simply goes on as the search for the move, or the opponent plays another move and the search is stopped (see stop). Both may be called
+ * by another thread than the one of the search.
+ */
+public final class TimeManager
+{
+	/**
+	 * The time that is kept in reserve for making the move (in milliseconds).
+	 */
+	public static final long SAFETY_MARGIN = 50;
+
+	/**
+	 * The number of moves a game is expected to last.
+	 */
+	private static final int EXPECTED_MOVE_COUNT = 50;
+	/**
+	 * The number of moves the remaining time is split into at least, even if the game has already lasted longer than expected.
+	 */
+	private static final int MIN_MOVES_TO_GO = 15;
+	/**
+	 * The hard limit is at most this multiple of the soft limit...
+	 */
+	private static final int HARD_LIMIT_FACTOR = 4;
+	/**
+	 * ...and at most this share of the remaining time.
+	 */
+	private static final double MAX_HARD_LIMIT_SHARE = 0.25;
+	/**
+	 * The share of the soft limit after which no new iteration is started, indexed by the number of iterations in a row that found the same best
+	 * move.
+	 */
+	private static final double[] STABILITY_SHARES =
+	{ 1.0, 0.8, 0.6, 0.45, 0.35 };
+
+	private volatile long softLimit;
+	private volatile long hardLimit;
+	private volatile long startTime;
+	private volatile boolean isPondering;
+	private volatile boolean stopped;
+
+	/**
+	 * Creates a time manager for the clock of the moving player.
+	 *
+	 * @param remainingTime the remaining time of the moving player (in milliseconds)
+	 * @param moveNumber the number of the move to be searched, starting at 1
+	 */
+	public TimeManager(long remainingTime, int moveNumber)
+	{
+		setLimits(remainingTime, moveNumber);
+		start();
+	}
+
+	private TimeManager(long moveTime)
+	{
+		softLimit = moveTime;
+		hardLimit = moveTime;
+		start();
+	}
+
+	/**
+	 * Creates a time manager that allows exactly a given time.
+	 *
+	 * @param moveTime the time the search may take (in milliseconds)
+	 * @return the time manager
+	 */
+	public static TimeManager createForMoveTime(long moveTime)
+	{
+		return new TimeManager(moveTime);
+	}
+
+	/**
+	 * Creates a time manager for pondering. It allows any time until ponderHit or stop is called.
+	 *
+	 * @return the time manager
+	 */
+	public static TimeManager createForPondering()
+	{
+		TimeManager timeManager = new TimeManager(Long.MAX_VALUE);
+		timeManager.isPondering = true;
+		return timeManager;
+	}
+
+	/**
+	 * Ends the pondering because the opponent has played the expected reply: the limits are set as if the time manager had been created for the
+	 * clock of the moving player now, and the time is measured from now on.
+	 *
+	 * @param remainingTime the remaining time of the moving player (in milliseconds)
+	 * @param moveNumber the number of the move to be searched, starting at 1
+	 */
+	public void ponderHit(long remainingTime, int moveNumber)
+	{
+		start();
+		setLimits(remainingTime, moveNumber);
+		isPondering = false;
+	}
+
+	/**
+	 * Checks if the time manager has been created for pondering and the pondering has not ended yet.
+	 *
+	 * @return True while pondering, otherwise false.
+	 */
+	public boolean isPondering()
+	{
+		return isPondering && !stopped;
+	}
+
+	/**
+	 * Makes the search stop as if the hard limit had been reached, for example because the opponent has not played the expected reply.
+	 */
+	public void stop()
+	{
+		stopped = true;
+	}
+
+	/**
+	 * Starts measuring the time of the search. It is called by the constructor already and only needs to be called if the search starts later.
+	 */
+	public void start()
+	{
+		startTime = System.nanoTime();
+	}
+
+	/**
+	 * Leaves a pause of the search out of its elapsed time, so that a paused search has the same time left when it is resumed.
+	 *
+	 * @param pauseTime the duration of the pause (in nanoseconds)
+	 */
+	public void excludePause(long pauseTime)
+	{
+		startTime += pauseTime;
+	}
+
+	/**
+	 * Returns the time that has passed since the search started.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedTime()
+	{
+		return (System.nanoTime() - startTime) / (1000 * 1000);
+	}
+
+	public long getSoftLimit()
+	{
+		return softLimit;
+	}
+
+	public long getHardLimit()
+	{
+		return hardLimit;
+	}
+
+	/**
+	 * Checks if another iteration of the iterative deepening may be started.
+	 *
+	 * @param stableIterationCount the number of completed iterations in a row that found the same best move as their predecessor
+	 * @return True if another iteration may be started, otherwise false.
+	 */
+	public boolean canStartIteration(int stableIterationCount)
+	{
+		double share = TimeManager.STABILITY_SHARES[Math.min(stableIterationCount, TimeManager.STABILITY_SHARES.length - 1)];
+		return !stopped && (getElapsedTime() < share * softLimit);
+	}
+
+	/**
+	 * Checks if the search has to be aborted.
+	 *
+	 * @return True if the hard limit has been reached, otherwise false.
+	 */
+	public boolean isHardLimitReached()
+	{
+		return stopped || (getElapsedTime() >= hardLimit);
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	private void setLimits(long remainingTime, int moveNumber)
+	{
+		long availableTime = Math.max(0, remainingTime - TimeManager.SAFETY_MARGIN);
+		int movesToGo = Math.max(TimeManager.MIN_MOVES_TO_GO, TimeManager.EXPECTED_MOVE_COUNT - moveNumber);
+		long newSoftLimit = availableTime / movesToGo;
+		long maxHardLimit = (long) (availableTime * TimeManager.MAX_HARD_LIMIT_SHARE);
+		hardLimit = Math.max(newSoftLimit, Math.min(TimeManager.HARD_LIMIT_FACTOR * newSoftLimit, maxHardLimit));
+		softLimit = newSoftLimit;
+	}
+}
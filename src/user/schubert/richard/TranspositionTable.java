@@ -0,0 +1,390 @@
+package user.schubert.richard;
+
+import java.lang.reflect.*;
+import java.nio.*;
+
+import core.*;
+
+/**
+ * A hash table that stores the results of searched positions, indexed by their Zobrist key, so that a position that is reached again by another
+ * move order (a transposition) or in a later iteration does not have to be searched again.
+ *
+ * The table has a fixed size and lives outside of the Java heap in direct byte buffers, so even a table of several gigabytes does not have to be
+ * scanned or moved by the garbage collector. A direct buffer holds at most 2 GB, so larger tables are split into segments.
+ *
+ * The table is divided into buckets of 64 bytes, the size of a cache line. A direct buffer is not aligned to a cache line by itself (its base is
+ * often 16 bytes off), so every segment is allocated one bucket larger and sliced at the first cache line boundary; then a probe touches only one
+ * cache line. Java 8 has no API for the address of a direct buffer, so it is read from the address field of Buffer by sun.misc.Unsafe, which all
+ * HotSpot versions since Java 8 provide. A bucket holds BUCKET_SIZE entries of two longs each: the data of the entry (see below) and its key XOR-ed
+ * with the data. The table is shared by all search threads without any locking. If two threads write an entry at the same time, the key and the data
+ * of the entry may come from different writes. Such an entry does not pass the XOR check of probe and is treated as empty.
+ *
+ * Layout of the data (bits):
+ * <ul>
+ * <li>0-17: the best move (see PackedMove) or PackedMove.NONE</li>
+ * <li>18-37: the score plus SCORE_OFFSET</li>
+ * <li>38-45: the depth</li>
+ * <li>46-47: the bound (UPPER_BOUND, LOWER_BOUND or EXACT)</li>
+ * <li>48-55: the age, the number of the search that stored the entry</li>
+ * </ul>
+ * The data of a stored entry is never 0 because its bound is not 0, so NO_ENTRY marks an empty entry.
+ *
+ * When an entry is stored and its position is not in the bucket yet, it replaces the entry with the least value: the depth minus a penalty for
+ * every search since the entry has been stored. So deep entries survive, but only until they are outdated.
+ */
+public final class TranspositionTable
+{
+	/**
+	 * The result of probe if the position is not in the table.
+	 */
+	public static final long NO_ENTRY = 0;
+	/**
+	 * The score is an upper bound: no move reached alpha.
+	 */
+	public static final int UPPER_BOUND = 1;
+	/**
+	 * The score is a lower bound: a move reached beta.
+	 */
+	public static final int LOWER_BOUND = 2;
+	/**
+	 * The score is exact.
+	 */
+	public static final int EXACT = 3;
+	/**
+	 * The size of a table if no other size is requested (in megabytes).
+	 */
+	public static final int DEFAULT_SIZE = 64;
+	/**
+	 * The maximum size of a table (in megabytes): 256 GB. The bucket of a key is computed from 32 bits of the key, so a table can have at most 2^32
+	 * buckets.
+	 */
+	public static final int MAX_SIZE = 256 * 1024;
+
+	private static final int ENTRY_BYTES = 16;
+	private static final int BUCKET_BYTES = 64;
+	private static final int BUCKET_SIZE = TranspositionTable.BUCKET_BYTES / TranspositionTable.ENTRY_BYTES;
+	/**
+	 * The number of buckets per segment. A segment has 1 GB.
+	 */
+	private static final int SEGMENT_BUCKET_COUNT = (1 << 30) / TranspositionTable.BUCKET_BYTES;
+
+	private static final int MOVE_BITS = 18;
+	private static final int SCORE_SHIFT = TranspositionTable.MOVE_BITS;
+	private static final int SCORE_BITS = 20;
+	private static final int SCORE_OFFSET = 1 << (TranspositionTable.SCORE_BITS - 1);
+	private static final int DEPTH_SHIFT = TranspositionTable.SCORE_SHIFT + TranspositionTable.SCORE_BITS;
+	private static final int MAX_DEPTH = 255;
+	private static final int BOUND_SHIFT = TranspositionTable.DEPTH_SHIFT + 8;
+	private static final int AGE_SHIFT = TranspositionTable.BOUND_SHIFT + 2;
+	private static final int AGE_MASK = 255;
+	/**
+	 * The depth an entry loses in the replacement decision for every search since it has been stored.
+	 */
+	private static final int AGE_PENALTY = 8;
+	/**
+	 * The number of buckets looked at by getUsage.
+	 */
+	private static final int USAGE_SAMPLE_SIZE = 1000;
+	/**
+	 * The instance of sun.misc.Unsafe, or null if the JVM has none.
+	 */
+	private static final Object UNSAFE;
+	/**
+	 * Unsafe.getLong(Object, long), which reads the address field of a buffer.
+	 */
+	private static final Method GET_LONG;
+	/**
+	 * The offset of the field Buffer.address, which holds the address of a direct buffer.
+	 */
+	private static final long ADDRESS_OFFSET;
+
+	static
+	{
+		Object unsafe = null;
+		Method getLong = null;
+		long addressOffset = -1;
+		try
+		{
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafe = unsafeField.get(null);
+			getLong = unsafeClass.getMethod("getLong", Object.class, long.class);
+			addressOffset = (Long) unsafeClass.getMethod("objectFieldOffset", Field.class).invoke(unsafe, Buffer.class.getDeclaredField("address"));
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			unsafe = null;
+		}
+		UNSAFE = unsafe;
+		GET_LONG = getLong;
+		ADDRESS_OFFSET = addressOffset;
+	}
+
+	private final ByteBuffer[] segments;
+	private final long bucketCount;
+	private int age;
+
+	/**
+	 * Creates an empty table.
+	 *
+	 * @param size the size of the table in megabytes (1 to MAX_SIZE)
+	 */
+	public TranspositionTable(int size)
+	{
+		if ((size < 1) || (size > TranspositionTable.MAX_SIZE))
+		{
+			throw new IllegalArgumentException("The size of a transposition table must be between 1 MB and " + TranspositionTable.MAX_SIZE + " MB.");
+		}
+		bucketCount = (long) size * 1024 * 1024 / TranspositionTable.BUCKET_BYTES;
+		int segmentCount = (int) ((bucketCount + TranspositionTable.SEGMENT_BUCKET_COUNT - 1) / TranspositionTable.SEGMENT_BUCKET_COUNT);
+		segments = new ByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++)
+		{
+			long firstBucket = (long) i * TranspositionTable.SEGMENT_BUCKET_COUNT;
+			int segmentBucketCount = (int) Math.min(TranspositionTable.SEGMENT_BUCKET_COUNT, bucketCount - firstBucket);
+			segments[i] = TranspositionTable.allocateAligned(segmentBucketCount * TranspositionTable.BUCKET_BYTES);
+		}
+	}
+
+	/**
+	 * Returns the size of the table.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getSize()
+	{
+		return bucketCount * TranspositionTable.BUCKET_BYTES;
+	}
+
+	/**
+	 * Marks the start of a new search, so that the entries of earlier searches are replaced more readily. It must be called by one thread only,
+	 * before the search threads start.
+	 */
+	public void newSearch()
+	{
+		age = (age + 1) & TranspositionTable.AGE_MASK;
+	}
+
+	/**
+	 * Removes all entries. No search may use the table in the meantime.
+	 */
+	public void clear()
+	{
+		for (ByteBuffer segment : segments)
+		{
+			for (int offset = 0; offset < segment.capacity(); offset += Long.BYTES)
+			{
+				segment.putLong(offset, 0);
+			}
+		}
+		age = 0;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key the Zobrist key of the position
+	 * @return the data of the entry (see getMove, getScore, getDepth and getBound) or NO_ENTRY if the position is not in the table
+	 */
+	public long probe(long key)
+	{
+		long bucket = getBucket(key);
+		ByteBuffer segment = segments[(int) (bucket / TranspositionTable.SEGMENT_BUCKET_COUNT)];
+		int bucketOffset = (int) (bucket % TranspositionTable.SEGMENT_BUCKET_COUNT) * TranspositionTable.BUCKET_BYTES;
+		for (int offset = bucketOffset; offset < bucketOffset + TranspositionTable.BUCKET_BYTES; offset += TranspositionTable.ENTRY_BYTES)
+		{
+			long data = segment.getLong(offset + Long.BYTES);
+			if ((data != TranspositionTable.NO_ENTRY) && ((segment.getLong(offset) ^ data) == key))
+			{
+				return data;
+			}
+		}
+		return TranspositionTable.NO_ENTRY;
+	}
+
+	/**
+	 * Stores the result of the search of a position.
+	 *
+	 * @param key the Zobrist key of the position
+	 * @param move the best move or PackedMove.NONE if it is not known. In the latter case the move of an existing entry of the position is kept.
+	 * @param score the score of the position
+	 * @param depth the depth the position has been searched to
+	 * @param bound UPPER_BOUND, LOWER_BOUND or EXACT
+	 * @param ply the distance of the position to the root, needed to store mate scores independently of the root
+	 */
+	public void store(long key, int move, int score, int depth, int bound, int ply)
+	{
+		long bucket = getBucket(key);
+		ByteBuffer segment = segments[(int) (bucket / TranspositionTable.SEGMENT_BUCKET_COUNT)];
+		int bucketOffset = (int) (bucket % TranspositionTable.SEGMENT_BUCKET_COUNT) * TranspositionTable.BUCKET_BYTES;
+
+		int replacedOffset = bucketOffset;
+		int replacedValue = Integer.MAX_VALUE;
+		for (int offset = bucketOffset; offset < bucketOffset + TranspositionTable.BUCKET_BYTES; offset += TranspositionTable.ENTRY_BYTES)
+		{
+			long data = segment.getLong(offset + Long.BYTES);
+			if (data == TranspositionTable.NO_ENTRY)
+			{
+				replacedOffset = offset;
+				break;
+			}
+			if ((segment.getLong(offset) ^ data) == key)
+			{
+				replacedOffset = offset;
+				if (move == PackedMove.NONE)
+				{
+					move = TranspositionTable.getMove(data);
+				}
+				break;
+			}
+			int value = TranspositionTable.getDepth(data) - TranspositionTable.AGE_PENALTY * getAgeDifference(data);
+			if (value < replacedValue)
+			{
+				replacedOffset = offset;
+				replacedValue = value;
+			}
+		}
+
+		long data = move | ((long) (TranspositionTable.toTableScore(score, ply) + TranspositionTable.SCORE_OFFSET) << TranspositionTable.SCORE_SHIFT)
+				| ((long) Math.max(0, Math.min(depth, TranspositionTable.MAX_DEPTH)) << TranspositionTable.DEPTH_SHIFT)
+				| ((long) bound << TranspositionTable.BOUND_SHIFT) | ((long) age << TranspositionTable.AGE_SHIFT);
+		segment.putLong(replacedOffset + Long.BYTES, data);
+		segment.putLong(replacedOffset, key ^ data);
+	}
+
+	/**
+	 * Estimates how much of the table is used by the current search. Only the first USAGE_SAMPLE_SIZE buckets of the first segment are looked at,
+	 * which is a fair sample because the buckets of the keys are spread evenly over the table.
+	 *
+	 * @return the share of entries stored by the current search in permille
+	 */
+	public int getUsage()
+	{
+		long sampleSize = Math.min(TranspositionTable.USAGE_SAMPLE_SIZE, bucketCount);
+		int usedCount = 0;
+		for (int offset = 0; offset < sampleSize * TranspositionTable.BUCKET_BYTES; offset += TranspositionTable.ENTRY_BYTES)
+		{
+			long data = segments[0].getLong(offset + Long.BYTES);
+			usedCount += ((data != TranspositionTable.NO_ENTRY) && (getAgeDifference(data) == 0)) ? 1 : 0;
+		}
+		return (int) (1000 * usedCount / (sampleSize * TranspositionTable.BUCKET_SIZE));
+	}
+
+	public static int getMove(long data)
+	{
+		return (int) data & ((1 << TranspositionTable.MOVE_BITS) - 1);
+	}
+
+	/**
+	 * Returns the score of an entry.
+	 *
+	 * @param data the data of the entry
+	 * @param ply the distance of the position to the root of the current search
+	 * @return the score from the perspective of the color to move in the position
+	 */
+	public static int getScore(long data, int ply)
+	{
+		int scoreBits = (int) (data >>> TranspositionTable.SCORE_SHIFT) & ((1 << TranspositionTable.SCORE_BITS) - 1);
+		int tableScore = scoreBits - TranspositionTable.SCORE_OFFSET;
+		if (Search.isMateScore(tableScore))
+		{
+			return (tableScore > 0) ? tableScore - ply : tableScore + ply;
+		}
+		return tableScore;
+	}
+
+	public static int getDepth(long data)
+	{
+		return (int) (data >>> TranspositionTable.DEPTH_SHIFT) & TranspositionTable.MAX_DEPTH;
+	}
+
+	/**
+	 * Returns the bound of an entry.
+	 *
+	 * @param data the data of the entry
+	 * @return UPPER_BOUND, LOWER_BOUND or EXACT
+	 */
+	public static int getBound(long data)
+	{
+		return (int) (data >>> TranspositionTable.BOUND_SHIFT) & 3;
+	}
+
+	/**
+	 * Checks if the buckets of all segments start at a cache line boundary.
+	 */
+	boolean isCacheLineAligned()
+	{
+		for (ByteBuffer segment : segments)
+		{
+			long address = TranspositionTable.getAddress(segment);
+			if ((address < 0) || (address % TranspositionTable.BUCKET_BYTES != 0))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/* ------------------------------------------------ PRIVATE METHODS ------------------------------------------------ */
+
+	/**
+	 * Maps a key to a bucket. The upper half of the key is multiplied by the bucket count, so the table does not need a power of two of buckets.
+	 */
+	private long getBucket(long key)
+	{
+		return ((key >>> 32) * bucketCount) >>> 32;
+	}
+
+	private int getAgeDifference(long data)
+	{
+		return (age - (int) (data >>> TranspositionTable.AGE_SHIFT)) & TranspositionTable.AGE_MASK;
+	}
+
+	/**
+	 * Converts a score relative to the root into a score relative to the position, so that a mate score means the same wherever the position is
+	 * reached.
+	 */
+	private static int toTableScore(int score, int ply)
+	{
+		if (Search.isMateScore(score))
+		{
+			return (score > 0) ? score + ply : score - ply;
+		}
+		return score;
+	}
+
+	/**
+	 * Allocates a direct buffer whose index 0 is at a cache line boundary (see the class comment). Only if the JVM has no sun.misc.Unsafe, the
+	 * buffer is not aligned.
+	 */
+	private static ByteBuffer allocateAligned(int byteCount)
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(byteCount + TranspositionTable.BUCKET_BYTES);
+		long address = TranspositionTable.getAddress(buffer);
+		int offset = (address < 0) ? 0 : (int) (-address & (TranspositionTable.BUCKET_BYTES - 1));
+		buffer.position(offset);
+		buffer.limit(offset + byteCount);
+		// a slice has the big endian order again
+		return buffer.slice().order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Returns the address of the first byte of a direct buffer or -1 if it cannot be found out.
+	 */
+	private static long getAddress(ByteBuffer buffer)
+	{
+		if (TranspositionTable.UNSAFE == null)
+		{
+			return -1;
+		}
+		try
+		{
+			return (Long) TranspositionTable.GET_LONG.invoke(TranspositionTable.UNSAFE, buffer, TranspositionTable.ADDRESS_OFFSET);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package core;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.*;
+
+public class BitboardsTest
+{
+	@Test
+	public void testIndexRoundTrip()
+	{
+		for (int row = 1; row <= 8; row++)
+		{
+			for (int col = 1; col <= 8; col++)
+			{
+				int index = Bitboards.getIndex(col, row);
+				assertThat(index, is((row - 1) * 8 + (col - 1)));
+				assertThat(Bitboards.getColumn(index), is(col));
+				assertThat(Bitboards.getRow(index), is(row));
+				assertThat(Bitboards.getMask(index), is(1L << index));
+				assertThat(Bitboards.getFirstIndex(Bitboards.getMask(index)), is(index));
+
+				SquareID id = new SquareID(col, row);
+				assertThat(id.getIndex(), is(index));
+				assertThat(SquareID.fromIndex(index), is(id));
+				assertThat(SquareID.fromIndex(index).getIndex(), is(index));
+			}
+		}
+	}
+
+	@Test
+	public void testPositionMatchesBoard()
+	{
+		Board board = new Board(true);
+		Position position = board.getPosition();
+		long occupancy = 0;
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			Square square = board.getSquare(index);
+			assertThat(square.getID().getIndex(), is(index));
+			if (square.isEmpty())
+			{
+				assertThat(position.getPieceCode(index), is(Position.EMPTY));
+				continue;
+			}
+			int pieceCode = position.getPieceCode(index);
+			assertThat(pieceCode, is(Position.getPieceCode(square.getPiece())));
+			assertThat(Position.getType(pieceCode), is(square.getPiece().getType()));
+			assertThat(Position.getColor(pieceCode), is(square.getPiece().getColor()));
+			assertThat(position.getPieces(pieceCode) & Bitboards.getMask(index), is(not(0L)));
+			occupancy |= Bitboards.getMask(index);
+		}
+		assertThat(position.getOccupancy(), is(occupancy));
+		assertThat(position.getOccupancy(ChessColor.WHITE), is(Bitboards.RANK_1 | (Bitboards.RANK_1 << 8)));
+		assertThat(position.getOccupancy(ChessColor.BLACK), is(Bitboards.RANK_8 | (Bitboards.RANK_8 >>> 8)));
+	}
+
+	@Test
+	public void testAttackMasks()
+	{
+		int a1 = Bitboards.getIndex(1, 1);
+		int e4 = Bitboards.getIndex(5, 4);
+		assertThat(Bitboards.getKnightAttacks(a1), is(Bitboards.getMask(Bitboards.getIndex(2, 3)) | Bitboards.getMask(Bitboards.getIndex(3, 2))));
+		assertThat(Bitboards.getCount(Bitboards.getKnightAttacks(e4)), is(8));
+		assertThat(Bitboards.getKingAttacks(a1), is(Bitboards.getMask(Bitboards.getIndex(2, 1)) | Bitboards.getMask(Bitboards.getIndex(1, 2))
+				| Bitboards.getMask(Bitboards.getIndex(2, 2))));
+		assertThat(Bitboards.getCount(Bitboards.getKingAttacks(e4)), is(8));
+		assertThat(Bitboards.getPawnAttacks(ChessColor.WHITE, e4),
+				is(Bitboards.getMask(Bitboards.getIndex(4, 5)) | Bitboards.getMask(Bitboards.getIndex(6, 5))));
+		assertThat(Bitboards.getPawnAttacks(ChessColor.BLACK, e4),
+				is(Bitboards.getMask(Bitboards.getIndex(4, 3)) | Bitboards.getMask(Bitboards.getIndex(6, 3))));
+		// a pawn on the a file attacks only towards the b file
+		assertThat(Bitboards.getPawnAttacks(ChessColor.WHITE, Bitboards.getIndex(1, 2)), is(Bitboards.getMask(Bitboards.getIndex(2, 3))));
+
+		assertThat(Bitboards.getRookRayAttacks(a1, 0), is((Bitboards.FILE_A | Bitboards.RANK_1) & ~Bitboards.getMask(a1)));
+		assertThat(Bitboards.getCount(Bitboards.getBishopRayAttacks(e4, 0)), is(13));
+		// a blocker is attacked, the squares behind it are not
+		long blocker = Bitboards.getMask(Bitboards.getIndex(1, 4));
+		assertThat(Bitboards.getRookRayAttacks(a1, blocker) & Bitboards.FILE_A,
+				is(Bitboards.getMask(Bitboards.getIndex(1, 2)) | Bitboards.getMask(Bitboards.getIndex(1, 3)) | blocker));
+		assertThat(Bitboards.getBetween(a1, Bitboards.getIndex(4, 4)), is(Bitboards.getMask(Bitboards.getIndex(2, 2))
+				| Bitboards.getMask(Bitboards.getIndex(3, 3))));
+	}
+
+	@Test
+	public void testIsAttackedBy()
+	{
+		Board board = new Board("4k3/8/8/3p4/4P3/8/1n6/R3K3 w - -");
+		GameCalc gameCalc = new GameCalc(board);
+		// the white rook on a1 sweeps the a file, but on the first rank it stops at the king, which attacks f1 itself
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(1, 8), ChessColor.WHITE), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(4, 1), ChessColor.WHITE), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(6, 1), ChessColor.WHITE), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(8, 1), ChessColor.WHITE), is(false));
+		// pawns attack diagonally forward only
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(4, 5), ChessColor.WHITE), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(5, 5), ChessColor.WHITE), is(false));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(5, 4), ChessColor.BLACK), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(3, 6), ChessColor.WHITE), is(false));
+		// the black knight on b2 attacks a4 and d1 but not the rook, the black king the squares around it
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(1, 4), ChessColor.BLACK), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(1, 1), ChessColor.BLACK), is(false));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(4, 1), ChessColor.BLACK), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(5, 1), ChessColor.BLACK), is(false));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(6, 7), ChessColor.BLACK), is(true));
+		assertThat(gameCalc.isAttackedBy(Bitboards.getIndex(5, 6), ChessColor.BLACK), is(false));
+	}
+}
@@ -0,0 +1,229 @@
+package core;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+public class BoardTest
+{
+	private static final int GAME_COUNT = 30;
+	private static final int MAX_MOVE_COUNT = 120;
+
+	private Random random;
+
+	@Before
+	public void setUp()
+	{
+		random = new Random(42);
+	}
+
+	@Test
+	public void testUnmakeMoveRestoresBoard()
+	{
+		for (int game = 0; game < GAME_COUNT; game++)
+		{
+			Board board = new Board(true);
+			GameCalc gameCalc = new GameCalc(board);
+			List<Board> boardsBeforeMove = new ArrayList<>();
+
+			for (int i = 0; i < MAX_MOVE_COUNT; i++)
+			{
+				Move move = getRandomMove(board, gameCalc);
+				if (move == null)
+				{
+					break;
+				}
+				boardsBeforeMove.add(board.clone());
+				board.makeMove(move);
+			}
+
+			for (int i = boardsBeforeMove.size() - 1; i >= 0; i--)
+			{
+				board.unmakeMove();
+				assertThat(board, is(boardsBeforeMove.get(i)));
+				assertThat(board.getZobristKey(), is(boardsBeforeMove.get(i).getZobristKey()));
+			}
+		}
+	}
+
+	@Test
+	public void testUnmakeMoveRestoresSpecialMoves()
+	{
+		// Kiwipete with black to move after a2-a4, and with a white pawn on b7 instead of the one on b2
+		String[] fens = { "r3k2r/p1ppqpb1/bn2pnp1/3PN3/Pp2P3/2N2Q1p/1PPBBPPP/R3K2R b KQkq a3",
+				"r3k2r/pPppqpb1/bn2pnp1/3PN3/4P3/2N2Q1p/2PBBPPP/R3K2R w KQkq -" };
+		int captureCount = 0;
+		int castlingCount = 0;
+		int enPassantCount = 0;
+		int promotionCount = 0;
+		MoveList moves = new MoveList();
+		for (String fen : fens)
+		{
+			Board board = new Board(fen);
+			Board original = board.clone();
+			new GameCalc(board).generateMoves(moves);
+			for (int i = 0; i < moves.size(); i++)
+			{
+				int move = moves.get(i);
+				board.makeMove(move);
+				assertThat(fen + " " + PackedMove.toString(move), board.getZobristKey(), is(Zobrist.computeKey(board.getPosition())));
+				board.unmakeMove();
+				assertThat(fen + " " + PackedMove.toString(move), board, is(original));
+				assertThat(board.getZobristKey(), is(original.getZobristKey()));
+				captureCount += PackedMove.isCapture(move) ? 1 : 0;
+				castlingCount += PackedMove.isCastling(move) ? 1 : 0;
+				enPassantCount += PackedMove.isEnPassant(move) ? 1 : 0;
+				promotionCount += PackedMove.isPromotion(move) ? 1 : 0;
+			}
+		}
+		assertThat(captureCount, is(greaterThan(0)));
+		assertThat(castlingCount, is(4));
+		assertThat(enPassantCount, is(1));
+		assertThat(promotionCount, is(8));
+
+		Board board = new Board(fens[0]);
+		Board original = board.clone();
+		board.makeMove(new Move(board, "b4", "a3"));
+		assertThat(board.getSquare(Bitboards.getIndex(1, 4)).isEmpty(), is(true));
+		assertThat(board.getSquare(Bitboards.getIndex(1, 3)).getPiece().getType(), is(Piece.Type.PAWN));
+		board.unmakeMove();
+		board.makeMove(new Move(board, "e8", "c8"));
+		assertThat(board.getSquare(Bitboards.getIndex(1, 8)).isEmpty(), is(true));
+		assertThat(board.getSquare(Bitboards.getIndex(4, 8)).getPiece().getType(), is(Piece.Type.ROOK));
+		board.unmakeMove();
+		assertThat(board, is(original));
+
+		board = new Board(fens[1]);
+		original = board.clone();
+		board.makeMove(new Move(board, "b7", "a8"), PromotionChoice.KNIGHT);
+		assertThat(board.getSquare(Bitboards.getIndex(1, 8)).getPiece().getType(), is(Piece.Type.KNIGHT));
+		assertThat(board.getSquare(Bitboards.getIndex(1, 8)).getPiece().getColor(), is(ChessColor.WHITE));
+		board.unmakeMove();
+		assertThat(board, is(original));
+		assertThat(board.getZobristKey(), is(original.getZobristKey()));
+	}
+
+	@Test
+	public void testIncrementalKeyMatchesComputedKey()
+	{
+		for (int game = 0; game < GAME_COUNT; game++)
+		{
+			Board board = new Board(true);
+			GameCalc gameCalc = new GameCalc(board);
+			assertThat(board.getZobristKey(), is(Zobrist.computeKey(board.getPosition())));
+
+			for (int i = 0; i < MAX_MOVE_COUNT; i++)
+			{
+				Move move = getRandomMove(board, gameCalc);
+				if (move == null)
+				{
+					break;
+				}
+				if (GameCalc.isCastling(move))
+				{
+					board.makeCastlingMove(move);
+				}
+				else if (GameCalc.isPromotion(move))
+				{
+					board.makePawnTradeMove(move, PromotionChoice.KNIGHT);
+				}
+				else if (GameCalc.isEnPassant(move))
+				{
+					board.makeEnPassantMove(move);
+				}
+				else
+				{
+					board.makeNormalMove(move);
+				}
+				assertThat(board.getZobristKey(), is(Zobrist.computeKey(board.getPosition())));
+			}
+		}
+	}
+
+	@Test
+	public void testTranspositionsHaveEqualKeys()
+	{
+		Board board1 = new Board(true);
+		board1.makeMove(new Move(board1, "e2", "e4"));
+		board1.makeMove(new Move(board1, "e7", "e5"));
+		board1.makeMove(new Move(board1, "g1", "f3"));
+
+		Board board2 = new Board(true);
+		board2.makeMove(new Move(board2, "g1", "f3"));
+		board2.makeMove(new Move(board2, "e7", "e5"));
+		board2.makeMove(new Move(board2, "e2", "e4"));
+
+		assertThat(board1.getZobristKey(), is(board2.getZobristKey()));
+		assertThat(board1, is(board2));
+		assertThat(board1.hashCode(), is(board2.hashCode()));
+	}
+
+	@Test
+	public void testKeyCoversColorToMoveAndCastlingRights()
+	{
+		Board startBoard = new Board(true);
+
+		Board board = makeMoves(new Board(true), "g1", "f3", "g8", "f6", "f3", "g1");
+		assertThat(board.getZobristKey(), is(not(startBoard.getZobristKey())));
+
+		board = makeMoves(board, "f6", "g8");
+		assertThat(board.getZobristKey(), is(startBoard.getZobristKey()));
+
+		Board knightsMoved = makeMoves(new Board(true), "h2", "h4", "h7", "h5", "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8");
+		Board rooksMoved = makeMoves(new Board(true), "h2", "h4", "h7", "h5", "h1", "h3", "h8", "h6", "h3", "h1", "h6", "h8");
+		assertThat(rooksMoved.getPosition().getCastlingRights(), is(Position.WHITE_QUEENSIDE | Position.BLACK_QUEENSIDE));
+		assertThat(rooksMoved, is(not(knightsMoved)));
+		assertThat(rooksMoved.getZobristKey(), is(not(knightsMoved.getZobristKey())));
+	}
+
+	@Test
+	public void testNullMovePassesTheMove()
+	{
+		Board board = makeMoves(new Board(true), "e2", "e4", "d7", "d5", "e4", "e5", "f7", "f5");
+		Board original = board.clone();
+		assertThat(board.getPosition().getEnPassantIndex(), is(not(Position.NO_SQUARE)));
+
+		board.makeNullMove();
+		assertThat(board.getPosition().getColorToMove(), is(ChessColor.BLACK));
+		assertThat(board.getPosition().getEnPassantIndex(), is(Position.NO_SQUARE));
+		assertThat(board.toFen(), is(original.toFen().replace(" w ", " b ").replace(" f6 ", " - ")));
+		assertThat(board.getZobristKey(), is(new Board(board.toFen()).getZobristKey()));
+
+		board.unmakeNullMove();
+		assertThat(board, is(original));
+		assertThat(board.getZobristKey(), is(original.getZobristKey()));
+		board.unmakeMove();
+		assertThat(board, is(makeMoves(new Board(true), "e2", "e4", "d7", "d5", "e4", "e5")));
+	}
+
+	private Board makeMoves(Board board, String... squareNames)
+	{
+		for (int i = 0; i < squareNames.length; i += 2)
+		{
+			board.makeMove(new Move(board, squareNames[i], squareNames[i + 1]));
+		}
+		return board;
+	}
+
+	private Move getRandomMove(Board board, GameCalc gameCalc)
+	{
+		List<Move> moves = new ArrayList<>();
+		for (int index = 0; index < Board.SQUARE_COUNT; index++)
+		{
+			Square square = board.getSquare(index);
+			if (!square.isEmpty() && (square.getPiece().getColor() == board.getPosition().getColorToMove()))
+			{
+				List<Square> targetSquares = new ArrayList<>(gameCalc.getTargetSquares(square));
+				targetSquares.sort(Comparator.comparing(targetSquare -> targetSquare.getID().getIndex()));
+				for (Square targetSquare : targetSquares)
+				{
+					moves.add(new Move(square, targetSquare));
+				}
+			}
+		}
+		return moves.isEmpty() ? null : moves.get(random.nextInt(moves.size()));
+	}
+}
@@ -0,0 +1,275 @@
+package core;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Verifies the legal move generation of GameCalc by counting the leaf nodes of the move tree (perft) of well-known positions and by comparing it to
+ * the original implementation that simulates every move.
+ */
+public class GameCalcTest
+{
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+	private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -";
+	private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+	private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+	private static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+	private static final int GAME_COUNT = 20;
+	private static final int MAX_MOVE_COUNT = 150;
+
+	@Test
+	public void testPerftStartPosition()
+	{
+		assertPerft(new Board(true), 20, 400, 8902, 197281);
+	}
+
+	@Test
+	public void testPerftKiwipete()
+	{
+		assertPerft(new Board(GameCalcTest.KIWIPETE), 48, 2039, 97862);
+	}
+
+	@Test
+	public void testPerftEndgame()
+	{
+		assertPerft(new Board(GameCalcTest.POSITION_3), 14, 191, 2812, 43238);
+	}
+
+	@Test
+	public void testPerftPromotions()
+	{
+		assertPerft(new Board(GameCalcTest.POSITION_4), 6, 264, 9467);
+		assertPerft(new Board(GameCalcTest.POSITION_5), 44, 1486, 62379);
+	}
+
+	@Test
+	public void testPerftMiddlegame()
+	{
+		assertPerft(new Board(GameCalcTest.POSITION_6), 46, 2079, 89890);
+	}
+
+	@Test
+	public void testPerftMatchesSimulation()
+	{
+		Board board = new Board(GameCalcTest.KIWIPETE);
+		assertThat(perftBySimulation(board, new GameCalc(board), 2), is(2039L));
+	}
+
+	@Test
+	public void testTargetSquaresMatchSimulation()
+	{
+		Random random = new Random(7);
+		for (int game = 0; game < GAME_COUNT; game++)
+		{
+			Board board = new Board(true);
+			GameCalc gameCalc = new GameCalc(board);
+
+			for (int i = 0; i < MAX_MOVE_COUNT; i++)
+			{
+				List<Move> moves = new ArrayList<>();
+				for (int index = 0; index < Board.SQUARE_COUNT; index++)
+				{
+					Square square = board.getSquare(index);
+					if (square.isEmpty() || (square.getPiece().getColor() != board.getPosition().getColorToMove()))
+					{
+						continue;
+					}
+					Set<Square> targetSquares = gameCalc.getTargetSquares(square);
+					assertThat(board.toFen() + " " + square, targetSquares, is(gameCalc.getTargetSquaresBySimulation(square)));
+					for (Square targetSquare : targetSquares)
+					{
+						moves.add(new Move(square, targetSquare));
+					}
+				}
+				if (moves.isEmpty())
+				{
+					break;
+				}
+				moves.sort(Comparator.comparing(Move::toString));
+				Move move = moves.get(random.nextInt(moves.size()));
+				board.makeMove(move);
+			}
+		}
+	}
+
+	@Test
+	public void testCapturesMatchMoves()
+	{
+		for (String fen : new String[] { GameCalcTest.KIWIPETE, GameCalcTest.POSITION_3, GameCalcTest.POSITION_4, GameCalcTest.POSITION_5 })
+		{
+			Board board = new Board(fen);
+			assertCapturesMatchMoves(board, new GameCalc(board), 3);
+		}
+	}
+
+	@Test
+	public void testCheckersAndPinnedPieces()
+	{
+		Board board = new Board("4k3/8/8/b7/8/8/3N4/4K2r w - -");
+		GameCalc gameCalc = new GameCalc(board);
+		assertThat(gameCalc.isInCheck(), is(true));
+		assertThat(gameCalc.getCheckers(), is(Bitboards.getMask(Bitboards.getIndex(8, 1))));
+		assertThat(gameCalc.getPinnedPieces(), is(Bitboards.getMask(Bitboards.getIndex(4, 2))));
+		assertThat(gameCalc.getTargetSquares(board.getSquare(Bitboards.getIndex(4, 2))), is(empty()));
+	}
+
+	@Test
+	public void testEnPassantDiscoveringCheck()
+	{
+		Board board = new Board("8/8/8/K2pP2r/8/8/8/7k w - d6");
+		GameCalc gameCalc = new GameCalc(board);
+		Set<Square> targetSquares = gameCalc.getTargetSquares(board.getSquare(Bitboards.getIndex(5, 5)));
+		assertThat(targetSquares, is(Collections.singleton(board.getSquare(Bitboards.getIndex(5, 6)))));
+	}
+
+	@Test
+	public void testHasLegalMoveMatchesMoves()
+	{
+		Random random = new Random(11);
+		MoveList moves = new MoveList();
+		for (int game = 0; game < GAME_COUNT; game++)
+		{
+			Board board = new Board(true);
+			GameCalc gameCalc = new GameCalc(board);
+			for (int i = 0; i < MAX_MOVE_COUNT; i++)
+			{
+				int moveCount = gameCalc.generateMoves(moves);
+				assertThat(board.toFen(), gameCalc.hasLegalMove(), is(moveCount > 0));
+				if (moveCount == 0)
+				{
+					break;
+				}
+				board.makeMove(moves.get(random.nextInt(moveCount)));
+			}
+		}
+	}
+
+	@Test
+	public void testCheckmateNeedsNoLegalMove()
+	{
+		// the king cannot move, but the rook can block the check
+		Board board = new Board("6k1/5ppp/8/8/8/3R4/5PPP/r5K1 w - -");
+		GameCalc gameCalc = new GameCalc(board);
+		assertThat(gameCalc.isCheckmate(ChessColor.WHITE), is(false));
+		assertThat(gameCalc.isCheckmate(ChessColor.BLACK), is(false));
+
+		// the king cannot move, but the rook can capture the checking piece
+		board = new Board("6k1/5ppp/8/8/8/R7/5PPP/r5K1 w - -");
+		assertThat(new GameCalc(board).isCheckmate(ChessColor.WHITE), is(false));
+
+		board = new Board("6k1/5ppp/8/8/8/8/5PPP/r5K1 w - -");
+		gameCalc = new GameCalc(board);
+		assertThat(gameCalc.isCheckmate(ChessColor.WHITE), is(true));
+		assertThat(gameCalc.hasLegalMove(), is(false));
+	}
+
+	@Test
+	public void testFenRoundTrip()
+	{
+		for (String fen : new String[] { GameCalcTest.POSITION_4, GameCalcTest.POSITION_6 })
+		{
+			assertThat(new Board(fen).toFen(), is(fen.substring(0, fen.lastIndexOf(" - ") + 2) + " 0 1"));
+		}
+		assertThat(new Board(true).toFen(), is("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+	}
+
+	/**
+	 * Checks in every position of the move tree that generateCaptures returns exactly the captures and queen promotions of generateMoves.
+	 */
+	private void assertCapturesMatchMoves(Board board, GameCalc gameCalc, int depth)
+	{
+		MoveList moves = new MoveList();
+		MoveList captures = new MoveList();
+		gameCalc.generateMoves(moves);
+		gameCalc.generateCaptures(captures);
+		Set<Integer> expectedCaptures = new HashSet<>();
+		for (int i = 0; i < moves.size(); i++)
+		{
+			int move = moves.get(i);
+			if (PackedMove.isPromotion(move) ? PackedMove.getPromotionChoice(move) == PromotionChoice.QUEEN : PackedMove.isCapture(move))
+			{
+				expectedCaptures.add(move);
+			}
+		}
+		Set<Integer> actualCaptures = new HashSet<>();
+		for (int i = 0; i < captures.size(); i++)
+		{
+			actualCaptures.add(captures.get(i));
+		}
+		assertThat(board.toFen(), actualCaptures, is(expectedCaptures));
+		assertThat(board.toFen(), captures.size(), is(expectedCaptures.size()));
+
+		if (depth > 1)
+		{
+			for (int i = 0; i < moves.size(); i++)
+			{
+				board.makeMove(moves.get(i));
+				assertCapturesMatchMoves(board, gameCalc, depth - 1);
+				board.unmakeMove();
+			}
+		}
+	}
+
+	private void assertPerft(Board board, long... nodeCounts)
+	{
+		GameCalc gameCalc = new GameCalc(board);
+		for (int depth = 1; depth <= nodeCounts.length; depth++)
+		{
+			assertThat("depth " + depth, perft(board, gameCalc, depth), is(nodeCounts[depth - 1]));
+		}
+	}
+
+	private long perft(Board board, GameCalc gameCalc, int depth)
+	{
+		long nodeCount = 0;
+		for (long pieces = board.getPosition().getOccupancy(board.getPosition().getColorToMove()); pieces != 0; pieces &= pieces - 1)
+		{
+			Square square = board.getSquare(Bitboards.getFirstIndex(pieces));
+			for (long targets = gameCalc.getLegalTargets(square.getID().getIndex()); targets != 0; targets &= targets - 1)
+			{
+				Move move = new Move(square, board.getSquare(Bitboards.getFirstIndex(targets)));
+				PromotionChoice[] choices = GameCalc.isPromotion(move) ? PromotionChoice.values() : new PromotionChoice[] { PromotionChoice.QUEEN };
+				for (PromotionChoice choice : choices)
+				{
+					if (depth == 1)
+					{
+						nodeCount++;
+						continue;
+					}
+					board.makeMove(move, choice);
+					nodeCount += perft(board, gameCalc, depth - 1);
+					board.unmakeMove();
+				}
+			}
+		}
+		return nodeCount;
+	}
+
+	/**
+	 * Counts the leaf nodes with the original move generation.
+	 */
+	private long perftBySimulation(Board board, GameCalc gameCalc, int depth)
+	{
+		long nodeCount = 0;
+		for (Square square : board.getSquaresWithPiecesOfColor(board.getPosition().getColorToMove()))
+		{
+			for (Square targetSquare : gameCalc.getTargetSquaresBySimulation(square))
+			{
+				if (depth == 1)
+				{
+					nodeCount++;
+					continue;
+				}
+				board.makeMove(new Move(square, targetSquare));
+				nodeCount += perftBySimulation(board, gameCalc, depth - 1);
+				board.unmakeMove();
+			}
+		}
+		return nodeCount;
+	}
+}
@@ -0,0 +1,152 @@
+package core;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import core.Piece.Type;
+import core.pieces.*;
+
+public class MagicAttacksTest
+{
+	private static final int POSITION_COUNT = 2000;
+
+	private Random random;
+
+	@Before
+	public void setUp()
+	{
+		random = new Random(20161018);
+	}
+
+	@Test
+	public void testInitializationBudget()
+	{
+		assertThat(MagicAttacks.getInitializationTime(), lessThan(MagicAttacks.INITIALIZATION_BUDGET));
+	}
+
+	@Test
+	public void testTablesMatchRayWalking()
+	{
+		for (int i = 0; i < POSITION_COUNT; i++)
+		{
+			long occupied = random.nextLong() & random.nextLong();
+			for (int index = 0; index < Board.SQUARE_COUNT; index++)
+			{
+				assertThat(MagicAttacks.getRookAttacks(index, occupied), is(Bitboards.getRookRayAttacks(index, occupied)));
+				assertThat(MagicAttacks.getBishopAttacks(index, occupied), is(Bitboards.getBishopRayAttacks(index, occupied)));
+			}
+		}
+	}
+
+	@Test
+	public void testTargetSquaresMatchRayWalking()
+	{
+		for (int i = 0; i < POSITION_COUNT / 10; i++)
+		{
+			Board board = createRandomBoard();
+			GameCalc gameCalc = new GameCalc(board);
+
+			for (int index = 0; index < Board.SQUARE_COUNT; index++)
+			{
+				Square square = board.getSquare(index);
+				if (square.isEmpty())
+				{
+					continue;
+				}
+				switch (square.getPiece().getType())
+				{
+				case ROOK:
+					assertThat(gameCalc.getRookTargetSquaresNoCheck(square), is(walkRays(board, square, true, false)));
+					break;
+				case BISHOP:
+					assertThat(gameCalc.getBishopTargetSquaresNoCheck(square), is(walkRays(board, square, false, true)));
+					break;
+				case QUEEN:
+					assertThat(gameCalc.getQueenTargetSquaresNoCheck(square), is(walkRays(board, square, true, true)));
+					break;
+				default:
+				}
+			}
+		}
+	}
+
+	/**
+	 * Walks the rays of a slider square by square, the way GameCalc used to find its target squares.
+	 */
+	private Set<Square> walkRays(Board board, Square square, boolean straight, boolean diagonal)
+	{
+		HashSet<Square> targetSquares = new HashSet<Square>();
+		int col = square.getID().getColumn();
+		int row = square.getID().getRow();
+
+		for (int dCol = -1; dCol <= 1; dCol++)
+		{
+			for (int dRow = -1; dRow <= 1; dRow++)
+			{
+				boolean isStraight = (dCol == 0) != (dRow == 0);
+				boolean isDiagonal = (dCol != 0) && (dRow != 0);
+				if (!(straight && isStraight) && !(diagonal && isDiagonal))
+				{
+					continue;
+				}
+				for (int i = 1; i < 8; i++)
+				{
+					int potCol = col + i * dCol;
+					int potRow = row + i * dRow;
+					if (!GameCalc.isInsideBoard(potCol, potRow))
+					{
+						break;
+					}
+					Square potSquare = board.getSquare(new SquareID(potCol, potRow));
+					if (potSquare.isEmpty())
+					{
+						targetSquares.add(potSquare);
+					}
+					else
+					{
+						if (potSquare.getPiece().getColor() != square.getPiece().getColor())
+						{
+							targetSquares.add(potSquare);
+						}
+						break;
+					}
+				}
+			}
+		}
+		return targetSquares;
+	}
+
+	private Board createRandomBoard()
+	{
+		Board board = new Board(false);
+		int pieceCount = 2 + random.nextInt(Board.MAX_PIECE_COUNT - 1);
+		for (int i = 0; i < pieceCount; i++)
+		{
+			ChessColor color = random.nextBoolean() ? ChessColor.WHITE : ChessColor.BLACK;
+			Piece piece;
+			switch (Type.values()[random.nextInt(Type.values().length)])
+			{
+			case ROOK:
+				piece = new Rook(color);
+				break;
+			case BISHOP:
+				piece = new Bishop(color);
+				break;
+			case QUEEN:
+				piece = new Queen(color);
+				break;
+			case KNIGHT:
+				piece = new Knight(color);
+				break;
+			default:
+				piece = new Pawn(color);
+			}
+			board.setPiece(board.getSquare(random.nextInt(Board.SQUARE_COUNT)), piece);
+		}
+		return board;
+	}
+}
@@ -0,0 +1,91 @@
+package core;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.*;
+
+public class PackedMoveTest
+{
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+	private static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+	@Test
+	public void testPerftWithPackedMoves()
+	{
+		assertThat(perft(new Board(true), 4), is(197281L));
+		assertThat(perft(new Board(PackedMoveTest.KIWIPETE), 3), is(97862L));
+		assertThat(perft(new Board(PackedMoveTest.PROMOTIONS), 3), is(9467L));
+	}
+
+	@Test
+	public void testConversions()
+	{
+		for (String fen : new String[] { PackedMoveTest.KIWIPETE, PackedMoveTest.PROMOTIONS })
+		{
+			Board board = new Board(fen);
+			MoveList moves = new MoveList();
+			new GameCalc(board).generateMoves(moves);
+			for (int i = 0; i < moves.size(); i++)
+			{
+				int packedMove = moves.get(i);
+				Move move = PackedMove.toMove(packedMove, board);
+				assertThat(PackedMove.fromMove(move, PackedMove.getPromotionChoice(packedMove)), is(packedMove));
+
+				MoveInfo moveInfo = PackedMove.toMoveInfo(packedMove, board, 0);
+				assertThat(moveInfo.isCapture(), is(PackedMove.isCapture(packedMove)));
+				assertThat(moveInfo.isCastling(), is(PackedMove.isCastling(packedMove)));
+				assertThat(moveInfo.isEnPassant(), is(PackedMove.isEnPassant(packedMove)));
+				assertThat(moveInfo.isPawnTradeMove(), is(PackedMove.isPromotion(packedMove)));
+			}
+		}
+		Board board = new Board(PackedMoveTest.PROMOTIONS);
+		assertThat(PackedMove.toString(PackedMove.fromMove(new Move(board, "b2", "a1"), PromotionChoice.KNIGHT)), is("b2a1n"));
+	}
+
+	@Test
+	public void testMovesDoNotAllocate()
+	{
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		Board board = new Board(PackedMoveTest.KIWIPETE);
+		GameCalc gameCalc = new GameCalc(board);
+		MoveList[] moveLists = MoveList.createPerPly(3);
+		perft(board, gameCalc, moveLists, 3); // warm up, letting the undo records grow
+
+		long threadID = Thread.currentThread().getId();
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadID);
+		long nodeCount = perft(board, gameCalc, moveLists, 3);
+		long allocated = threadBean.getThreadAllocatedBytes(threadID) - allocatedBefore;
+
+		assertThat(nodeCount, is(97862L));
+		assertThat(allocated, lessThan(1024L));
+	}
+
+	private long perft(Board board, int depth)
+	{
+		return perft(board, new GameCalc(board), MoveList.createPerPly(depth), depth);
+	}
+
+	private long perft(Board board, GameCalc gameCalc, MoveList[] moveLists, int depth)
+	{
+		MoveList moves = moveLists[depth - 1];
+		gameCalc.generateMoves(moves);
+		if (depth == 1)
+		{
+			return moves.size();
+		}
+		long nodeCount = 0;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			board.makeMove(moves.get(i));
+			nodeCount += perft(board, gameCalc, moveLists, depth - 1);
+			board.unmakeMove();
+		}
+		return nodeCount;
+	}
+}
@@ -0,0 +1,58 @@
+package support;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.Map;
+
+import org.junit.*;
+
+import core.Board;
+
+public class PerftTest
+{
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+	private static final long HASH_SIZE = 1 << 20;
+
+	@Test
+	public void testPerft()
+	{
+		Board board = new Board(PerftTest.KIWIPETE);
+		Board original = board.clone();
+		assertThat(new Perft().perft(board, 3), is(97862L));
+		assertThat(board, is(original));
+	}
+
+	@Test
+	public void testDivide()
+	{
+		Map<String, Long> nodeCounts = new Perft().divide(new Board(true), 3);
+		assertThat(nodeCounts.size(), is(20));
+		assertThat(nodeCounts.get("e2e4"), is(600L));
+		assertThat(nodeCounts.get("g1f3"), is(440L));
+		assertThat(nodeCounts.values().stream().mapToLong(Long::longValue).sum(), is(8902L));
+	}
+
+	@Test
+	public void testHashedPerft()
+	{
+		Perft perft = new Perft(PerftTest.HASH_SIZE, 1);
+		assertThat(perft.perft(new Board(true), 5), is(4865609L));
+		assertThat(perft.perft(new Board(PerftTest.KIWIPETE), 3), is(97862L));
+	}
+
+	@Test
+	public void testParallelPerft()
+	{
+		Perft perft = new Perft(PerftTest.HASH_SIZE, 4);
+		try
+		{
+			assertThat(perft.perft(new Board(true), 4), is(197281L));
+			assertThat(perft.perft(new Board(PerftTest.KIWIPETE), 3), is(97862L));
+		}
+		finally
+		{
+			perft.shutdown();
+		}
+	}
+}
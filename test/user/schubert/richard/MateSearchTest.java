@@ -0,0 +1,41 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import core.*;
+
+public class MateSearchTest
+{
+	@Test
+	public void testFindsTheShortestMateWithItsLine()
+	{
+		Board board = new Board("2r3k1/p4p2/3Rp2p/1p2P1pK/8/1P4P1/P3Q2P/1q6 b - -");
+		SearchResult result = new MateSearch(board).search(5);
+		assertThat(result.getDepth(), is(5));
+		assertThat(result.getScore(), is(Search.MATE_SCORE - 5));
+		assertThat(result.getNodeCount() > 0, is(true));
+
+		int[] line = result.getPrincipalVariation();
+		assertThat(line.length, is(5));
+		assertThat(line[0], is(result.getBestMove()));
+		for (int move : line)
+		{
+			board.makeMove(move);
+		}
+		assertThat(new GameCalc(board).isCheckmate(board.getPosition().getColorToMove()), is(true));
+	}
+
+	@Test
+	public void testFindsNoMateBeyondTheLimit()
+	{
+		Board board = new Board("2r3k1/p4p2/3Rp2p/1p2P1pK/8/1P4P1/P3Q2P/1q6 b - -");
+		SearchResult result = new MateSearch(board).search(2);
+		assertThat(result.getBestMove(), is(PackedMove.NONE));
+		assertThat(result.getPrincipalVariation().length, is(0));
+		// the board is restored
+		assertThat(board.getZobristKey(), is(new Board("2r3k1/p4p2/3Rp2p/1p2P1pK/8/1P4P1/P3Q2P/1q6 b - -").getZobristKey()));
+	}
+}
@@ -0,0 +1,54 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import core.*;
+
+public class MonteCarloSearchTest
+{
+	private static final PositionEvaluator EVALUATOR = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+
+	@Test
+	public void testFindsMateInOne()
+	{
+		MonteCarloSearch search = new MonteCarloSearch(MonteCarloSearchTest.EVALUATOR, 1, 1 << 16);
+		search.setNodeLimit(20000);
+		SearchResult result = search.search(new Board("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - -"), null);
+		assertThat(PackedMove.toString(result.getBestMove()), is("a1a8"));
+		assertThat(result.getScore(), is(Search.MATE_SCORE - 1));
+	}
+
+	@Test
+	public void testParallelPlayoutsWinTheHangingQueen()
+	{
+		for (MonteCarloSearch.Playout playout : MonteCarloSearch.Playout.values())
+		{
+			MonteCarloSearch search = new MonteCarloSearch(MonteCarloSearchTest.EVALUATOR, 3, 1 << 16);
+			search.setPlayout(playout);
+			search.setNodeLimit(50000);
+			Board board = new Board("4k3/8/8/3q4/8/8/3R4/4K3 w - -");
+			SearchResult result = search.search(board, TimeManager.createForMoveTime(Long.MAX_VALUE));
+			search.shutdown();
+			assertThat(playout.toString(), PackedMove.toString(result.getBestMove()), is("d2d5"));
+			assertThat(result.getScore() > 0, is(true));
+			// the node limit is checked after every iteration, which visits a few hundred nodes at most
+			assertThat(result.getNodeCount() >= 50000, is(true));
+			assertThat(result.getNodeCount() < 60000, is(true));
+			assertThat(search.getTreeSize() > 1, is(true));
+			// the board is not changed
+			assertThat(board.getZobristKey(), is(new Board("4k3/8/8/3q4/8/8/3R4/4K3 w - -").getZobristKey()));
+		}
+	}
+
+	@Test
+	public void testPositionWithoutMovesHasNoBestMove()
+	{
+		MonteCarloSearch search = new MonteCarloSearch(MonteCarloSearchTest.EVALUATOR, 1, 1 << 16);
+		SearchResult result = search.search(new Board("R5k1/5ppp/8/8/8/8/5PPP/6K1 b - -"), TimeManager.createForMoveTime(100));
+		assertThat(result.getBestMove(), is(PackedMove.NONE));
+		assertThat(result.getScore(), is(-Search.MATE_SCORE));
+	}
+}
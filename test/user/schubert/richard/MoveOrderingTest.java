@@ -0,0 +1,116 @@
+package user.schubert.richard;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.*;
+
+import core.*;
+
+public class MoveOrderingTest
+{
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+	@Test
+	public void testHeuristicsAreRanked()
+	{
+		Board board = new Board(MoveOrderingTest.KIWIPETE);
+		MoveOrdering moveOrdering = new MoveOrdering(board);
+		moveOrdering.startSearch();
+		MoveList moves = new MoveList();
+		new GameCalc(board).generateMoves(moves);
+		int ttMove = findMove(moves, "a2a3");
+		int killer = findMove(moves, "a2a4");
+		int countermove = findMove(moves, "g2g4");
+		int badMove = findMove(moves, "g2g3");
+		int previousMove = PackedMove.create(Bitboards.getIndex(8, 4), Bitboards.getIndex(8, 3), 0);
+
+		// the bad move was tried before the killer caused a cutoff at ply 2, the countermove refuted the previous move at ply 5
+		MoveList triedMoves = new MoveList();
+		triedMoves.add(badMove);
+		triedMoves.add(killer);
+		moveOrdering.recordCutoff(triedMoves, 1, 2, 4, PackedMove.NONE);
+		triedMoves.clear();
+		triedMoves.add(countermove);
+		moveOrdering.recordCutoff(triedMoves, 0, 5, 3, previousMove);
+		assertThat(moveOrdering.getCutoffCount(), is(2L));
+		assertThat(moveOrdering.getFirstMoveCutoffRate(), is(0.5));
+
+		int captureCount = 0;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			captureCount += PackedMove.isCapture(moves.get(i)) ? 1 : 0;
+		}
+		moveOrdering.scoreMoves(moves, 2, ttMove, previousMove);
+		assertThat(MoveOrdering.pickMove(moves, 0), is(ttMove));
+		for (int i = 1; i <= captureCount; i++)
+		{
+			assertThat(PackedMove.isCapture(MoveOrdering.pickMove(moves, i)), is(true));
+		}
+		assertThat(MoveOrdering.pickMove(moves, captureCount + 1), is(killer));
+		assertThat(MoveOrdering.pickMove(moves, captureCount + 2), is(countermove));
+		for (int i = captureCount + 3; i < moves.size(); i++)
+		{
+			MoveOrdering.pickMove(moves, i);
+		}
+		assertThat(moves.get(moves.size() - 1), is(badMove));
+	}
+
+	@Test
+	public void testCapturesByMvvLva()
+	{
+		Board board = new Board("4k3/8/8/3q3N/2P2r2/3R4/8/4K3 w - -");
+		MoveOrdering moveOrdering = new MoveOrdering(board);
+		MoveList captures = new MoveList();
+		new GameCalc(board).generateCaptures(captures);
+		moveOrdering.scoreCaptures(captures);
+		assertThat(PackedMove.toString(MoveOrdering.pickMove(captures, 0)), is("c4d5"));
+		assertThat(PackedMove.toString(MoveOrdering.pickMove(captures, 1)), is("d3d5"));
+		assertThat(PackedMove.toString(MoveOrdering.pickMove(captures, 2)), is("h5f4"));
+	}
+
+	@Test
+	public void testUnderpromotionsAreQuiet()
+	{
+		Board board = new Board("8/1P2k3/8/8/8/8/8/4K3 w - -");
+		MoveOrdering moveOrdering = new MoveOrdering(board);
+		moveOrdering.startSearch();
+		MoveList moves = new MoveList();
+		new GameCalc(board).generateMoves(moves);
+		MoveList triedMoves = new MoveList();
+		triedMoves.add(findMove(moves, "e1d1"));
+		moveOrdering.recordCutoff(triedMoves, 0, 0, 2, PackedMove.NONE);
+
+		moveOrdering.scoreMoves(moves, 0, PackedMove.NONE, PackedMove.NONE);
+		assertThat(PackedMove.toString(MoveOrdering.pickMove(moves, 0)), is("b7b8q"));
+		assertThat(PackedMove.toString(MoveOrdering.pickMove(moves, 1)), is("e1d1"));
+	}
+
+	@Test
+	public void testOrderingCutsOffMostlyAtTheFirstMove()
+	{
+		Board board = new Board(MoveOrderingTest.KIWIPETE);
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		Search search = new Search(board, evaluator, new TranspositionTable(16));
+		search.search(TimeManager.createForMoveTime(Long.MAX_VALUE), 5);
+		assertThat(search.getMoveOrdering().getCutoffCount() > 0, is(true));
+		assertThat(search.getMoveOrdering().getFirstMoveCutoffRate() > 0.8, is(true));
+	}
+
+	private int findMove(MoveList moves, String text)
+	{
+		return moves.get(indexOf(moves, text));
+	}
+
+	private int indexOf(MoveList moves, String text)
+	{
+		for (int i = 0; i < moves.size(); i++)
+		{
+			if (PackedMove.toString(moves.get(i)).equals(text))
+			{
+				return i;
+			}
+		}
+		throw new IllegalArgumentException(text);
+	}
+}
@@ -0,0 +1,49 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import core.*;
+
+public class MoveTreeTest
+{
+	private static final String FEN = "4k3/8/8/3q4/8/8/3R4/4K3 w - -";
+
+	@Test
+	public void testReplayedPathsRebuildThePositions()
+	{
+		Board board = new Board(MoveTreeTest.FEN);
+		MoveTree tree = new MoveTree(board, PositionEvaluatorFactory.createPieceDefaultValueEvaluator(), 1000);
+		int childCount = tree.expand(MoveTree.ROOT, board);
+		assertThat(tree.size(), is(1 + childCount));
+
+		int[] path = new int[2];
+		// winning the queen has the best score of the root's children
+		path[0] = tree.getFirstChild(MoveTree.ROOT);
+		for (int child = tree.getFirstChild(MoveTree.ROOT); child < tree.getFirstChild(MoveTree.ROOT) + childCount; child++)
+		{
+			path[0] = (tree.getScore(child) > tree.getScore(path[0])) ? child : path[0];
+		}
+		assertThat(PackedMove.toString(tree.getMove(path[0])), is("d2d5"));
+		assertThat(tree.findChild(MoveTree.ROOT, tree.getMove(path[0])), is(path[0]));
+
+		Board childBoard = tree.createBoard(path, 1);
+		assertThat(tree.expand(path[0], childBoard) > 0, is(true));
+		path[1] = tree.getFirstChild(path[0]);
+		Board grandchildBoard = tree.createBoard(path, 2);
+		childBoard.makeMove(tree.getMove(path[1]));
+		assertThat(grandchildBoard.getZobristKey(), is(childBoard.getZobristKey()));
+		// the board of the root is not changed
+		assertThat(board.getZobristKey(), is(new Board(MoveTreeTest.FEN).getZobristKey()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testFullTreeRejectsChildren()
+	{
+		Board board = new Board(MoveTreeTest.FEN);
+		MoveTree tree = new MoveTree(board, PositionEvaluatorFactory.createPieceDefaultValueEvaluator(), 10);
+		tree.expand(MoveTree.ROOT, board);
+	}
+}
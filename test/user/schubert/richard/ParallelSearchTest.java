@@ -0,0 +1,103 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import core.*;
+
+public class ParallelSearchTest
+{
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+	@Test
+	public void testFindsMateWithSeveralThreads()
+	{
+		ParallelSearch search = new ParallelSearch(PositionEvaluatorFactory.createPieceDefaultValueEvaluator(), new TranspositionTable(16), 4);
+		try
+		{
+			SearchResult result = search.search(new Board("6k1/5ppp/8/8/8/8/8/R5K1 w - -"), TimeManager.createForMoveTime(5000), 10);
+			assertThat(PackedMove.toString(result.getBestMove()), is("a1a8"));
+			assertThat(result.getScore(), is(Search.MATE_SCORE - 1));
+		}
+		finally
+		{
+			search.shutdown();
+		}
+	}
+
+	@Test
+	public void testHelpersStopWithTheMainSearch()
+	{
+		Board board = new Board(ParallelSearchTest.KIWIPETE);
+		ParallelSearch search = new ParallelSearch(PositionEvaluatorFactory.createPieceDefaultValueEvaluator(), new TranspositionTable(16), 4);
+		try
+		{
+			TimeManager timeManager = TimeManager.createForMoveTime(300);
+			SearchResult result = search.search(board, timeManager, Search.MAX_PLY);
+			assertThat(timeManager.getElapsedTime() < 300 + 500, is(true));
+			assertThat(new Board(ParallelSearchTest.KIWIPETE).toFen(), is(board.toFen()));
+			MoveList moves = new MoveList();
+			new GameCalc(board).generateMoves(moves);
+			assertThat(moves.contains(result.getBestMove()), is(true));
+		}
+		finally
+		{
+			search.shutdown();
+		}
+	}
+
+	@Test
+	public void testSingleThreadSearchesLikeSearch()
+	{
+		Board board = new Board(ParallelSearchTest.KIWIPETE);
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		ParallelSearch parallelSearch = new ParallelSearch(evaluator, new TranspositionTable(16), 1);
+		try
+		{
+			SearchResult parallelResult = parallelSearch.search(board, TimeManager.createForMoveTime(Long.MAX_VALUE), 3);
+			SearchResult result = new Search(board, evaluator, new TranspositionTable(16)).search(TimeManager.createForMoveTime(Long.MAX_VALUE), 3);
+			assertThat(parallelResult.getBestMove(), is(result.getBestMove()));
+			assertThat(parallelResult.getNodeCount(), is(result.getNodeCount()));
+		}
+		finally
+		{
+			parallelSearch.shutdown();
+		}
+	}
+
+	@Test
+	public void testSearchesAfterTwoMovesStartWarm()
+	{
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		ParallelSearch warmSearch = new ParallelSearch(evaluator, new TranspositionTable(16), 1);
+		try
+		{
+			// the searches follow their principal variations, the first search is cold in both cases
+			Board board = new Board(ParallelSearchTest.KIWIPETE);
+			long warmNodeCount = 0;
+			long coldNodeCount = 0;
+			for (int i = 0; i < 5; i++)
+			{
+				SearchResult warmResult = warmSearch.search(board, TimeManager.createForMoveTime(Long.MAX_VALUE), 5);
+				Search coldSearch = new Search(board.clone(), evaluator, new TranspositionTable(16));
+				SearchResult coldResult = coldSearch.search(TimeManager.createForMoveTime(Long.MAX_VALUE), 5);
+				warmNodeCount += (i > 0) ? warmResult.getNodeCount() : 0;
+				coldNodeCount += (i > 0) ? coldResult.getNodeCount() : 0;
+				int[] principalVariation = warmResult.getPrincipalVariation();
+				board.makeMove(principalVariation[0]);
+				board.makeMove(principalVariation[1]);
+			}
+			assertThat(warmNodeCount < coldNodeCount, is(true));
+
+			// a position that cannot be reached by two moves gets new searches
+			board = new Board("6k1/5ppp/8/8/8/8/8/R5K1 w - -");
+			assertThat(PackedMove.toString(warmSearch.search(board, TimeManager.createForMoveTime(5000), 4).getBestMove()), is("a1a8"));
+		}
+		finally
+		{
+			warmSearch.shutdown();
+		}
+	}
+}
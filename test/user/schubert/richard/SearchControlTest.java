@@ -0,0 +1,97 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.*;
+
+import org.junit.Test;
+
+import core.*;
+
+public class SearchControlTest
+{
+	private static final String FEN = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+	@Test
+	public void testStopReturnsWithinTheLatencyBound() throws InterruptedException
+	{
+		// the first runs warm up the JIT compiler. The median of the others is compared to the bound, because a single run may be delayed by the
+		// scheduler of the operating system.
+		int warmUpCount = 2;
+		long[] latencies = new long[7];
+		for (int run = -warmUpCount; run < latencies.length; run++)
+		{
+			Search search = new Search(new Board(SearchControlTest.FEN), PositionEvaluatorFactory.createPieceDefaultValueEvaluator());
+			RunningSearch runningSearch = new RunningSearch(search, TimeManager.createForMoveTime(Long.MAX_VALUE));
+			Thread.sleep(200);
+			long stopTime = System.nanoTime();
+			search.getControl().stop();
+			runningSearch.thread.join();
+			assertThat(runningSearch.result.getBestMove() == PackedMove.NONE, is(false));
+			if (run >= 0)
+			{
+				latencies[run] = runningSearch.endTime - stopTime;
+			}
+		}
+		Arrays.sort(latencies);
+		long medianLatency = latencies[latencies.length / 2] / (1000 * 1000);
+		assertThat("median latency " + medianLatency + " ms", medianLatency < SearchControl.MAX_STOP_LATENCY, is(true));
+	}
+
+	@Test
+	public void testPauseKeepsTheSearchUntilResume() throws InterruptedException
+	{
+		Search search = new Search(new Board(SearchControlTest.FEN), PositionEvaluatorFactory.createPieceDefaultValueEvaluator());
+		TimeManager timeManager = TimeManager.createForMoveTime(500);
+		RunningSearch runningSearch = new RunningSearch(search, timeManager);
+		Thread.sleep(100);
+		search.getControl().pause();
+		Thread.sleep(50);
+		assertThat(search.getControl().isPaused(), is(true));
+		long nodeCount = search.getNodeCount();
+		Thread.sleep(1000);
+		assertThat(search.getNodeCount(), is(nodeCount));
+
+		search.getControl().resume();
+		runningSearch.thread.join();
+		assertThat(search.getControl().isPaused(), is(false));
+		// the pause does not count as search time
+		assertThat(timeManager.getElapsedTime() < 1000, is(true));
+		assertThat(search.getNodeCount() > nodeCount, is(true));
+		assertThat(runningSearch.result.getBestMove() == PackedMove.NONE, is(false));
+	}
+
+	@Test
+	public void testStopWakesPausedHelpers()
+	{
+		SearchControl control = new SearchControl();
+		SearchControl helperControl = new SearchControl(control);
+		helperControl.pause();
+		assertThat(control.isPauseRequested(), is(true));
+		control.stop();
+		assertThat(helperControl.isStopRequested(), is(true));
+		// returns at once because the helper is stopped
+		helperControl.awaitResume();
+	}
+
+	/**
+	 * A search running on a thread of its own that records when it returned.
+	 */
+	private static final class RunningSearch
+	{
+		private final Thread thread;
+		private volatile SearchResult result;
+		private volatile long endTime;
+
+		private RunningSearch(Search search, TimeManager timeManager)
+		{
+			thread = new Thread(() ->
+			{
+				result = search.search(timeManager, Search.MAX_PLY);
+				endTime = System.nanoTime();
+			});
+			thread.start();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+import core.*;
+
+public class SearchTelemetryTest
+{
+	@Test
+	public void testSearchPublishesEveryIteration() throws InterruptedException
+	{
+		SearchTelemetry telemetry = new SearchTelemetry();
+		BlockingQueue<SearchEvent> events = new LinkedBlockingQueue<>();
+		telemetry.addListener(events::add);
+		Board board = new Board("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+		Search search = new Search(board, PositionEvaluatorFactory.createPieceDefaultValueEvaluator(), new TranspositionTable(1));
+		search.setTelemetry(telemetry);
+		SearchResult result = search.search(TimeManager.createForMoveTime(Long.MAX_VALUE), 5);
+
+		for (int depth = 1; depth <= 5; depth++)
+		{
+			SearchEvent event = events.poll(1, TimeUnit.SECONDS);
+			assertThat(event.getDepth(), is(depth));
+			assertThat(event.getSelectiveDepth() >= depth, is(true));
+			assertThat(event.getPrincipalVariation()[0], is(event.getResult().getBestMove()));
+			assertThat((depth == 1) || (event.getBranchingFactor() > 0), is(true));
+		}
+		assertThat(events.isEmpty(), is(true));
+		assertThat(telemetry.getDroppedCount(), is(0L));
+		assertThat(result.getDepth(), is(5));
+		telemetry.close();
+	}
+
+	@Test
+	public void testSlowListenerMakesEventsDrop() throws InterruptedException
+	{
+		SearchTelemetry telemetry = new SearchTelemetry(2);
+		CountDownLatch release = new CountDownLatch(1);
+		List<SearchEvent> delivered = new CopyOnWriteArrayList<>();
+		telemetry.addListener(event ->
+		{
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			delivered.add(event);
+		});
+
+		int publishedCount = 0;
+		for (int i = 0; i < 10; i++)
+		{
+			// publishing never waits for the listener
+			publishedCount += telemetry.publish(SearchTelemetryTest.createEvent(i)) ? 1 : 0;
+		}
+		assertThat(publishedCount <= 3, is(true));
+		assertThat(telemetry.getDroppedCount(), is((long) (10 - publishedCount)));
+
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 1000;
+		while ((delivered.size() < publishedCount) && (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		assertThat(delivered.size(), is(publishedCount));
+		assertThat(delivered.get(0).getDepth(), is(0));
+		telemetry.close();
+	}
+
+	private static SearchEvent createEvent(int depth)
+	{
+		return new SearchEvent("test", new SearchResult(PackedMove.NONE, 0, depth, 0), depth, 0, 0, 0, 0);
+	}
+}
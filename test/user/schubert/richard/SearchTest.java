@@ -0,0 +1,208 @@
+package user.schubert.richard;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import core.*;
+
+public class SearchTest
+{
+	private static final String[] POSITIONS =
+	{ "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -" };
+
+	private PositionEvaluator evaluator;
+
+	@Before
+	public void setUp()
+	{
+		evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+	}
+
+	@Test
+	public void testFindsMateInOne()
+	{
+		Board board = new Board("6k1/5ppp/8/8/8/8/8/R5K1 w - -");
+		SearchResult result = new Search(board, evaluator).search(3);
+		assertThat(PackedMove.toString(result.getBestMove()), is("a1a8"));
+		assertThat(result.getScore(), is(Search.MATE_SCORE - 1));
+		assertThat(Search.isMateScore(result.getScore()), is(true));
+	}
+
+	@Test
+	public void testCapturesHangingQueen()
+	{
+		Board board = new Board("4k3/8/8/3q4/8/8/8/3RK3 w - -");
+		SearchResult result = new Search(board, evaluator).search(2);
+		assertThat(PackedMove.toString(result.getBestMove()), is("d1d5"));
+		assertThat(result.getScore(), is(PieceDefaultValueEvaluation.getCentipawns(core.Piece.Type.ROOK)));
+	}
+
+	@Test
+	public void testQuiescenceSeesRecapture()
+	{
+		// the pawn on d5 is defended: taking it with the queen only looks good if the recapture is not seen
+		Board board = new Board("4k3/8/2p5/3p4/8/8/8/3QK3 w - -");
+		Search search = new Search(board, evaluator);
+		search.setQuiescenceEnabled(false);
+		assertThat(PackedMove.toString(search.search(1).getBestMove()), is("d1d5"));
+		SearchResult result = new Search(board, evaluator).search(1);
+		assertThat(PackedMove.toString(result.getBestMove()), is(not("d1d5")));
+		int pawnValue = PieceDefaultValueEvaluation.getCentipawns(core.Piece.Type.PAWN);
+		assertThat(result.getScore(), is(PieceDefaultValueEvaluation.getCentipawns(core.Piece.Type.QUEEN) - 2 * pawnValue));
+	}
+
+	@Test
+	public void testPruningSavesNodesAndKeepsMates()
+	{
+		Board board = new Board("2k5/8/1K6/8/8/8/8/7R w - -");
+		SearchResult result = new Search(board, evaluator).search(TimeManager.createForMoveTime(Long.MAX_VALUE), 5);
+		assertThat(result.getScore(), is(Search.MATE_SCORE - 3));
+
+		board = new Board(SearchTest.POSITIONS[1]);
+		Search prunedSearch = new Search(board, evaluator);
+		Search fullSearch = new Search(board, evaluator);
+		fullSearch.setPruningEnabled(false);
+		assertThat(prunedSearch.search(5).getNodeCount() < fullSearch.search(5).getNodeCount(), is(true));
+	}
+
+	@Test
+	public void testPrincipalVariationIsPlayable()
+	{
+		Board board = new Board("2k5/8/1K6/8/8/8/8/7R w - -");
+		SearchResult result = new Search(board, evaluator, new TranspositionTable(1)).search(TimeManager.createForMoveTime(Long.MAX_VALUE), 5);
+		int[] principalVariation = result.getPrincipalVariation();
+		assertThat(principalVariation.length, is(3));
+		assertThat(principalVariation[0], is(result.getBestMove()));
+
+		board = new Board(SearchTest.POSITIONS[1]);
+		result = new Search(board.clone(), evaluator, new TranspositionTable(1)).search(TimeManager.createForMoveTime(Long.MAX_VALUE), 6);
+		principalVariation = result.getPrincipalVariation();
+		assertThat(principalVariation[0], is(result.getBestMove()));
+		for (int move : principalVariation)
+		{
+			MoveList moves = new MoveList();
+			new GameCalc(board).generateMoves(moves);
+			assertThat(moves.contains(move), is(true));
+			board.makeMove(move);
+		}
+	}
+
+	@Test
+	public void testSearchLinesFindsDistinctMoves()
+	{
+		Board board = new Board(SearchTest.POSITIONS[1]);
+		Search search = new Search(board, evaluator, new TranspositionTable(1));
+		List<SearchResult> streamedLines = new ArrayList<>();
+		List<SearchResult> lines = search.searchLines(TimeManager.createForMoveTime(Long.MAX_VALUE), 4, 3, (rank, line) -> streamedLines.add(line));
+
+		assertThat(lines.size(), is(3));
+		assertThat(streamedLines.size(), is(4 * 3));
+		Set<Integer> firstMoves = new HashSet<>();
+		for (int i = 0; i < lines.size(); i++)
+		{
+			SearchResult line = lines.get(i);
+			firstMoves.add(line.getBestMove());
+			assertThat(line.getPrincipalVariation()[0], is(line.getBestMove()));
+			assertThat((i == 0) || (line.getScore() <= lines.get(i - 1).getScore()), is(true));
+		}
+		assertThat(firstMoves.size(), is(3));
+
+		board = new Board("7k/5Q2/6K1/8/8/8/8/8 b - -");
+		assertThat(new Search(board, evaluator).searchLines(TimeManager.createForMoveTime(Long.MAX_VALUE), 4, 3, null).isEmpty(), is(true));
+		board = new Board("2k5/8/1K6/8/8/8/8/7R w - -");
+		lines = new Search(board, evaluator).searchLines(TimeManager.createForMoveTime(Long.MAX_VALUE), 5, 2, null);
+		assertThat(lines.get(0).getScore(), is(Search.MATE_SCORE - 3));
+		assertThat(lines.get(1).getScore() < Search.MATE_SCORE - 3, is(true));
+	}
+
+	@Test
+	public void testStalemateHasNoMove()
+	{
+		Board board = new Board("7k/5Q2/6K1/8/8/8/8/8 b - -");
+		SearchResult result = new Search(board, evaluator).search(3);
+		assertThat(result.getBestMove(), is(PackedMove.NONE));
+		assertThat(result.getScore(), is(0));
+		assertThat(Calc.getBestMove(board, 3), is(nullValue()));
+	}
+
+	@Test
+	public void testAlphaBetaMatchesMinimax()
+	{
+		for (String fen : SearchTest.POSITIONS)
+		{
+			Board board = new Board(fen);
+			Board original = board.clone();
+			Search search = new Search(board, evaluator);
+			search.setQuiescenceEnabled(false);
+			search.setPruningEnabled(false);
+			SearchResult result = search.search(3);
+			assertThat(fen, result.getScore(), is(minimax(board, new GameCalc(board), 3)));
+			assertThat(board, is(original));
+		}
+	}
+
+	@Test
+	public void testGetBestMoveDoesNotChangeBoard()
+	{
+		Board board = new Board(true);
+		Move move = Calc.getBestMove(board, 3);
+		assertThat(board, is(new Board(true)));
+		assertThat(board.getSquare(move.getFrom().getID()), is(sameInstance(move.getFrom())));
+		assertThat(Calc.getPossibleMoves(board, ChessColor.WHITE), hasItem(move));
+	}
+
+	@Test
+	public void testGetPossibleMovesOnlyForColorToMove()
+	{
+		Board board = new Board(true);
+		assertThat(Calc.getPossibleMoves(board, ChessColor.WHITE).size(), is(20));
+		assertThat(Calc.getPossibleMoves(board, ChessColor.BLACK).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testEvaluateMatchesPositionEvaluation()
+	{
+		PositionEvaluator defaultEvaluator = new PositionEvaluator()
+		{
+			@Override
+			public PositionEvaluation getPositionEvaluation(Board board)
+			{
+				return new PieceDefaultValueEvaluation(board);
+			}
+		};
+		for (String fen : SearchTest.POSITIONS)
+		{
+			Board board = new Board(fen.replace(" w ", " b "));
+			assertThat(evaluator.evaluate(board), is(defaultEvaluator.evaluate(board)));
+		}
+	}
+
+	/**
+	 * Searches every move without any pruning.
+	 */
+	private int minimax(Board board, GameCalc gameCalc, int depth)
+	{
+		if (depth == 0)
+		{
+			return evaluator.evaluate(board);
+		}
+		MoveList moves = new MoveList();
+		if (gameCalc.generateMoves(moves) == 0)
+		{
+			return gameCalc.isInCheck() ? -Search.MATE_SCORE + (3 - depth) : 0;
+		}
+		int bestScore = -Search.INFINITE_SCORE;
+		for (int i = 0; i < moves.size(); i++)
+		{
+			board.makeMove(moves.get(i));
+			bestScore = Math.max(bestScore, -minimax(board, gameCalc, depth - 1));
+			board.unmakeMove();
+		}
+		return bestScore;
+	}
+}
@@ -0,0 +1,88 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import core.*;
+
+public class TimeManagerTest
+{
+	@Test
+	public void testLimitsStayWithinTheRemainingTime()
+	{
+		for (long remainingTime : new long[] { 0, 100, 3000, 60 * 1000, 20 * 60 * 1000 })
+		{
+			for (int moveNumber = 1; moveNumber < 200; moveNumber += 7)
+			{
+				TimeManager timeManager = new TimeManager(remainingTime, moveNumber);
+				long availableTime = Math.max(0, remainingTime - TimeManager.SAFETY_MARGIN);
+				assertThat(timeManager.getSoftLimit() <= timeManager.getHardLimit(), is(true));
+				assertThat(timeManager.getHardLimit() <= availableTime, is(true));
+			}
+		}
+	}
+
+	@Test
+	public void testSoftLimitFollowsMoveNumberAndRemainingTime()
+	{
+		long remainingTime = 5 * 60 * 1000;
+		assertThat(new TimeManager(remainingTime, 40).getSoftLimit() < new TimeManager(remainingTime, 1).getSoftLimit(), is(false));
+		assertThat(new TimeManager(remainingTime / 2, 1).getSoftLimit() < new TimeManager(remainingTime, 1).getSoftLimit(), is(true));
+	}
+
+	@Test
+	public void testTimedSearchRespectsTheHardLimit()
+	{
+		Board board = new Board("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+		Search search = new Search(board, PositionEvaluatorFactory.createPieceDefaultValueEvaluator());
+		TimeManager timeManager = TimeManager.createForMoveTime(200);
+		SearchResult result = search.search(timeManager, Search.MAX_PLY);
+		assertThat(timeManager.getElapsedTime() < 200 + 250, is(true));
+		assertThat(result.getBestMove() == PackedMove.NONE, is(false));
+		assertThat(result.getDepth() >= 1, is(true));
+	}
+
+	@Test
+	public void testPonderingLastsUntilPonderHit()
+	{
+		TimeManager timeManager = TimeManager.createForPondering();
+		assertThat(timeManager.isPondering(), is(true));
+		assertThat(timeManager.canStartIteration(10), is(true));
+		assertThat(timeManager.isHardLimitReached(), is(false));
+
+		timeManager.ponderHit(60 * 1000, 1);
+		TimeManager clockTimeManager = new TimeManager(60 * 1000, 1);
+		assertThat(timeManager.isPondering(), is(false));
+		assertThat(timeManager.getSoftLimit(), is(clockTimeManager.getSoftLimit()));
+		assertThat(timeManager.getHardLimit(), is(clockTimeManager.getHardLimit()));
+	}
+
+	@Test
+	public void testStopEndsPonderingSearch() throws InterruptedException
+	{
+		Board board = new Board("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+		Search search = new Search(board, PositionEvaluatorFactory.createPieceDefaultValueEvaluator());
+		TimeManager timeManager = TimeManager.createForPondering();
+		SearchResult[] result = new SearchResult[1];
+		Thread ponderer = new Thread(() -> result[0] = search.search(timeManager, Search.MAX_PLY));
+		ponderer.start();
+		Thread.sleep(100);
+		assertThat(ponderer.isAlive(), is(true));
+		timeManager.stop();
+		ponderer.join(1000);
+		assertThat(ponderer.isAlive(), is(false));
+		assertThat(result[0].getBestMove() == PackedMove.NONE, is(false));
+	}
+
+	@Test
+	public void testTimedSearchFindsMate()
+	{
+		Board board = new Board("6k1/5ppp/8/8/8/8/8/R5K1 w - -");
+		Search search = new Search(board, PositionEvaluatorFactory.createPieceDefaultValueEvaluator());
+		SearchResult result = search.search(TimeManager.createForMoveTime(5000), Search.MAX_PLY);
+		assertThat(PackedMove.toString(result.getBestMove()), is("a1a8"));
+		assertThat(result.getScore(), is(Search.MATE_SCORE - 1));
+	}
+}
@@ -0,0 +1,125 @@
+package user.schubert.richard;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.*;
+
+import org.junit.Test;
+
+import core.*;
+
+public class TranspositionTableTest
+{
+	@Test
+	public void testStoredEntryCanBeProbed()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		int move = PackedMove.create(12, 28, 0);
+		table.store(0x123456789ABCDEFL, move, -345, 7, TranspositionTable.LOWER_BOUND, 3);
+		long entry = table.probe(0x123456789ABCDEFL);
+		assertThat(TranspositionTable.getMove(entry), is(move));
+		assertThat(TranspositionTable.getScore(entry, 3), is(-345));
+		assertThat(TranspositionTable.getDepth(entry), is(7));
+		assertThat(TranspositionTable.getBound(entry), is(TranspositionTable.LOWER_BOUND));
+		assertThat(table.probe(0x123456789ABCDEEL), is(TranspositionTable.NO_ENTRY));
+	}
+
+	@Test
+	public void testMateScoresAreRelativeToThePosition()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		// a mate in 5 plies from the root found at ply 2 is a mate in 3 plies from the position
+		table.store(42, PackedMove.NONE, Search.MATE_SCORE - 5, 4, TranspositionTable.EXACT, 2);
+		assertThat(TranspositionTable.getScore(table.probe(42), 6), is(Search.MATE_SCORE - 9));
+		table.store(43, PackedMove.NONE, -Search.MATE_SCORE + 4, 4, TranspositionTable.EXACT, 4);
+		assertThat(TranspositionTable.getScore(table.probe(43), 0), is(-Search.MATE_SCORE));
+	}
+
+	@Test
+	public void testStoreWithoutMoveKeepsTheMove()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		int move = PackedMove.create(1, 18, 0);
+		table.store(99, move, 10, 3, TranspositionTable.EXACT, 0);
+		table.store(99, PackedMove.NONE, 5, 4, TranspositionTable.UPPER_BOUND, 0);
+		assertThat(TranspositionTable.getMove(table.probe(99)), is(move));
+		assertThat(TranspositionTable.getDepth(table.probe(99)), is(4));
+	}
+
+	@Test
+	public void testDeepAndRecentEntriesAreKept()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		// keys with the same upper half fall into the same bucket
+		table.store(1, PackedMove.NONE, 0, 20, TranspositionTable.EXACT, 0);
+		for (long key = 2; key < 100; key++)
+		{
+			table.store(key, PackedMove.NONE, 0, 1, TranspositionTable.EXACT, 0);
+		}
+		assertThat(table.probe(1) == TranspositionTable.NO_ENTRY, is(false));
+
+		// after enough searches the deep entry is outdated
+		for (int i = 0; i < 3; i++)
+		{
+			table.newSearch();
+		}
+		for (long key = 100; key < 104; key++)
+		{
+			table.store(key, PackedMove.NONE, 0, 1, TranspositionTable.EXACT, 0);
+		}
+		assertThat(table.probe(1), is(TranspositionTable.NO_ENTRY));
+	}
+
+	@Test
+	public void testConcurrentWritesNeverReturnMixedEntries() throws InterruptedException
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++)
+		{
+			int depth = t + 1;
+			threads.add(new Thread(() ->
+			{
+				for (int i = 0; i < 200000; i++)
+				{
+					// all threads write the same keys, each with its own depth and a score derived from the key
+					long key = (i % 64) * 0x9E3779B97F4A7C15L;
+					table.store(key, PackedMove.NONE, (int) (key & 1023), depth, TranspositionTable.EXACT, 0);
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (int i = 0; i < 200000; i++)
+		{
+			long key = (i % 64) * 0x9E3779B97F4A7C15L;
+			long entry = table.probe(key);
+			if (entry != TranspositionTable.NO_ENTRY)
+			{
+				assertThat(TranspositionTable.getScore(entry, 0), is((int) (key & 1023)));
+			}
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+	}
+
+	@Test
+	public void testSearchWithTableFindsTheSameScoreWithFewerNodes()
+	{
+		Board board = new Board("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+		PositionEvaluator evaluator = PositionEvaluatorFactory.createPieceDefaultValueEvaluator();
+		SearchResult withoutTable = new Search(board, evaluator).search(6);
+		SearchResult withTable = new Search(board, evaluator, new TranspositionTable(16)).search(6);
+		assertThat(withTable.getScore(), is(withoutTable.getScore()));
+		assertThat(withTable.getNodeCount() < withoutTable.getNodeCount(), is(true));
+	}
+
+	@Test
+	public void testBucketsAreCacheLineAligned()
+	{
+		assertThat(new TranspositionTable(1).isCacheLineAligned(), is(true));
+		assertThat(new TranspositionTable(3).isCacheLineAligned(), is(true));
+	}
+}